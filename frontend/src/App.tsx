@@ -1,17 +1,18 @@
-import { useCallback, useEffect, useMemo, useState } from 'react'
+import { useCallback, useEffect, useState } from 'react'
 import { HexColorPicker } from 'react-colorful'
 import {
   defineCaptureArea,
   fetchOverrides,
+  fetchRender,
   persistOverrides,
   startLighting,
   stopLighting,
   type LightingOverridesPayload,
   type RawColor,
+  type StatZonePayload,
 } from './api/lighting'
 import './App.css'
 
-const PREVIEW_COLS = 22
 const RESOURCE_TYPES = [
   'MANA',
   'RAGE',
@@ -57,6 +58,14 @@ const toHexColor = (value: RawColor, fallback: string): string => {
 
 const toNumericColor = (value: string): number => Number.parseInt(value.replace('#', ''), 16)
 
+// Les frames du serveur sont en BGR (format Chroma)
+const bgrToCss = (bgr: number): string => {
+  const r = bgr & 0xff
+  const g = (bgr >> 8) & 0xff
+  const b = (bgr >> 16) & 0xff
+  return `rgb(${r}, ${g}, ${b})`
+}
+
 type OverridesState = {
   hpRow: number
   hpFirstCol: number
@@ -68,6 +77,7 @@ type OverridesState = {
   resourceColor: string
   backgroundColor: string
   resourceColors: Record<string, string>
+  statZones: StatZonePayload[]
 }
 
 const DEFAULT_OVERRIDES: OverridesState = {
@@ -90,6 +100,7 @@ const DEFAULT_OVERRIDES: OverridesState = {
     MAELSTROM: '#808080',
     RUNIC_POWER: '#00FFFF',
   },
+  statZones: [],
 }
 
 const normaliseOverrides = (payload: LightingOverridesPayload): OverridesState => {
@@ -112,6 +123,7 @@ const normaliseOverrides = (payload: LightingOverridesPayload): OverridesState =
     resourceColor: toHexColor(payload.resourceColor, base.resourceColor),
     backgroundColor: toHexColor(payload.backgroundColor, base.backgroundColor),
     resourceColors,
+    statZones: payload.statZones ?? base.statZones,
   }
 }
 
@@ -128,6 +140,7 @@ const serialiseOverrides = (state: OverridesState): LightingOverridesPayload =>
   resourceColors: Object.fromEntries(
     Object.entries(state.resourceColors).map(([key, color]) => [key, toNumericColor(color)]),
   ),
+  statZones: state.statZones,
 })
 
 interface ColorPickerFieldProps {
@@ -187,6 +200,9 @@ function App() {
   const [isRunning, setIsRunning] = useState(false)
   const [hpPreview, setHpPreview] = useState(75)
   const [resourcePreview, setResourcePreview] = useState(40)
+  const [previewType, setPreviewType] = useState<string>('MANA')
+  const [previewFrame, setPreviewFrame] = useState<number[][] | null>(null)
+  const [overridesRevision, setOverridesRevision] = useState(0)
 
   useEffect(() => {
     const loadOverrides = async () => {
@@ -211,6 +227,7 @@ function App() {
       try {
         setSaving(true)
         const message = await persistOverrides(serialiseOverrides(next))
+        setOverridesRevision((revision) => revision + 1)
         setStatus(message ?? 'Couleurs mises à jour')
       } catch (error) {
         console.error('Failed to persist overrides', error)
@@ -287,6 +304,7 @@ function App() {
         resourceRow: previous.resourceRow,
         resourceFirstCol: previous.resourceFirstCol,
         resourceLastCol: previous.resourceLastCol,
+        statZones: previous.statZones,
       }
       void saveOverrides(next)
       return next
@@ -329,17 +347,21 @@ function App() {
     }
   }
 
-  const hpFill = useMemo(() => Math.round((hpPreview / 100) * PREVIEW_COLS), [hpPreview])
-  const resourceFill = useMemo(() => Math.round((resourcePreview / 100) * PREVIEW_COLS), [resourcePreview])
+  // Aperçu rendu par le serveur (même rendu que les LEDs, mis en cache par le serveur et via ETag)
+  useEffect(() => {
+    let cancelled = false
+    fetchRender(hpPreview, resourcePreview, previewType)
+      .then((frame) => {
+        if (!cancelled) setPreviewFrame(frame.matrix)
+      })
+      .catch((error) => console.error('Failed to render preview', error))
+    return () => {
+      cancelled = true
+    }
+  }, [hpPreview, resourcePreview, previewType, overridesRevision])
 
-  const renderKeys = (fill: number, activeColor: string) =>
-    Array.from({ length: PREVIEW_COLS }).map((_, index) => (
-      <span
-        key={index}
-        className="key"
-        style={{ backgroundColor: index < fill ? activeColor : overrides.backgroundColor }}
-      />
-    ))
+  const renderKeys = (row: number[]) =>
+    row.map((bgr, index) => <span key={index} className="key" style={{ backgroundColor: bgrToCss(bgr) }} />)
 
   return (
     <div className="app-shell">
@@ -434,9 +456,22 @@ function App() {
               />
               <span className="slider-value">{resourcePreview}%</span>
             </div>
+            <div className="slider-row">
+              <label htmlFor="type-select">Type</label>
+              <select id="type-select" value={previewType} onChange={(event) => setPreviewType(event.target.value)}>
+                {RESOURCE_TYPES.map((resource) => (
+                  <option key={resource} value={resource}>
+                    {resource.replace('_', ' ')}
+                  </option>
+                ))}
+              </select>
+            </div>
             <div className="preview-rows">
-              <div className="preview-row">{renderKeys(hpFill, overrides.hpColor)}</div>
-              <div className="preview-row">{renderKeys(resourceFill, overrides.resourceColor)}</div>
+              {previewFrame?.map((row, index) => (
+                <div key={index} className="preview-row">
+                  {renderKeys(row)}
+                </div>
+              ))}
             </div>
           </div>
         </section>
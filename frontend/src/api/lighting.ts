@@ -2,6 +2,15 @@ import { apiClient, extractStatusMessage } from './client'
 
 export type RawColor = number | string | null | undefined
 
+// Barre clavier d'une stat d'extracteur (config.json extractors) : gardée telle quelle par l'éditeur
+export interface StatZonePayload {
+  stat: string
+  row: number
+  firstCol: number
+  lastCol: number
+  color?: RawColor
+}
+
 export interface LightingOverridesPayload {
   hpRow?: number
   hpFirstCol?: number
@@ -13,6 +22,15 @@ export interface LightingOverridesPayload {
   resourceColor?: RawColor
   backgroundColor?: RawColor
   resourceColors?: Record<string, RawColor>
+  statZones?: StatZonePayload[]
+}
+
+export interface RenderResponse {
+  overridesVersion: number
+  hpFill: number
+  resFill: number
+  type: string
+  matrix: number[][]
 }
 
 export interface StatusResponse {
@@ -29,6 +47,11 @@ export const persistOverrides = async (payload: LightingOverridesPayload): Promi
   return extractStatusMessage(data)
 }
 
+export const fetchRender = async (hp: number, res: number, type: string): Promise<RenderResponse> => {
+  const { data } = await apiClient.get<RenderResponse>('/render', { params: { hp, res, type } })
+  return data
+}
+
 export const startLighting = async (): Promise<string | undefined> => {
   const { data } = await apiClient.post('/start')
   return extractStatusMessage(data)
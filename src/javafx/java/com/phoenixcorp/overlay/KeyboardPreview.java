@@ -0,0 +1,60 @@
+package com.phoenixcorp.overlay;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Clavier 6x22 dessiné sur un Canvas (fillRect par touche), sans nœud ni CSS par touche.
+ * Seules les touches dont la couleur a changé depuis la frame précédente sont repeintes.
+ * Thread JavaFX uniquement.
+ */
+final class KeyboardPreview {
+
+    static final int ROWS = 6, COLS = 22;
+    private static final double GAP = 4;
+    private static final Color BACKGROUND = Color.web("#0b1015");
+
+    private final Canvas canvas;
+    private final int[][] painted = new int[ROWS][COLS];
+    private boolean blank = true;   // rien de peint : la première frame repeint tout
+
+    KeyboardPreview(Canvas canvas) {
+        this.canvas = canvas;
+        canvas.widthProperty().addListener((obs, o, v) -> invalidate());
+        canvas.heightProperty().addListener((obs, o, v) -> invalidate());
+        invalidate();
+    }
+
+    /** Matrice BGR (SnapshotToMatrix) ; lignes / colonnes manquantes laissées éteintes. */
+    void paint(int[][] matrix) {
+        if (matrix == null) return;
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        double kw = (canvas.getWidth() - GAP * (COLS - 1)) / COLS;
+        double kh = (canvas.getHeight() - GAP * (ROWS - 1)) / ROWS;
+        for (int r = 0; r < ROWS; r++) {
+            int[] row = r < matrix.length ? matrix[r] : null;
+            for (int c = 0; c < COLS; c++) {
+                int bgr = row != null && c < row.length ? row[c] : 0;
+                if (!blank && painted[r][c] == bgr) continue;
+                painted[r][c] = bgr;
+                g.setFill(Color.rgb(bgr & 0xFF, (bgr >> 8) & 0xFF, (bgr >> 16) & 0xFF));
+                g.fillRect(c * (kw + GAP), r * (kh + GAP), kw, kh);
+            }
+        }
+        blank = false;
+    }
+
+    /** Vrai tant qu'aucune frame n'a été peinte depuis le dernier effacement. */
+    boolean isBlank() {
+        return blank;
+    }
+
+    /** Fond effacé (création, redimensionnement) : la prochaine frame repeint toutes les touches. */
+    private void invalidate() {
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        g.setFill(BACKGROUND);
+        g.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        blank = true;
+    }
+}
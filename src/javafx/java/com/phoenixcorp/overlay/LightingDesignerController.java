@@ -1,13 +1,16 @@
 package com.phoenixcorp.overlay;
 
 import com.phoenixcorp.overlay.api.LightingRuntime;
+import com.phoenixcorp.overlay.api.RenderCache;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
+import javafx.scene.canvas.Canvas;
 import javafx.scene.control.*;
-import javafx.scene.layout.HBox;
 import javafx.scene.paint.Color;
 
 import java.awt.Rectangle;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -15,7 +18,6 @@ public final class LightingDesignerController {
 
     private LightingOverrides overrides        = LightingOverrides.loadOrDefaults();
     private LightingRuntime runtime;
-    private static final int PREVIEW_COLS = 22;
 
     // Boutons
     @FXML private Button startBtn;
@@ -47,15 +49,23 @@ public final class LightingDesignerController {
     @FXML private Slider resPreviewSlider;
     @FXML private Label  hpPreviewLabel;
     @FXML private Label  resPreviewLabel;
-    @FXML private HBox   hpPreviewRow;
-    @FXML private HBox   resPreviewRow;
-
-    private javafx.scene.layout.Region[] hpKeys;
-    private javafx.scene.layout.Region[] resKeys;
+    @FXML private Label  previewSourceLbl;
+    @FXML private Canvas previewCanvas;
+
+    // Aperçu : frames réelles du runtime (OCR en cours) ou rendu des sliders, peintes par previewTimer
+    private record LiveFrame(int[][] matrix, OcrReader.Snapshot snapshot) { }
+    private KeyboardPreview preview;
+    private AnimationTimer previewTimer;
+    private boolean ocrActive;                      // thread JavaFX
+    private volatile LiveFrame live;                // dernière frame envoyée aux LEDs (FrameListener)
+    private volatile RenderCache.Entry simulated;   // dernier rendu des sliders
+    private Object painted;                         // LiveFrame ou Entry peinte (nouvelle référence = nouvelle frame)
 
     @FXML
     public void initialize() {
         runtime = new LightingRuntime(overrides);
+        OutputSink.fromConfig(ConfigManager.getInstance().getConfig()).forEach(runtime::addSink);
+        runtime.warmUpAsync();
 
         // Actions
         if (startBtn     != null) startBtn.setOnAction(e -> onStart());
@@ -82,19 +92,9 @@ public final class LightingDesignerController {
         attachColorPicker(runicColorPicker,   () -> { putRes("RUNIC_POWER", runicColorPicker); onColorsChanged(true); });
 
         // Preview widgets
-        setupPreviewRows();
-        if (hpPreviewSlider != null) {
-            hpPreviewSlider.valueProperty().addListener((obs, o, v) -> {
-                if (hpPreviewLabel != null) hpPreviewLabel.setText(v.intValue() + "%");
-                updatePreview();
-            });
-        }
-        if (resPreviewSlider != null) {
-            resPreviewSlider.valueProperty().addListener((obs, o, v) -> {
-                if (resPreviewLabel != null) resPreviewLabel.setText(v.intValue() + "%");
-                updatePreview();
-            });
-        }
+        setupPreview();
+        if (hpPreviewSlider != null) hpPreviewSlider.valueProperty().addListener((obs, o, v) -> updatePreview());
+        if (resPreviewSlider != null) resPreviewSlider.valueProperty().addListener((obs, o, v) -> updatePreview());
         updatePreview();
 
         setStatus("Prêt");
@@ -105,6 +105,7 @@ public final class LightingDesignerController {
 
     private void onStart() {
         if (!runtime.start()) return;
+        ocrActive = true;
 
         if (startBtn != null) startBtn.setDisable(true);
         if (stopBtn  != null) stopBtn.setDisable(false);
@@ -113,6 +114,7 @@ public final class LightingDesignerController {
 
     private void onStop() {
         runtime.stop();
+        ocrActive = false;
         if (startBtn != null) startBtn.setDisable(false);
         if (stopBtn  != null) stopBtn.setDisable(true);
         setStatus("Arrêté");
@@ -120,8 +122,12 @@ public final class LightingDesignerController {
     }
 
     private void onDefineArea() {
-        try {
-            SelectCaptureArea.SelectionResult res = SelectCaptureArea.selectInteractiveForApi();
+        // Ne bloque pas le thread JavaFX pendant que l'utilisateur dessine la zone
+        SelectCaptureArea.selectAsync(Duration.ofSeconds(15)).whenComplete((res, t) -> {
+            if (t != null) {
+                System.err.println("[OCR] Define area failed: " + t.getMessage());
+                return;
+            }
             Rectangle area = res.area();
             if (area == null) {
                 if (res.timedOut()) setStatus("Sélection OCR expirée");
@@ -129,9 +135,7 @@ public final class LightingDesignerController {
             }
             runtime.defineOcrArea(area);
             setStatus("Zone OCR définie: " + area.width + "x" + area.height + "@" + area.x + "," + area.y);
-        } catch (Throwable t) {
-            System.err.println("[OCR] Define area failed: " + t.getMessage());
-        }
+        });
     }
 
     // ---------- UI helpers ----------
@@ -205,6 +209,7 @@ public final class LightingDesignerController {
     }
 
     public void shutdown() {
+        if (previewTimer != null) previewTimer.stop();
         if (runtime == null) return;
         try {
             runtime.stop();
@@ -212,46 +217,63 @@ public final class LightingDesignerController {
         runtime.shutdown();
     }
 
-    // ---------- Aperçu (simulation) ----------
-
-    private void setupPreviewRows() {
-        hpKeys = new javafx.scene.layout.Region[PREVIEW_COLS];
-        resKeys = new javafx.scene.layout.Region[PREVIEW_COLS];
-        if (hpPreviewRow != null) {
-            hpPreviewRow.getChildren().clear();
-            for (int i = 0; i < PREVIEW_COLS; i++) {
-                javafx.scene.layout.Region r = new javafx.scene.layout.Region();
-                r.getStyleClass().add("key");
-                hpPreviewRow.getChildren().add(r);
-                hpKeys[i] = r;
-            }
-        }
-        if (resPreviewRow != null) {
-            resPreviewRow.getChildren().clear();
-            for (int i = 0; i < PREVIEW_COLS; i++) {
-                javafx.scene.layout.Region r = new javafx.scene.layout.Region();
-                r.getStyleClass().add("key");
-                resPreviewRow.getChildren().add(r);
-                resKeys[i] = r;
+    // ---------- Aperçu ----------
+
+    /**
+     * Clavier complet sur Canvas. Le timer tourne à chaque pulse (60 Hz) mais ne peint que si la frame
+     * a changé (nouvelle référence) : frame envoyée aux LEDs pendant l'OCR, rendu des sliders sinon.
+     * Aucun verrou du runtime côté JavaFX : le listener dépose la frame, le pulse la lit.
+     */
+    private void setupPreview() {
+        if (previewCanvas == null) return;
+        preview = new KeyboardPreview(previewCanvas);
+        runtime.addFrameListener((matrix, snapshot) -> live = new LiveFrame(copy(matrix), snapshot));
+        previewTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                paintPreviewIfChanged();
             }
+        };
+        previewTimer.start();
+    }
+
+    private void paintPreviewIfChanged() {
+        boolean force = preview.isBlank();
+        LiveFrame f = live;
+        if (ocrActive && f != null) {
+            if (f == painted && !force) return;
+            preview.paint(f.matrix());
+            painted = f;
+            OcrReader.Snapshot s = f.snapshot();
+            setPreviewSource(s == null ? "OCR en direct" : "OCR en direct : HP " + s.hpCur + "/" + s.hpMax
+                    + ", " + s.type.name() + " " + s.resCur + "/" + s.resMax);
+        } else {
+            RenderCache.Entry e = simulated;
+            if (e == null || (e == painted && !force)) return;
+            preview.paint(e.matrix());
+            painted = e;
+            setPreviewSource("Simulation (sliders)");
         }
     }
 
-    private void updatePreview() {
-        if (hpKeys == null || resKeys == null) return;
-        int hpFill = (int) Math.round((hpPreviewSlider != null ? hpPreviewSlider.getValue() : 75) / 100.0 * PREVIEW_COLS);
-        int rsFill = (int) Math.round((resPreviewSlider != null ? resPreviewSlider.getValue() : 40) / 100.0 * PREVIEW_COLS);
+    private static int[][] copy(int[][] matrix) {
+        int[][] out = new int[matrix.length][];
+        for (int r = 0; r < matrix.length; r++) out[r] = matrix[r].clone();
+        return out;
+    }
 
-        String bgCss  = cssFromRgbObj(overrides.backgroundColor);
-        String hpCss  = cssFromRgbObj(overrides.hpColor);
-        String resCss = cssFromRgbObj(overrides.resourceColor);
+    private void setPreviewSource(String text) {
+        if (previewSourceLbl != null && !text.equals(previewSourceLbl.getText())) previewSourceLbl.setText(text);
+    }
 
-        for (int i = 0; i < PREVIEW_COLS; i++) {
-            hpKeys[i].setStyle("-fx-background-color: " + (i < hpFill ? hpCss : bgCss) + ";");
-            resKeys[i].setStyle("-fx-background-color: " + (i < rsFill ? resCss : bgCss) + ";");
-        }
-        if (hpPreviewLabel != null && hpPreviewSlider != null) hpPreviewLabel.setText(((int) hpPreviewSlider.getValue()) + "%");
-        if (resPreviewLabel != null && resPreviewSlider != null) resPreviewLabel.setText(((int) resPreviewSlider.getValue()) + "%");
+    /** Sliders / couleurs : rendu mémoïsé côté runtime (même rendu que les LEDs), peint au prochain pulse. */
+    private void updatePreview() {
+        if (runtime == null) return;
+        int hpPct = (int) (hpPreviewSlider != null ? hpPreviewSlider.getValue() : 75);
+        int rsPct = (int) (resPreviewSlider != null ? resPreviewSlider.getValue() : 40);
+        simulated = runtime.render(new OcrReader.Snapshot(hpPct, 100, rsPct, 100, OcrReader.ResourceType.UNKNOWN));
+        if (hpPreviewLabel != null) hpPreviewLabel.setText(hpPct + "%");
+        if (resPreviewLabel != null) resPreviewLabel.setText(rsPct + "%");
     }
 
     // ---------- Conversions locales ----------
@@ -264,14 +286,6 @@ public final class LightingDesignerController {
         return Color.rgb(r, g, b);
     }
 
-    private static String cssFromRgbObj(Object any) {
-        int rgb = toRgbInt(any, 0xFFFFFF);
-        int r = (rgb >> 16) & 0xFF;
-        int g = (rgb >> 8)  & 0xFF;
-        int b = (rgb)       & 0xFF;
-        return String.format("rgb(%d,%d,%d)", r, g, b);
-    }
-
     private static int toRgbInt(Color c) {
         if (c == null) return 0xFFFFFF;
         int r = (int)Math.round(c.getRed()*255);
@@ -0,0 +1,47 @@
+package com.phoenixcorp.overlay;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Sérialisation JSON des corps CHROMA_CUSTOM (clavier 6x22, souris 9x7) par ChromaSessionManager. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChromaSerializationBenchmark {
+
+    private ChromaStandIn standIn;
+    private ChromaSessionManager chroma;
+    private int[][] keyboard;
+    private int[][] devices;
+
+    @Setup
+    public void setup() throws Exception {
+        standIn = new ChromaStandIn();
+        chroma = new ChromaSessionManager(standIn.registrationUrl());
+        chroma.connectAsync().join();
+        SnapshotToMatrix toMatrix = new SnapshotToMatrix(new ColorMatrixBuilder(), LightingOverrides.loadOrDefaults());
+        OcrReader.Snapshot s = new OcrReader.Snapshot(6543, 9999, 420, 1000, OcrReader.ResourceType.MANA);
+        keyboard = toMatrix.toKeyboard(s);
+        devices = toMatrix.toDevices(s);
+    }
+
+    @TearDown
+    public void tearDown() {
+        chroma.close();
+        standIn.close();
+    }
+
+    @Benchmark
+    public String keyboardBody() throws Exception {
+        return chroma.keyboardBody(keyboard);
+    }
+
+    @Benchmark
+    public String mouseBody() throws Exception {
+        return chroma.customBody(DeviceLayout.Device.MOUSE, devices[DeviceLayout.Device.MOUSE.ordinal()]);
+    }
+}
@@ -0,0 +1,81 @@
+package com.phoenixcorp.overlay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Faux Chroma SDK REST local (port libre) : register, heartbeat et PUT device répondent
+ * comme Synapse. Sert aux benchmarks sans Razer installé.
+ */
+public final class ChromaStandIn implements AutoCloseable {
+
+    static {
+        // Sans TCP_NODELAY, en-têtes et corps de réponse partent séparément : Nagle + ACK retardé = ~40 ms par PUT,
+        // ce qui mesurerait le faux serveur et non le pipeline. Lu une fois au chargement de HttpServer.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final AtomicLong puts = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    public ChromaStandIn() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "chroma-standin"); t.setDaemon(true); return t;
+        }));
+        server.createContext("/razer/chromasdk", this::register);
+        server.createContext("/chromasdk", this::device);
+        server.start();
+    }
+
+    public String registrationUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/razer/chromasdk";
+    }
+
+    public long puts()  { return puts.get(); }
+    public long bytes() { return bytes.get(); }
+
+    private void register(HttpExchange ex) throws IOException {
+        drain(ex);
+        String uri = "http://localhost:" + server.getAddress().getPort() + "/chromasdk";
+        reply(ex, "{\"sessionid\":1,\"uri\":\"" + uri + "\"}");
+    }
+
+    private void device(HttpExchange ex) throws IOException {
+        bytes.addAndGet(drain(ex));
+        if ("PUT".equals(ex.getRequestMethod()) && !ex.getRequestURI().getPath().endsWith("/heartbeat")) {
+            puts.incrementAndGet();
+        }
+        reply(ex, "{\"result\":0}");
+    }
+
+    private static long drain(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static void reply(HttpExchange ex, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, body.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
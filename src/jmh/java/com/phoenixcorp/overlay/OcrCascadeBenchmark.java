@@ -0,0 +1,60 @@
+package com.phoenixcorp.overlay;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Texte OCR d'un crop fixe par TesseractOcrReader, cascade activée ou non (passe FULL seule).
+ * Mêmes crops que TesseractOcrBenchmark ; taux par passe affichés en fin d'itération.
+ * tessdata : -Dtessdata=/chemin/tessdata (défaut ~/.lightingdesigner/tessdata).
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OcrCascadeBenchmark {
+
+    @Param({"277x70", "554x140"})
+    public String crop;
+
+    @Param({"false", "true"})
+    public boolean cascade;
+
+    private TesseractOcrReader reader;
+    private BufferedImage image;
+
+    @Setup
+    public void setup() {
+        String dir = System.getProperty("tessdata",
+                Path.of(System.getProperty("user.home"), ".lightingdesigner", "tessdata").toString());
+        if (!Files.exists(Path.of(dir, "eng.traineddata"))) {
+            throw new IllegalStateException("eng.traineddata absent de " + dir + " (-Dtessdata=...)");
+        }
+        String[] wh = crop.split("x");
+        int w = Integer.parseInt(wh[0]), h = Integer.parseInt(wh[1]);
+        image = TesseractOcrBenchmark.drawCrop(w, h, "8765/9999", "MANA 4210/5000");
+        reader = new TesseractOcrReader(new Rectangle(0, 0, w, h), dir, "eng");
+        reader.setCascade(new TesseractOcrReader.Cascade(cascade, 80));
+    }
+
+    @Benchmark
+    public String recognize() throws Exception {
+        return reader.recognize(image);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tiers() {
+        for (TesseractOcrReader.TierStats t : reader.cascadeStats()) {
+            if (t.attempts() > 0) {
+                System.out.printf("  %s: %d passes, %d acceptées, %.2f ms%n", t.tier(), t.attempts(), t.hits(), t.avgMs());
+            }
+        }
+    }
+}
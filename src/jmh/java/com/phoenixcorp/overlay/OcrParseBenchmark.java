@@ -0,0 +1,57 @@
+package com.phoenixcorp.overlay;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Rectangle;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyse du texte OCR (regex HP / ressource + normalisation) sur le corpus ocr-corpus.txt
+ * (écrit à la main pour l'instant, cf. son en-tête).
+ * Une opération = une ligne du corpus (on tourne en boucle dessus).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OcrParseBenchmark {
+
+    private TesseractOcrReader reader;
+    private String[] corpus;
+    private int i;
+
+    @Setup
+    public void setup() throws Exception {
+        reader = new TesseractOcrReader(new Rectangle(0, 0, 277, 70), null, "eng");
+        corpus = loadCorpus();
+    }
+
+    @Benchmark
+    public OcrReader.Snapshot parse() {
+        String raw = corpus[i];
+        if (++i == corpus.length) i = 0;
+        return reader.parse(raw);
+    }
+
+    static String[] loadCorpus() throws Exception {
+        List<String> lines = new ArrayList<>();
+        try (InputStream in = OcrParseBenchmark.class.getResourceAsStream("/ocr-corpus.txt")) {
+            if (in == null) throw new IllegalStateException("ocr-corpus.txt introuvable");
+            BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                lines.add(line.replace("\\n", "\n"));
+            }
+        }
+        return lines.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,169 @@
+package com.phoenixcorp.overlay;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Faux serveur SDK OpenRGB local (port libre, protocole 3) : un clavier (zone matrice 6x23 à trous) et un
+ * ruban de 30 LEDs. Répond au handshake comme OpenRGB, compte les UPDATELEDS et garde les dernières couleurs.
+ * Sert aux benchmarks et au replay sans OpenRGB installé.
+ */
+public final class OpenRgbStandIn implements AutoCloseable {
+
+    static final int KEYBOARD_ROWS = 6, KEYBOARD_COLS = 23, STRIP_LEDS = 30;
+
+    private final ServerSocket server;
+    private final int[] keyboardMap;     // grille du clavier : index de LED ou -1
+    private final int keyboardLeds;
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final int[][] colors = new int[2][];
+    private volatile Socket client;
+
+    public OpenRgbStandIn() throws IOException {
+        keyboardMap = new int[KEYBOARD_ROWS * KEYBOARD_COLS];
+        int n = 0;
+        for (int i = 0; i < keyboardMap.length; i++) {
+            // Trous comme sur un vrai clavier (barre d'espace, pavé fléché)
+            boolean hole = (i / KEYBOARD_COLS == 5 && i % KEYBOARD_COLS >= 4 && i % KEYBOARD_COLS <= 9) || i % 7 == 6;
+            keyboardMap[i] = hole ? -1 : n++;
+        }
+        keyboardLeds = n;
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Thread t = new Thread(this::serve, "openrgb-standin");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public int port()          { return server.getLocalPort(); }
+    public long updates()      { return updates.get(); }
+    public long bytes()        { return bytes.get(); }
+    public int keyboardLeds()  { return keyboardLeds; }
+
+    /** Dernières couleurs reçues (0x00BBGGRR) du contrôleur (0 = clavier, 1 = ruban) ; null si aucune. */
+    public synchronized int[] colors(int controller) {
+        return colors[controller] == null ? null : colors[controller].clone();
+    }
+
+    /** Simule un branchement : DEVICE_LIST_UPDATED au client connecté. */
+    public void deviceListUpdated() throws IOException {
+        Socket c = client;
+        if (c == null) return;
+        synchronized (c) {
+            c.getOutputStream().write(header(0, OpenRgbSink.DEVICE_LIST_UPDATED, 0).array());
+        }
+    }
+
+    private void serve() {
+        while (!server.isClosed()) {
+            try (Socket s = server.accept()) {
+                s.setTcpNoDelay(true);
+                client = s;
+                handle(s);
+            } catch (IOException ignore) {
+                // client parti : on attend le suivant
+            } finally {
+                client = null;
+            }
+        }
+    }
+
+    private void handle(Socket s) throws IOException {
+        DataInputStream in = new DataInputStream(s.getInputStream());
+        OutputStream out = s.getOutputStream();
+        byte[] head = new byte[OpenRgbSink.HEADER_SIZE];
+        while (true) {
+            try {
+                in.readFully(head);
+            } catch (EOFException e) {
+                return;
+            }
+            ByteBuffer h = ByteBuffer.wrap(head).order(ByteOrder.LITTLE_ENDIAN);
+            int device = h.getInt(4), id = h.getInt(8), size = h.getInt(12);
+            byte[] data = new byte[size];
+            in.readFully(data);
+            bytes.addAndGet(head.length + size);
+            ByteBuffer d = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer reply = switch (id) {
+                case OpenRgbSink.REQUEST_PROTOCOL_VERSION -> header(0, id, 4).putInt(OpenRgbSink.PROTOCOL_VERSION);
+                case OpenRgbSink.REQUEST_CONTROLLER_COUNT -> header(0, id, 4).putInt(2);
+                case OpenRgbSink.REQUEST_CONTROLLER_DATA -> controllerData(device);
+                case OpenRgbSink.UPDATELEDS -> {
+                    d.getInt();
+                    int[] c = new int[Short.toUnsignedInt(d.getShort())];
+                    for (int i = 0; i < c.length; i++) c[i] = d.getInt();
+                    synchronized (this) {
+                        colors[device] = c;
+                    }
+                    updates.incrementAndGet();
+                    yield null;
+                }
+                default -> null;   // SET_CLIENT_NAME, SETCUSTOMMODE : sans réponse
+            };
+            if (reply != null) {
+                synchronized (s) {
+                    out.write(reply.array());
+                }
+            }
+        }
+    }
+
+    private ByteBuffer controllerData(int device) {
+        ByteBuffer b = ByteBuffer.allocate(8192).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(0).putInt(device == 0 ? 5 : 12);                      // data_size (écrit à la fin), type
+        string(b, device == 0 ? "Stand-in Keyboard" : "Stand-in Strip");
+        for (String s : new String[]{"PhoenixCorp", "", "1.0", "", "loopback"}) string(b, s);   // vendor, description...
+        b.putShort((short) 1).putInt(0);                                 // 1 mode, actif = 0
+        string(b, "Direct");
+        for (int i = 0; i < 12; i++) b.putInt(0);
+        b.putShort((short) 0);
+        b.putShort((short) 1);                                           // 1 zone
+        string(b, device == 0 ? "Keyboard" : "Strip");
+        int leds;
+        if (device == 0) {
+            leds = keyboardLeds;
+            b.putInt(OpenRgbSink.ZONE_MATRIX).putInt(leds).putInt(leds).putInt(leds);
+            b.putShort((short) (8 + 4 * keyboardMap.length)).putInt(KEYBOARD_ROWS).putInt(KEYBOARD_COLS);
+            for (int v : keyboardMap) b.putInt(v);
+        } else {
+            leds = STRIP_LEDS;
+            b.putInt(OpenRgbSink.ZONE_LINEAR).putInt(0).putInt(300).putInt(leds).putShort((short) 0);
+        }
+        b.putShort((short) leds);
+        for (int i = 0; i < leds; i++) {
+            string(b, "LED " + i);
+            b.putInt(i);
+        }
+        b.putShort((short) leds);
+        for (int i = 0; i < leds; i++) b.putInt(0);
+        int size = b.position();
+        b.putInt(0, size);
+        return header(device, OpenRgbSink.REQUEST_CONTROLLER_DATA, size).put(Arrays.copyOf(b.array(), size));
+    }
+
+    private static ByteBuffer header(int device, int id, int size) {
+        return OpenRgbSink.packet(device, id, size);
+    }
+
+    private static void string(ByteBuffer b, String s) {
+        byte[] bytes = (s + "\0").getBytes(StandardCharsets.UTF_8);
+        b.putShort((short) bytes.length).put(bytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        Socket c = client;
+        if (c != null) c.close();
+    }
+}
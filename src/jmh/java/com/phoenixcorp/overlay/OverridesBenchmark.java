@@ -0,0 +1,51 @@
+package com.phoenixcorp.overlay;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** Résolution des couleurs LightingOverrides (Object → RGB → BGR) faite à chaque rendu. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OverridesBenchmark {
+
+    private LightingOverrides numeric;
+    private LightingOverrides strings;
+    private final OcrReader.ResourceType[] types = OcrReader.ResourceType.values();
+    private int i;
+
+    @Setup
+    public void setup() {
+        numeric = LightingOverrides.loadOrDefaults();
+        strings = LightingOverrides.loadOrDefaults();
+        strings.hpColor = "#00FF00";
+        strings.resourceColor = "0xFFA500";
+        strings.backgroundColor = "1056832";
+        if (strings.resourceColors != null) {
+            strings.resourceColors.replaceAll((k, v) -> String.format("#%06X", ((Number) v).intValue()));
+        }
+    }
+
+    @Benchmark
+    public void resolveNumeric(Blackhole bh) {
+        resolve(numeric, bh);
+    }
+
+    @Benchmark
+    public void resolveStrings(Blackhole bh) {
+        resolve(strings, bh);
+    }
+
+    private void resolve(LightingOverrides o, Blackhole bh) {
+        OcrReader.ResourceType t = types[i];
+        if (++i == types.length) i = 0;
+        bh.consume(o.hpBgr());
+        bh.consume(o.backgroundBgr());
+        bh.consume(o.resourceBgrFor(t).orElseGet(o::resourceBgr));
+    }
+}
@@ -0,0 +1,54 @@
+package com.phoenixcorp.overlay;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Rendu : SnapshotToMatrix (clavier, périphériques) et ColorMatrixBuilder.applyBarRows. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    private final ColorMatrixBuilder builder = new ColorMatrixBuilder();
+    private SnapshotToMatrix toMatrix;
+    private OcrReader.Snapshot[] snapshots;
+    private int[][] matrix;
+    private int i;
+
+    @Setup
+    public void setup() {
+        toMatrix = new SnapshotToMatrix(builder, LightingOverrides.loadOrDefaults());
+        FakeOcrReader fake = new FakeOcrReader();
+        snapshots = new OcrReader.Snapshot[256];
+        for (int k = 0; k < snapshots.length; k++) snapshots[k] = fake.read();
+        matrix = builder.empty();
+    }
+
+    private OcrReader.Snapshot next() {
+        OcrReader.Snapshot s = snapshots[i];
+        i = (i + 1) & (snapshots.length - 1);
+        return s;
+    }
+
+    @Benchmark
+    public int[][] toKeyboard() {
+        return toMatrix.toKeyboard(next());
+    }
+
+    @Benchmark
+    public int[][] toDevices() {
+        return toMatrix.toDevices(next());
+    }
+
+    @Benchmark
+    public int[][] applyBarRows() {
+        OcrReader.Snapshot s = next();
+        builder.applyBarRows(matrix, 0, 0, 21, 0x00FF00, (double) s.hpCur / s.hpMax);
+        builder.applyBarRows(matrix, 1, 0, 21, 0xFF0000, (double) s.resCur / s.resMax);
+        return matrix;
+    }
+}
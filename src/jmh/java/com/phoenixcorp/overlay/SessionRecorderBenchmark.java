@@ -0,0 +1,51 @@
+package com.phoenixcorp.overlay;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/** Coût d'un enregistrement du journal de session (à comparer au tick OCR de 100 ms) ; -prof gc : 0 B/op attendu. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionRecorderBenchmark {
+
+    private Path dir;
+    private SessionRecorder recorder;
+    private OcrReader.Snapshot[] snapshots;
+    private int[][] matrix;
+    private int i;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("recorder-bench");
+        recorder = new SessionRecorder(dir, "bench");
+        FakeOcrReader fake = new FakeOcrReader();
+        snapshots = new OcrReader.Snapshot[256];
+        for (int k = 0; k < snapshots.length; k++) snapshots[k] = fake.read().stamped(k + 1, 1L, 2L);
+        matrix = new ColorMatrixBuilder().empty();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        recorder.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        OcrReader.Snapshot s = snapshots[i];
+        i = (i + 1) & (snapshots.length - 1);
+        recorder.record(s, SessionLog.SENT, SessionRecorder.hash(matrix), 1_500_000L, 40_000_000L);
+    }
+}
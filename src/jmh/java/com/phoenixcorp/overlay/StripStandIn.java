@@ -0,0 +1,77 @@
+package com.phoenixcorp.overlay;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Faux ruban UDP local (port libre) : décode DDP et E1.31 comme WLED, compte paquets et frames (push DDP /
+ * univers de départ E1.31) et garde les derniers pixels (0x00BBGGRR). Sert aux benchmarks et au replay.
+ */
+public final class StripStandIn implements AutoCloseable {
+
+    private final DatagramChannel channel;
+    private final int[] pixels;
+    private final int firstUniverse;
+    private final AtomicLong packets = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+
+    public StripStandIn(int pixelCount, int firstUniverse) throws IOException {
+        this.pixels = new int[pixelCount];
+        this.firstUniverse = firstUniverse;
+        channel = DatagramChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        Thread t = new Thread(this::receive, "strip-standin");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public int port() throws IOException {
+        return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    public long packets() { return packets.get(); }
+    public long frames()  { return frames.get(); }
+
+    public synchronized int[] pixels() {
+        return pixels.clone();
+    }
+
+    private void receive() {
+        ByteBuffer b = ByteBuffer.allocate(2048);
+        while (channel.isOpen()) {
+            try {
+                b.clear();
+                channel.receive(b);
+                b.flip();
+                packets.incrementAndGet();
+                if (b.remaining() >= StripSink.E131_HEADER && b.getShort(0) == 0x0010 && b.get(4) == 'A') {
+                    int universe = Short.toUnsignedInt(b.getShort(113));
+                    int channels = Short.toUnsignedInt(b.getShort(123)) - 1;
+                    store((universe - firstUniverse) * StripSink.E131_MAX_PIXELS, b, StripSink.E131_HEADER, channels / 3);
+                    if (universe == firstUniverse) frames.incrementAndGet();
+                } else {
+                    int offset = b.getInt(4) / 3, length = Short.toUnsignedInt(b.getShort(8));
+                    store(offset, b, StripSink.DDP_HEADER, length / 3);
+                    if ((b.get(0) & 0x01) != 0) frames.incrementAndGet();
+                }
+            } catch (IOException e) {
+                return;   // fermé
+            }
+        }
+    }
+
+    private synchronized void store(int first, ByteBuffer b, int at, int n) {
+        for (int i = 0; i < n && first + i < pixels.length; i++) {
+            int p = at + 3 * i;
+            pixels[first + i] = (b.get(p) & 0xFF) | (b.get(p + 1) & 0xFF) << 8 | (b.get(p + 2) & 0xFF) << 16;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
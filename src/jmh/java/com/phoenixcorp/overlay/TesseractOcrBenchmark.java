@@ -0,0 +1,74 @@
+package com.phoenixcorp.overlay;
+
+import net.sourceforge.tess4j.Tesseract;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tesseract.doOCR sur des crops fixes (mêmes réglages que TesseractOcrReader).
+ * Les crops sont dessinés au setup pour rester reproductibles sans capture écran.
+ * tessdata : -Dtessdata=/chemin/tessdata (défaut ~/.lightingdesigner/tessdata).
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TesseractOcrBenchmark {
+
+    @Param({"277x70", "554x140"})
+    public String crop;
+
+    private Tesseract tess;
+    private BufferedImage image;
+
+    @Setup
+    public void setup() {
+        String dir = System.getProperty("tessdata",
+                Path.of(System.getProperty("user.home"), ".lightingdesigner", "tessdata").toString());
+        if (!Files.exists(Path.of(dir, "eng.traineddata"))) {
+            throw new IllegalStateException("eng.traineddata absent de " + dir + " (-Dtessdata=...)");
+        }
+        tess = new Tesseract();
+        tess.setDatapath(dir);
+        tess.setLanguage("eng");
+        tess.setOcrEngineMode(3);
+        tess.setPageSegMode(6);
+
+        String[] wh = crop.split("x");
+        image = drawCrop(Integer.parseInt(wh[0]), Integer.parseInt(wh[1]), "8765/9999", "MANA 4210/5000");
+    }
+
+    @Benchmark
+    public String doOcr() throws Exception {
+        return tess.doOCR(image);
+    }
+
+    static BufferedImage drawCrop(int w, int h, String... lines) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(new Color(20, 20, 24));
+            g.fillRect(0, 0, w, h);
+            g.setColor(Color.WHITE);
+            int size = Math.max(10, h / (lines.length + 1));
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, size));
+            for (int i = 0; i < lines.length; i++) {
+                g.drawString(lines[i], size / 2, (i + 1) * size + size / 4);
+            }
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+}
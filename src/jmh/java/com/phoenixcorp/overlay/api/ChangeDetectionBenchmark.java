@@ -0,0 +1,46 @@
+package com.phoenixcorp.overlay.api;
+
+import com.phoenixcorp.overlay.ColorMatrixBuilder;
+import com.phoenixcorp.overlay.LightingOverrides;
+import com.phoenixcorp.overlay.SnapshotToMatrix;
+import com.phoenixcorp.overlay.OcrReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Détection de changement de LightingRuntime : deepEquals (égal / différent) et copyMatrix. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChangeDetectionBenchmark {
+
+    private int[][] a, same, lastRowDiffers;
+
+    @Setup
+    public void setup() {
+        SnapshotToMatrix toMatrix = new SnapshotToMatrix(new ColorMatrixBuilder(), LightingOverrides.loadOrDefaults());
+        OcrReader.Snapshot s = new OcrReader.Snapshot(6543, 9999, 420, 1000, OcrReader.ResourceType.MANA);
+        a = toMatrix.toKeyboard(s);
+        same = LightingRuntime.copyMatrix(a);
+        lastRowDiffers = LightingRuntime.copyMatrix(a);
+        lastRowDiffers[ColorMatrixBuilder.ROWS - 1][ColorMatrixBuilder.COLS - 1] ^= 0x010101;
+    }
+
+    @Benchmark
+    public boolean deepEqualsSame() {
+        return LightingRuntime.deepEquals(a, same);
+    }
+
+    @Benchmark
+    public boolean deepEqualsDiffers() {
+        return LightingRuntime.deepEquals(a, lastRowDiffers);
+    }
+
+    @Benchmark
+    public int[][] copyMatrix() {
+        return LightingRuntime.copyMatrix(a);
+    }
+}
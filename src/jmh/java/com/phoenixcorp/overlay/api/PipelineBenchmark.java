@@ -0,0 +1,53 @@
+package com.phoenixcorp.overlay.api;
+
+import com.phoenixcorp.overlay.ChromaSessionManager;
+import com.phoenixcorp.overlay.ChromaStandIn;
+import com.phoenixcorp.overlay.FakeOcrReader;
+import com.phoenixcorp.overlay.LightingOverrides;
+import com.phoenixcorp.overlay.OcrReader;
+import com.phoenixcorp.overlay.SessionRecorder;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipeline complet hors OCR : FakeOcrReader → LightingRuntime (delta, rendu, détection)
+ * → ChromaSessionManager → HTTP vers un faux Chroma SDK local. Une opération = un tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+    private ChromaStandIn standIn;
+    private LightingRuntime runtime;
+    private final FakeOcrReader reader = new FakeOcrReader();
+    private long seq;
+
+    @Setup
+    public void setup() throws Exception {
+        standIn = new ChromaStandIn();
+        ChromaSessionManager chroma = new ChromaSessionManager(standIn.registrationUrl());
+        chroma.connectAsync().join();
+        // Journal dans un dossier temporaire : ne pas faire tourner celui de l'utilisateur
+        runtime = new LightingRuntime(LightingOverrides.loadOrDefaults(), chroma,
+                new SessionRecorder(Files.createTempDirectory("pipeline-bench"), "bench"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        runtime.shutdown();
+        standIn.close();
+    }
+
+    @Benchmark
+    public void tick() {
+        long now = System.nanoTime();
+        OcrReader.Snapshot s = reader.read().stamped(++seq, now, now);
+        runtime.onSnapshot(s);
+    }
+}
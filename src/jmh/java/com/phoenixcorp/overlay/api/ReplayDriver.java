@@ -0,0 +1,232 @@
+package com.phoenixcorp.overlay.api;
+
+import com.phoenixcorp.overlay.ChromaSessionManager;
+import com.phoenixcorp.overlay.ChromaStandIn;
+import com.phoenixcorp.overlay.LightingOverrides;
+import com.phoenixcorp.overlay.Config;
+import com.phoenixcorp.overlay.OcrReader;
+import com.phoenixcorp.overlay.OpenRgbSink;
+import com.phoenixcorp.overlay.OpenRgbStandIn;
+import com.phoenixcorp.overlay.PipelineMetrics;
+import com.phoenixcorp.overlay.ReplayOcrReader;
+import com.phoenixcorp.overlay.SessionRecorder;
+import com.phoenixcorp.overlay.SnapshotFilter;
+import com.phoenixcorp.overlay.StripSink;
+import com.phoenixcorp.overlay.StripStandIn;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Replay hors OCR : ReplayOcrReader → LightingRuntime (filtre, delta, rendu, détection, journal) → ChromaSessionManager
+ * → faux Chroma SDK local. Mesure le plafond de tout ce qui suit l'OCR : frames/s soutenues, frames perdues,
+ * percentiles de latence. Test de régression de débit (--min-fps : code de sortie 1 en dessous).
+ *
+ *   mvn -Pjmh compile exec:java@replay -Dreplay.args="--rate=0 --seconds=10"
+ *
+ * Options : --source=<export .bin | .csv | dossier de segments> (défaut : suite générée, --frames=N)
+ *           --rate=<fps> (0 = sans limite, défaut) --seconds=10 --warmup=2 --budget-ms=500 --min-fps=0
+ *           --openrgb (sortie OpenRGB en plus, vers un faux serveur SDK local)
+ *           --strips (ruban DDP de 120 pixels en plus, barres vie + ressource, vers un faux ruban UDP local)
+ * Latence = instant prévu de la frame (la "capture") → retour de onSnapshot (ack Chroma compris) :
+ * à cadence fixe, le retard accumulé y apparaît. Frames perdues = créneaux manqués (cadence fixe) + frames
+ * trop vieilles pour le budget de latence.
+ */
+public final class ReplayDriver {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parse(args);
+        double rate = Double.parseDouble(opts.getOrDefault("rate", "0"));
+        double seconds = Double.parseDouble(opts.getOrDefault("seconds", "10"));
+        double warmup = Double.parseDouble(opts.getOrDefault("warmup", "2"));
+        long budgetMs = Long.parseLong(opts.getOrDefault("budget-ms", "500"));
+        double minFps = Double.parseDouble(opts.getOrDefault("min-fps", "0"));
+
+        ReplayOcrReader reader = opts.containsKey("source")
+                ? ReplayOcrReader.fromFile(Path.of(opts.get("source")), true)
+                : ReplayOcrReader.synthetic(Integer.parseInt(opts.getOrDefault("frames", "10000")), 600, 240, 1200, 0.02, 42L);
+
+        // Hors Spring le registre global est vide : les compteurs du pipeline ne compteraient rien
+        Metrics.addRegistry(new SimpleMeterRegistry());
+
+        Path recorderDir = Files.createTempDirectory("replay-recorder");
+        try (ChromaStandIn standIn = new ChromaStandIn();
+             OpenRgbStandIn rgbStandIn = opts.containsKey("openrgb") ? new OpenRgbStandIn() : null;
+             StripStandIn stripStandIn = opts.containsKey("strips") ? new StripStandIn(120, 1) : null) {
+            ChromaSessionManager chroma = new ChromaSessionManager(standIn.registrationUrl());
+            if (!chroma.connectAsync().join()) throw new IllegalStateException("Session Chroma (stand-in) impossible");
+            chroma.setLatencyBudgetMs(budgetMs);
+            LightingRuntime runtime = new LightingRuntime(LightingOverrides.loadOrDefaults(), chroma,
+                    new SessionRecorder(recorderDir, "replay"));
+            if (rgbStandIn != null) {
+                OpenRgbSink rgb = new OpenRgbSink("127.0.0.1", rgbStandIn.port());
+                if (!rgb.connectAsync().join()) throw new IllegalStateException("OpenRGB (stand-in) injoignable");
+                runtime.addSink(rgb);
+            }
+            if (stripStandIn != null) {
+                StripSink strips = new StripSink(List.of(strip(stripStandIn.port())));
+                if (!strips.connectAsync().join()) throw new IllegalStateException("Canal UDP indisponible");
+                runtime.addSink(strips);
+            }
+            try {
+                System.out.printf(Locale.ROOT, "[Replay] %d snapshots, cadence %s, %.0f s (+%.0f s de chauffe), budget %d ms%n",
+                        reader.size(), rate > 0 ? rate + " fps" : "sans limite", seconds, warmup, budgetMs);
+                if (warmup > 0) run(runtime, reader, standIn, rate, warmup);
+                long updates0 = rgbStandIn == null ? 0 : rgbStandIn.updates();
+                SnapshotFilter.Stats filter0 = runtime.filter().stats();
+                long stripFrames0 = stripStandIn == null ? 0 : stripStandIn.frames();
+                Result r = run(runtime, reader, standIn, rate, seconds);
+                r.print();
+                SnapshotFilter.Stats filter = runtime.filter().stats();
+                System.out.printf(Locale.ROOT, "[Replay] filtre : écritures évitées %d (plausibilité %d, médiane %d, hystérésis %d)%n",
+                        filter.saved() - filter0.saved(), filter.savedImplausible() - filter0.savedImplausible(),
+                        filter.savedMedian() - filter0.savedMedian(), filter.savedHysteresis() - filter0.savedHysteresis());
+                if (rgbStandIn != null) {
+                    Thread.sleep(100);   // derniers paquets en vol
+                    System.out.printf(Locale.ROOT, "[Replay] UPDATELEDS OpenRGB %d%n", rgbStandIn.updates() - updates0);
+                }
+                if (stripStandIn != null) {
+                    Thread.sleep(100);
+                    System.out.printf(Locale.ROOT, "[Replay] frames ruban DDP reçues %d%n", stripStandIn.frames() - stripFrames0);
+                }
+                if (minFps > 0 && r.fps() < minFps) {
+                    System.err.printf(Locale.ROOT, "[Replay] RÉGRESSION : %.0f fps < %.0f fps%n", r.fps(), minFps);
+                    System.exit(1);
+                }
+            } finally {
+                runtime.shutdown();
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(recorderDir)) {
+                for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    public record Result(long frames, double seconds, long missedSlots, long sent, long skippedDelta,
+                         long skippedUnchanged, long stale, long chromaPuts, long[] latencyNanos, long[] serviceNanos) {
+
+        public double fps() {
+            return frames / seconds;
+        }
+
+        void print() {
+            System.out.printf(Locale.ROOT, "[Replay] %d frames en %.2f s → %.0f frames/s%n", frames, seconds, fps());
+            System.out.printf(Locale.ROOT, "[Replay] envoyées %d, ignorées delta %d, inchangées %d, PUT Chroma %d%n",
+                    sent, skippedDelta, skippedUnchanged, chromaPuts);
+            System.out.printf(Locale.ROOT, "[Replay] perdues %d (créneaux manqués %d, trop vieilles %d)%n",
+                    missedSlots + stale, missedSlots, stale);
+            System.out.println("[Replay] latence  " + percentiles(latencyNanos));
+            System.out.println("[Replay] service  " + percentiles(serviceNanos));
+        }
+    }
+
+    /** Ruban DDP local : pixels 0-59 = barre de vie, 60-119 = ressource. */
+    private static Config.Strip strip(int port) {
+        Config.Strip s = new Config.Strip();
+        s.host = "127.0.0.1";
+        s.port = port;
+        s.protocol = "ddp";
+        Config.StripZone hp = new Config.StripZone(), res = new Config.StripZone();
+        hp.bar = "hp"; hp.start = 0; hp.count = 60;
+        res.bar = "resource"; res.start = 60; res.count = 60;
+        s.zones = List.of(hp, res);
+        return s;
+    }
+
+    static Result run(LightingRuntime runtime, ReplayOcrReader reader, ChromaStandIn standIn, double rate, double seconds) {
+        long period = rate > 0 ? (long) (1e9 / rate) : 0L;
+        long durationNanos = (long) (seconds * 1e9);
+        long[] latency = new long[rate > 0 ? (int) Math.min(1 << 26, rate * seconds + 16) : 1 << 20];
+        long[] service = new long[latency.length];
+        int n = 0;
+        long seq = 0, missed = 0;
+
+        double delta0 = PipelineMetrics.SKIPPED_DELTA.count();
+        double unchanged0 = PipelineMetrics.SKIPPED_UNCHANGED.count();
+        double stale0 = PipelineMetrics.DROPPED_STALE.count();
+        long puts0 = standIn.puts();
+
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        long scheduled = start;
+        while (true) {
+            long now = System.nanoTime();
+            if (now >= deadline) break;
+            if (period > 0) {
+                if (now < scheduled) {
+                    LockSupport.parkNanos(scheduled - now);
+                    now = System.nanoTime();
+                } else if (now - scheduled >= period) {
+                    // En retard d'au moins un créneau : créneaux sautés (comme les ticks fusionnés de OcrRunner)
+                    long skip = (now - scheduled) / period;
+                    missed += skip;
+                    scheduled += skip * period;
+                }
+            } else {
+                scheduled = now;
+            }
+            OcrReader.Snapshot s = reader.read();
+            if (s == null) break;
+            long t0 = System.nanoTime();
+            runtime.onSnapshot(runtime.filter().apply(s.stamped(++seq, scheduled, t0)));
+            long t1 = System.nanoTime();
+            if (n == latency.length) {
+                latency = Arrays.copyOf(latency, n * 2);
+                service = Arrays.copyOf(service, n * 2);
+            }
+            latency[n] = t1 - scheduled;
+            service[n] = t1 - t0;
+            n++;
+            scheduled += period;
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long skippedDelta = (long) (PipelineMetrics.SKIPPED_DELTA.count() - delta0);
+        long skippedUnchanged = (long) (PipelineMetrics.SKIPPED_UNCHANGED.count() - unchanged0);
+        long stale = (long) (PipelineMetrics.DROPPED_STALE.count() - stale0);
+        return new Result(n, elapsed, missed, n - skippedDelta - skippedUnchanged - stale,
+                skippedDelta, skippedUnchanged, stale, standIn.puts() - puts0,
+                Arrays.copyOf(latency, n), Arrays.copyOf(service, n));
+    }
+
+    static String percentiles(long[] nanos) {
+        if (nanos.length == 0) return "-";
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return String.format(Locale.ROOT, "p50 %s  p90 %s  p99 %s  p99.9 %s  max %s",
+                ms(at(sorted, 0.50)), ms(at(sorted, 0.90)), ms(at(sorted, 0.99)), ms(at(sorted, 0.999)),
+                ms(sorted[sorted.length - 1]));
+    }
+
+    private static long at(long[] sorted, double q) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(q * sorted.length) - 1)];
+    }
+
+    private static String ms(long nanos) {
+        return String.format(Locale.ROOT, "%.3f ms", nanos / 1e6);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> out = new HashMap<>();
+        for (String a : args) {
+            if (!a.startsWith("--")) throw new IllegalArgumentException("Option inconnue: " + a);
+            int eq = a.indexOf('=');
+            if (eq < 0) out.put(a.substring(2), "true");
+            else out.put(a.substring(2, eq), a.substring(eq + 1));
+        }
+        return out;
+    }
+
+    private ReplayDriver() {}
+}
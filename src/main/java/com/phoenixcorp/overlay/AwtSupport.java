@@ -0,0 +1,52 @@
+package com.phoenixcorp.overlay;
+
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
+
+/**
+ * AWT est-il utilisable (capture écran Robot, overlay Swing de sélection) ?
+ * Non en headless, ni dans l'exécutable natif construit sans métadonnées AWT (profil "native") :
+ * le serveur tourne alors sans OCR (overrides, aperçu, /api/render et Chroma restent disponibles).
+ */
+public final class AwtSupport {
+    private AwtSupport() {}
+
+    private static volatile String unavailableReason;
+    private static volatile boolean checked;
+
+    public static boolean available() {
+        return reason() == null;
+    }
+
+    /** null si AWT est disponible, sinon pourquoi (mis en cache : l'environnement ne change pas en cours de route). */
+    public static String reason() {
+        if (!checked) {
+            synchronized (AwtSupport.class) {
+                if (!checked) {
+                    unavailableReason = probe();
+                    checked = true;
+                    if (unavailableReason != null) System.err.println("[AWT] indisponible: " + unavailableReason);
+                }
+            }
+        }
+        return unavailableReason;
+    }
+
+    private static String probe() {
+        try {
+            if (GraphicsEnvironment.isHeadless()) {
+                return inNativeImage() ? "exécutable natif headless (capture écran et sélection : build JVM)" : "mode headless";
+            }
+            Toolkit.getDefaultToolkit();
+            return null;
+        } catch (Throwable t) {
+            // Exécutable natif sans métadonnées AWT : UnsatisfiedLinkError / NoClassDefFoundError
+            return t.getClass().getSimpleName() + (t.getMessage() != null ? ": " + t.getMessage() : "");
+        }
+    }
+
+    /** Propriété posée par GraalVM native-image dans l'exécutable (et pendant le build). */
+    public static boolean inNativeImage() {
+        return System.getProperty("org.graalvm.nativeimage.imagecode") != null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.phoenixcorp.overlay;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Stat lue sans OCR sur une barre qui se remplit de gauche à droite (incantation, vie de la cible) :
+ * pixels de la couleur de la barre (à tolerance près par canal) sur trois lignes (quart, milieu,
+ * trois quarts de la hauteur), la meilleure l'emporte (un texte sur la barre masque une partie des pixels).
+ * Stat = (pixels remplis, largeur) ; barre absente = 0.
+ */
+public final class BarStatExtractor implements StatExtractor {
+
+    private final String id;
+    private final Rectangle region;
+    private final long periodMs;
+    private final int r, g, b, tolerance;
+
+    /** rgb : couleur de la barre (0xRRGGBB). */
+    public BarStatExtractor(String id, Rectangle region, long periodMs, int rgb, int tolerance) {
+        this.id = id;
+        this.region = new Rectangle(region);
+        this.periodMs = periodMs;
+        this.r = (rgb >> 16) & 0xFF;
+        this.g = (rgb >> 8) & 0xFF;
+        this.b = rgb & 0xFF;
+        this.tolerance = Math.max(0, Math.min(255, tolerance));
+    }
+
+    @Override public String id()          { return id; }
+    @Override public Rectangle region()   { return new Rectangle(region); }
+    @Override public long periodMs()      { return periodMs; }
+
+    @Override
+    public OcrReader.Stat extract(BufferedImage crop) {
+        int w = crop.getWidth(), h = crop.getHeight();
+        int[] row = new int[w];
+        int best = 0;
+        for (int k = 1; k <= 3; k++) {
+            crop.getRGB(0, Math.min(h - 1, h * k / 4), w, 1, row, 0, w);
+            int filled = 0;
+            for (int p : row) {
+                if (Math.abs(((p >> 16) & 0xFF) - r) <= tolerance && Math.abs(((p >> 8) & 0xFF) - g) <= tolerance
+                        && Math.abs((p & 0xFF) - b) <= tolerance) {
+                    filled++;
+                }
+            }
+            best = Math.max(best, filled);
+        }
+        return new OcrReader.Stat(best, w);
+    }
+}
@@ -0,0 +1,58 @@
+package com.phoenixcorp.overlay;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Une capture d'écran (zone area) et ses instants System.nanoTime() de début / fin.
+ * Les lecteurs en découpent leurs sous-régions (crop) : un tick OCR = une seule capture, quel que soit
+ * le nombre de stats lues.
+ */
+public record CapturedFrame(BufferedImage image, Rectangle area, long startNanos, long endNanos) {
+
+    private static volatile Robot robot;   // créé à la première capture, réutilisé
+
+    /** Capture instrumentée (JFR CaptureEvent, lighting.stage{capture}). */
+    public static CapturedFrame grab(Rectangle area) throws AWTException {
+        PipelineEvents.CaptureEvent capture = new PipelineEvents.CaptureEvent();
+        capture.begin();
+        long t0 = System.nanoTime();
+        BufferedImage img = robot().createScreenCapture(area);
+        long t1 = System.nanoTime();
+        capture.end();
+        if (capture.shouldCommit()) {
+            capture.width = img.getWidth();
+            capture.height = img.getHeight();
+            capture.commit();
+        }
+        PipelineMetrics.CAPTURE.record(t1 - t0, TimeUnit.NANOSECONDS);
+        return new CapturedFrame(img, new Rectangle(area), t0, t1);
+    }
+
+    /**
+     * Pixels de region (coordonnées écran) dans une image à part, l'image entière si region est la zone capturée ;
+     * null si region sort de la capture.
+     */
+    public BufferedImage crop(Rectangle region) {
+        if (region.equals(area)) return image;
+        if (!area.contains(region)) return null;
+        BufferedImage sub = image.getSubimage(region.x - area.x, region.y - area.y, region.width, region.height);
+        // Copie compacte : Tesseract et OcrImages lisent le tampon à plat, pas une vue sur la capture
+        WritableRaster copy = sub.getColorModel().createCompatibleWritableRaster(region.width, region.height);
+        sub.copyData(copy);
+        return new BufferedImage(sub.getColorModel(), copy, sub.isAlphaPremultiplied(), null);
+    }
+
+    private static Robot robot() throws AWTException {
+        Robot r = robot;
+        if (r == null) {
+            synchronized (CapturedFrame.class) {
+                if (robot == null) robot = new Robot();
+                r = robot;
+            }
+        }
+        return r;
+    }
+}
@@ -9,24 +9,28 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.*;
 
 /**
  * Client REST Razer Chroma SDK (Broadcast).
- * - register auto
+ * - register en tâche de fond (connectAsync) ou au premier envoi, jamais dans le constructeur
  * - heartbeat périodique
  * - auto-reconnect si session perdue
  * - rejoue la dernière frame
  * - API "fond" pour colorer tous les devices disponibles
+ * - CHROMA_CUSTOM par périphérique (cf. DeviceLayout), device ignoré si sa frame n'a pas changé
+ * - budget de latence : une frame trop vieille au moment de l'envoi est abandonnée
  */
-public class ChromaSessionManager implements AutoCloseable {
-    private static final String REG_URL = "http://localhost:54235/razer/chromasdk";
+public class ChromaSessionManager implements OutputSink {
+    static final String REG_URL = "http://localhost:54235/razer/chromasdk";
     private static final Duration TIMEOUT = Duration.ofSeconds(2);
     private static final long HEARTBEAT_MS = 2000;
 
     private final ObjectMapper om = new ObjectMapper();
+    private final String registrationUrl;
     private final HttpClient http = HttpClient.newBuilder()
             .connectTimeout(TIMEOUT)
             .version(HttpClient.Version.HTTP_1_1)
@@ -40,25 +44,108 @@ public class ChromaSessionManager implements AutoCloseable {
     private String mouseUrl, mousepadUrl, headsetUrl, keypadUrl, chromalinkUrl;
 
     private volatile boolean closed = false;
+    private boolean hadSession = false; // une session a déjà existé → prochain register = reconnexion
+    private volatile boolean firstLed = false;
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
         Thread t = new Thread(r, "chroma-heartbeat"); t.setDaemon(true); return t;
     });
     private ScheduledFuture<?> heartbeatTask;
 
     private volatile int[][] lastFrame; // rejouée après reconnect
+    private volatile long latencyBudgetNanos = 0L; // 0 = pas de limite
+    // Verdict du budget pour la dernière lecture OCR jugée (seq) : ses frames interpolées en héritent
+    private long judgedSeq = 0L;
+    private boolean judgedStale;
+    // Dernière frame envoyée par périphérique (index = Device.ordinal()), rejouée après reconnect
+    private final int[][] lastDeviceFrames = new int[DeviceLayout.Device.values().length][];
 
     public ChromaSessionManager() {
+        this(REG_URL);
+    }
+
+    /** URL d'enregistrement explicite (ex. stand-in local pour les benchmarks). */
+    public ChromaSessionManager(String registrationUrl) {
+        this.registrationUrl = registrationUrl;
+    }
+
+    // ================== API publique ==================
+
+    /**
+     * Enregistre la session sur le thread du heartbeat (le démarrage n'attend pas le SDK).
+     * Le future vaut false si le SDK est injoignable ; les envois suivants retenteront.
+     */
+    public CompletableFuture<Boolean> connectAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            synchronized (this) {
+                if (closed) return false;
+                try {
+                    ensureSession();
+                    System.out.println("[Chroma] Session ready: " + sessionUri);
+                    return true;
+                } catch (Exception e) {
+                    System.err.println("[Chroma] init failed: " + e.getMessage());
+                    return false;
+                }
+            }
+        }, scheduler);
+    }
+
+    @Override
+    public String name() {
+        return "chroma";
+    }
+
+    @Override
+    public boolean keyboard(int[][] matrixBgr, OcrReader.Snapshot source, long renderedNanos) {
+        if (source == null) {
+            keyboardCustom(matrixBgr);
+            return !closed && matrixBgr != null;
+        }
+        return keyboardCustom(matrixBgr, source, renderedNanos);
+    }
+
+    @Override
+    public boolean devices(int[][] frames, OcrReader.Snapshot source) {
+        return devicesCustom(frames, source);
+    }
+
+    @Override
+    public void background(int bgr) {
+        setStaticAllDevices(bgr);
+    }
+
+    @Override
+    public void setLatencyBudgetMs(long ms) {
+        this.latencyBudgetNanos = Math.max(0L, ms) * 1_000_000L;
+    }
+
+    /**
+     * Comme keyboardCustom, pour une frame tracée : abandonnée si son âge dépasse le budget
+     * une fois le verrou obtenu (une plus récente suivra), sinon latences capture→ack enregistrées.
+     * Retourne false si la frame n'a pas été envoyée.
+     */
+    public synchronized boolean keyboardCustom(int[][] matrixBgr, OcrReader.Snapshot source, long renderedNanos) {
+        if (closed || matrixBgr == null) return false;
+        if (isStale(source, true)) return false;
+        lastFrame = matrixBgr;
         try {
             ensureSession();
-            startHeartbeat();
-            System.out.println("[Chroma] Session ready: " + sessionUri);
+            putKeyboard(matrixBgr);
         } catch (Exception e) {
-            System.err.println("[Chroma] init failed: " + e.getMessage());
+            System.err.println("[Chroma] keyboardCustom failed: " + e.getMessage());
+            tryReconnectAndRetry(matrixBgr);
+            return true;
+        }
+        if (source != null && source.captureNanos != 0L) {
+            long ack = System.nanoTime();
+            PipelineMetrics.LATENCY_CAPTURE_OCR.record(source.ocrNanos - source.captureNanos, TimeUnit.NANOSECONDS);
+            PipelineMetrics.LATENCY_OCR_RENDER.record(renderedNanos - source.ocrNanos, TimeUnit.NANOSECONDS);
+            PipelineMetrics.LATENCY_RENDER_ACK.record(ack - renderedNanos, TimeUnit.NANOSECONDS);
+            PipelineMetrics.LATENCY_END_TO_END.record(ack - source.captureNanos, TimeUnit.NANOSECONDS);
         }
+        return true;
     }
 
-    // ================== API publique ==================
-
     /** Envoie une frame 6x22 (BGR) au clavier. */
     public synchronized void keyboardCustom(int[][] matrixBgr) {
         if (closed || matrixBgr == null) return;
@@ -72,9 +159,41 @@ public class ChromaSessionManager implements AutoCloseable {
         }
     }
 
+    /**
+     * Envoie CHROMA_CUSTOM aux périphériques hors clavier (frames à plat, index = Device.ordinal()).
+     * Un device dont la frame est identique à la dernière envoyée n'est pas réécrit.
+     */
+    public synchronized void devicesCustom(int[][] frames) {
+        devicesCustom(frames, null);
+    }
+
+    /**
+     * Variante tracée : rien n'est envoyé si la frame source dépasse le budget de latence.
+     * false si une frame n'a pas été envoyée (trop vieille, erreur) : elle sera retentée.
+     */
+    public synchronized boolean devicesCustom(int[][] frames, OcrReader.Snapshot source) {
+        if (closed || frames == null) return true;
+        if (isStale(source, false)) return false;
+        try {
+            ensureSession();
+            for (DeviceLayout.Device d : DeviceLayout.Device.values()) {
+                if (d == DeviceLayout.Device.KEYBOARD || d.ordinal() >= frames.length) continue;
+                int[] f = frames[d.ordinal()];
+                if (f == null || Arrays.equals(f, lastDeviceFrames[d.ordinal()])) continue;
+                putCustom(d, f);
+                lastDeviceFrames[d.ordinal()] = f.clone();
+            }
+        } catch (Exception e) {
+            System.err.println("[Chroma] devicesCustom failed: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
     /** Met une couleur de fond statique sur tous les périphériques enregistrés. */
     public synchronized void setStaticAllDevices(int bgr) {
         if (closed) return;
+        Arrays.fill(lastDeviceFrames, null); // STATIC écrase les effets custom
         try {
             ensureSession();
             // Clavier: on ne touche pas la matrice ici (le fond clavier est géré par SnapshotToMatrix)
@@ -128,6 +247,54 @@ public class ChromaSessionManager implements AutoCloseable {
 
     // ================== interne ==================
 
+    /**
+     * Frame plus vieille que le budget : abandonnée. Jugé une fois par lecture OCR (seq) : les frames interpolées
+     * gardent la capture de leur source, elles prennent son verdict au lieu de vieillir à chaque tick de sortie.
+     * count : verdict enregistré et compté (ok / violation), sinon seulement lu.
+     */
+    private boolean isStale(OcrReader.Snapshot source, boolean count) {
+        if (source == null || source.captureNanos == 0L || latencyBudgetNanos <= 0L) return false;
+        if (source.seq != 0L && source.seq == judgedSeq) return judgedStale;
+        boolean stale = source.ageNanos(System.nanoTime()) > latencyBudgetNanos;
+        if (!count) return stale;
+        judgedSeq = source.seq;
+        judgedStale = stale;
+        if (stale) {
+            PipelineMetrics.BUDGET_VIOLATION.increment();
+            PipelineMetrics.DROPPED_STALE.increment();
+        } else {
+            PipelineMetrics.BUDGET_OK.increment();
+        }
+        return stale;
+    }
+
+    /** http.send chronométré : chroma.put{endpoint, status} (status = "error" si exception). */
+    private HttpResponse<String> send(String endpoint, HttpRequest req) throws IOException, InterruptedException {
+        PipelineEvents.FrameSendEvent event = new PipelineEvents.FrameSendEvent();
+        event.begin();
+        long t0 = System.nanoTime();
+        int code = -1;
+        try {
+            HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
+            code = res.statusCode();
+            if (!firstLed && code / 100 == 2 && !"register".equals(endpoint) && !"heartbeat".equals(endpoint)) {
+                firstLed = true;
+                StartupTimeline.mark("first_led");
+            }
+            return res;
+        } finally {
+            PipelineMetrics.chromaPut(endpoint, code < 0 ? "error" : String.valueOf(code))
+                    .record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+            event.end();
+            if (event.shouldCommit()) {
+                event.endpoint = endpoint;
+                event.status = code;
+                event.bytes = req.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+                event.commit();
+            }
+        }
+    }
+
     private void ensureSession() throws IOException, InterruptedException {
         if (sessionUri != null && keyboardUrl != null && heartbeatUrl != null) return;
         register();
@@ -135,6 +302,24 @@ public class ChromaSessionManager implements AutoCloseable {
     }
 
     private void register() throws IOException, InterruptedException {
+        PipelineEvents.SessionReconnectEvent event = new PipelineEvents.SessionReconnectEvent();
+        event.begin();
+        boolean ok = false;
+        try {
+            doRegister();
+            ok = true;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.reconnect = hadSession;
+                event.success = ok;
+                event.commit();
+            }
+            if (ok) hadSession = true;
+        }
+    }
+
+    private void doRegister() throws IOException, InterruptedException {
         Map<String, Object> body = new HashMap<>();
         body.put("title", "LightingDesigner");
         body.put("description", "OCR-driven effects");
@@ -146,13 +331,13 @@ public class ChromaSessionManager implements AutoCloseable {
 
         HttpRequest req = HttpRequest.newBuilder()
                 .timeout(TIMEOUT)
-                .uri(URI.create(REG_URL))
+                .uri(URI.create(registrationUrl))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(om.writeValueAsString(body)))
                 .build();
 
         try {
-            HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> res = send("register", req);
             if (res.statusCode() / 100 != 2) {
                 throw new IOException("Register failed: HTTP " + res.statusCode() + " body=" + res.body());
             }
@@ -182,14 +367,17 @@ public class ChromaSessionManager implements AutoCloseable {
                         .uri(URI.create(heartbeatUrl))
                         .PUT(HttpRequest.BodyPublishers.noBody()) // heartbeat = PUT sans body
                         .build();
-                HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> res = send("heartbeat", req);
+                if (res.statusCode() / 100 != 2) PipelineMetrics.CHROMA_HEARTBEAT_FAILURES.increment();
                 if (res.statusCode() == 404 || res.statusCode() == 410) {
                     System.err.println("[Chroma] Heartbeat lost session, re-registering...");
                     invalidateSession();
                     ensureSession();
                     resendLastFrame();
                 }
-            } catch (Exception ignore) { /* on retente au tick suivant */ }
+            } catch (Exception e) {
+                PipelineMetrics.CHROMA_HEARTBEAT_FAILURES.increment(); // on retente au tick suivant
+            }
         }, HEARTBEAT_MS, HEARTBEAT_MS, TimeUnit.MILLISECONDS);
     }
 
@@ -198,6 +386,7 @@ public class ChromaSessionManager implements AutoCloseable {
     }
 
     private synchronized void invalidateSession() {
+        if (sessionUri != null) PipelineMetrics.CHROMA_RECONNECTS.increment();
         sessionUri = null;
         keyboardUrl = heartbeatUrl = null;
         mouseUrl = mousepadUrl = headsetUrl = keypadUrl = chromalinkUrl = null;
@@ -208,6 +397,7 @@ public class ChromaSessionManager implements AutoCloseable {
             invalidateSession();
             ensureSession();
             if (matrix != null) putKeyboard(matrix);
+            resendDeviceFrames();
         } catch (Exception e2) {
             System.err.println("[Chroma] retry failed: " + e2.getMessage());
         }
@@ -217,21 +407,50 @@ public class ChromaSessionManager implements AutoCloseable {
         int[][] lf = lastFrame;
         if (lf == null) return;
         try { putKeyboard(lf); } catch (Exception ignore) {}
+        resendDeviceFrames();
     }
 
-    private void putKeyboard(int[][] matrixBgr) throws IOException, InterruptedException {
+    private void resendDeviceFrames() {
+        for (DeviceLayout.Device d : DeviceLayout.Device.values()) {
+            int[] f = lastDeviceFrames[d.ordinal()];
+            if (f == null) continue;
+            try { putCustom(d, f); } catch (Exception ignore) {}
+        }
+    }
+
+    /** Corps JSON CHROMA_CUSTOM du clavier. */
+    String keyboardBody(int[][] matrixBgr) throws IOException {
         Map<String,Object> body = new HashMap<>();
         body.put("effect", "CHROMA_CUSTOM");
         body.put("param", matrixBgr);
+        return om.writeValueAsString(body);
+    }
+
+    /** Corps JSON CHROMA_CUSTOM(2) d'un périphérique : param 2D pour les matrices, 1D pour les strips. */
+    String customBody(DeviceLayout.Device d, int[] frame) throws IOException {
+        Object param;
+        if (d.matrix) {
+            int[][] m = new int[d.rows][];
+            for (int r = 0; r < d.rows; r++) m[r] = Arrays.copyOfRange(frame, r * d.cols, (r + 1) * d.cols);
+            param = m;
+        } else {
+            param = frame;
+        }
+        Map<String,Object> body = new HashMap<>();
+        body.put("effect", d.effect);
+        body.put("param", param);
+        return om.writeValueAsString(body);
+    }
 
+    private void putKeyboard(int[][] matrixBgr) throws IOException, InterruptedException {
         HttpRequest req = HttpRequest.newBuilder()
                 .timeout(TIMEOUT)
                 .uri(URI.create(keyboardUrl))
                 .header("Content-Type", "application/json")
-                .PUT(HttpRequest.BodyPublishers.ofString(om.writeValueAsString(body)))
+                .PUT(HttpRequest.BodyPublishers.ofString(keyboardBody(matrixBgr)))
                 .build();
 
-        HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> res = send("keyboard", req);
         if (res.statusCode() == 404 || res.statusCode() == 410) {
             throw new IOException("Session lost (HTTP " + res.statusCode() + ")");
         }
@@ -240,6 +459,27 @@ public class ChromaSessionManager implements AutoCloseable {
         }
     }
 
+    /** Envoie une frame à plat en CHROMA_CUSTOM(2). */
+    private void putCustom(DeviceLayout.Device d, int[] frame) throws IOException, InterruptedException {
+        if (sessionUri == null) return;
+        String url = sessionUri + "/" + d.endpoint;
+        HttpRequest req = HttpRequest.newBuilder()
+                .timeout(TIMEOUT)
+                .uri(URI.create(url))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(customBody(d, frame)))
+                .build();
+
+        HttpResponse<String> res = send(d.endpoint, req);
+        if (res.statusCode() == 404 || res.statusCode() == 410) {
+            throw new IOException("Session lost (HTTP " + res.statusCode() + ")");
+        }
+        if (res.statusCode() / 100 != 2) {
+            // device absent / effet non supporté : log soft, on continue avec les autres
+            System.err.println("[Chroma] PUT " + url + " failed: HTTP " + res.statusCode());
+        }
+    }
+
     /** Envoie CHROMA_STATIC sur un endpoint device (mouse, mousepad, etc.). */
     private void putStatic(String deviceUrl, int bgr) throws IOException, InterruptedException {
         if (deviceUrl == null) return; // device pas dispo dans l'env
@@ -254,7 +494,7 @@ public class ChromaSessionManager implements AutoCloseable {
                 .PUT(HttpRequest.BodyPublishers.ofString(om.writeValueAsString(body)))
                 .build();
 
-        HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> res = send(deviceUrl.substring(deviceUrl.lastIndexOf('/') + 1), req);
         if (res.statusCode() == 404 || res.statusCode() == 410) {
             // session peut être tombée → relance silencieuse
             invalidateSession();
@@ -1,8 +1,8 @@
 package com.phoenixcorp.overlay;
 
 public class ColorMatrixBuilder {
-    public static final int ROWS = 6;
-    public static final int COLS = 22;
+    public static final int ROWS = DeviceLayout.Device.KEYBOARD.rows;
+    public static final int COLS = DeviceLayout.Device.KEYBOARD.cols;
 
     public int[][] empty() {
         return new int[ROWS][COLS];
@@ -29,10 +29,6 @@ public class ColorMatrixBuilder {
         if (lastCol >= COLS) lastCol = COLS - 1;
         if (lastCol < firstCol) return;
 
-        // Clamp pct
-        if (pct < 0) pct = 0;
-        if (pct > 1) pct = 1;
-
         final int width = lastCol - firstCol + 1;
 
         // Efface toute la zone d'abord
@@ -41,10 +37,7 @@ public class ColorMatrixBuilder {
         }
 
         // Calcule le nombre de colonnes à allumer
-        int fill = (int) Math.floor(pct * width);
-        // Option "garde 1 LED si pct>0"
-        if (pct > 0 && fill == 0) fill = 1;
-        if (fill > width) fill = width;
+        final int fill = fillCount(pct, width);
 
         // Remplit
         for (int i = 0; i < fill; i++) {
@@ -52,4 +45,35 @@ public class ColorMatrixBuilder {
             m[row][c] = bgr;
         }
     }
+
+    /** Nombre de LEDs allumées sur une barre de 'width' LEDs : floor(pct * width), au moins 1 si pct > 0. */
+    public static int fillCount(double pct, int width) {
+        if (width <= 0) return 0;
+        if (pct < 0) pct = 0;
+        if (pct > 1) pct = 1;
+        int fill = (int) Math.floor(pct * width);
+        // Option "garde 1 LED si pct>0"
+        if (pct > 0 && fill == 0) fill = 1;
+        return Math.min(fill, width);
+    }
+
+    /** Largeur effective de la barre [firstCol..lastCol] après bornage au clavier (0 si vide). */
+    public static int barWidth(int firstCol, int lastCol) {
+        return Math.max(0, Math.min(lastCol, COLS - 1) - Math.max(firstCol, 0) + 1);
+    }
+
+    /**
+     * Même règle que applyBarRows, sur une frame à plat et un index map précalculé
+     * (cf. DeviceLayout) : efface la zone, puis allume floor(pct * n) LEDs (au moins 1 si pct > 0).
+     */
+    public void applyBar(int[] frame, int[] leds, int bgr, double pct) {
+        if (frame == null || leds == null || leds.length == 0) return;
+
+        final int width = leds.length;
+        final int fill = fillCount(pct, width);
+
+        for (int i = 0; i < width; i++) {
+            frame[leds[i]] = i < fill ? bgr : 0x000000;
+        }
+    }
 }
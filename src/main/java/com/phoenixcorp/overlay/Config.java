@@ -3,6 +3,8 @@ package com.phoenixcorp.overlay;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.awt.*;
+import java.util.List;
+import java.util.Objects;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Config {
@@ -10,6 +12,127 @@ public class Config {
     public String tessDataPath;
     public String tessLang;
 
+    // Cadences (ms) : OCR et rafraîchissement sortie (null = défaut)
+    public Integer ocrPeriodMs;
+    public Integer outputPeriodMs;
+
+    // Interpolation de sortie : OFF | LINEAR | EXTRAPOLATE
+    public String interpolationMode;
+    public Integer interpolationWindowMs;
+    public Double interpolationSnapPct;   // écart (0..1) au-delà duquel on saute sans lisser
+
+    // Cascade OCR (TesseractOcrReader) : passe rapide sur une ligne réduite, acceptée si chaque mot a au moins
+    // ocrCascadeMinConfidence (0..100) et que la lecture est complète ; sinon passe complète puis prétraitement alternatif
+    public Boolean ocrCascade;
+    public Integer ocrCascadeMinConfidence;
+
+    // Filtre OCR → rendu (SnapshotFilter) : plausibilité, médiane, hystérésis de LED (null = défaut)
+    public Boolean filterEnabled;
+    public Integer filterWindow;          // lectures dans la médiane (1 = sans)
+    public Integer filterConfirmFrames;   // lectures consécutives pour accepter un saut / un nouveau max
+    public Double filterMaxJumpPct;       // écart (0..1) au-delà duquel une lecture est suspecte
+    public Double filterHysteresisLeds;   // marge (en LED) à franchir pour changer le nombre de LEDs
+
+    // Âge max (capture → envoi) d'une frame ; au-delà elle est abandonnée (0 = pas de limite)
+    public Integer latencyBudgetMs;
+
+    // Threads OCR partagés par toutes les sessions (null = moitié des cœurs, 1 à 2)
+    public Integer ocrWorkers;
+
+    // Périphériques de la session principale (noms DeviceLayout, null = tous)
+    public List<String> devices;
+
+    // Sessions nommées en plus de la session principale (zone OCR et périphériques propres)
+    public List<Session> sessions;
+
+    // Sorties LEDs : "chroma" (Razer Synapse), "openrgb" (serveur SDK OpenRGB), "strips" (rubans UDP) ; null = chroma seul
+    public List<String> outputs;
+    public String openRgbHost;
+    public Integer openRgbPort;
+
+    // Stats en plus de vie / ressource (cible, points de combo, incantation...) : zone et cadence propres,
+    // lues dans la même capture que la zone OCR (StatExtractor, FrameReader)
+    public List<Extractor> extractors;
+
+    // Rubans WLED & co (sortie "strips") : cibles DDP ou E1.31 et zones de barres → pixels
+    public List<Strip> strips;
+
+    /** Ruban UDP : protocole ddp (port 4048) ou e131 (sACN, port 5568, univers à partir de universe). */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Strip {
+        public String host;
+        public Integer port;
+        public String protocol;
+        public Integer universe;
+        public List<StripZone> zones;
+
+        @JsonIgnore public boolean e131()               { return "e131".equalsIgnoreCase(protocol) || "sacn".equalsIgnoreCase(protocol); }
+        @JsonIgnore public int portOrDefault()          { return port != null ? port : e131() ? 5568 : 4048; }
+        @JsonIgnore public int universeOrDefault()      { return universe == null ? 1 : Math.max(1, universe); }
+    }
+
+    /** Pixels [start, start+count) du ruban recopiant une barre ("hp" ou "resource") ; reverse = de la fin vers le début. */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class StripZone {
+        public String bar;
+        public Integer start, count;
+        public Boolean reverse;
+    }
+
+    /**
+     * Stat id lue dans sa zone écran (x, y, w, h) toutes les periodMs (null = à chaque tick OCR) :
+     * type "text" = OCR "cur/max", ou nombre seul sur max (points de combo) ;
+     * type "bar" = remplissage d'une barre de couleur color (#RRGGBB, à tolerance près par canal), sans OCR.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Extractor {
+        public String id;
+        public String type;
+        public Integer x, y, w, h;
+        public Integer periodMs;
+        public Integer max;
+        public String color;
+        public Integer tolerance;
+
+        @JsonIgnore public boolean bar()                { return "bar".equalsIgnoreCase(type); }
+        @JsonIgnore public int maxOrDefault()           { return max == null ? 0 : max; }
+        @JsonIgnore public int toleranceOrDefault()     { return tolerance == null ? 40 : tolerance; }
+        @JsonIgnore
+        public Rectangle region() {
+            if (x==null || y==null || w==null || h==null || w <= 0 || h <= 0) return null;
+            return new Rectangle(x, y, w, h);
+        }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof Extractor e && Objects.equals(id, e.id) && Objects.equals(type, e.type)
+                    && Objects.equals(region(), e.region()) && Objects.equals(periodMs, e.periodMs)
+                    && Objects.equals(max, e.max) && Objects.equals(color, e.color) && Objects.equals(tolerance, e.tolerance);
+        }
+        @Override public int hashCode() {
+            return Objects.hash(id, type, region(), periodMs, max, color, tolerance);
+        }
+    }
+
+    /** Session nommée : zone OCR, extracteurs et périphériques ciblés (noms DeviceLayout, null = tous). */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Session {
+        public String id;
+        public Integer ocrX, ocrY, ocrW, ocrH;
+        public List<Extractor> extractors;
+        public List<String> devices;
+
+        @JsonIgnore
+        public Rectangle getOcrCaptureArea() {
+            if (ocrX==null || ocrY==null || ocrW==null || ocrH==null) return null;
+            return new Rectangle(ocrX, ocrY, ocrW, ocrH);
+        }
+        @JsonIgnore
+        public void setOcrCaptureArea(Rectangle r) {
+            if (r == null) { ocrX=ocrY=ocrW=ocrH=null; return; }
+            ocrX=r.x; ocrY=r.y; ocrW=r.width; ocrH=r.height;
+        }
+    }
+
     @JsonIgnore
     public Rectangle getOcrCaptureArea() {
         if (ocrX==null || ocrY==null || ocrW==null || ocrH==null) return null;
@@ -23,4 +146,75 @@ public class Config {
 
     public String getTessDataPath(){ return tessDataPath; }
     public String getTessLang(){ return tessLang; }
+
+    @JsonIgnore public long ocrPeriodMsOrDefault()          { return ocrPeriodMs == null ? 100 : ocrPeriodMs; }
+    @JsonIgnore public long outputPeriodMsOrDefault()       { return outputPeriodMs == null ? 33 : outputPeriodMs; }
+    @JsonIgnore public long interpolationWindowMsOrDefault(){ return interpolationWindowMs == null ? ocrPeriodMsOrDefault() : interpolationWindowMs; }
+    @JsonIgnore public double interpolationSnapPctOrDefault(){ return interpolationSnapPct == null ? 0.25 : interpolationSnapPct; }
+    @JsonIgnore public boolean ocrCascadeOrDefault()        { return ocrCascade == null || ocrCascade; }
+    @JsonIgnore public int ocrCascadeMinConfidenceOrDefault(){ return ocrCascadeMinConfidence == null ? 80 : ocrCascadeMinConfidence; }
+    @JsonIgnore public boolean filterEnabledOrDefault()     { return filterEnabled == null || filterEnabled; }
+    @JsonIgnore public int filterWindowOrDefault()          { return filterWindow == null ? 3 : filterWindow; }
+    @JsonIgnore public int filterConfirmFramesOrDefault()   { return filterConfirmFrames == null ? 2 : filterConfirmFrames; }
+    @JsonIgnore public double filterMaxJumpPctOrDefault()   { return filterMaxJumpPct == null ? 0.3 : filterMaxJumpPct; }
+    @JsonIgnore public double filterHysteresisLedsOrDefault(){ return filterHysteresisLeds == null ? 0.25 : filterHysteresisLeds; }
+    @JsonIgnore public long latencyBudgetMsOrDefault()     { return latencyBudgetMs == null ? 500 : latencyBudgetMs; }
+    @JsonIgnore public int ocrWorkersOrDefault() {
+        return ocrWorkers != null ? Math.max(1, ocrWorkers)
+                : Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
+    }
+    @JsonIgnore public List<String> outputsOrDefault()     { return outputs == null ? List.of("chroma") : outputs; }
+    @JsonIgnore public String openRgbHostOrDefault()       { return openRgbHost == null || openRgbHost.isBlank() ? "127.0.0.1" : openRgbHost; }
+    @JsonIgnore public int openRgbPortOrDefault()          { return openRgbPort == null ? 6742 : openRgbPort; }
+    @JsonIgnore public boolean output(String name)         { return outputsOrDefault().stream().anyMatch(name::equalsIgnoreCase); }
+    @JsonIgnore public SnapshotInterpolator.Mode interpolationModeOrDefault() {
+        return SnapshotInterpolator.Mode.parse(interpolationMode);
+    }
+
+    /** Session nommée id ; null si absente (la session principale n'en a pas). */
+    @JsonIgnore
+    public Session session(String id) {
+        if (sessions == null || id == null) return null;
+        for (Session s : sessions) {
+            if (id.equals(s.id)) return s;
+        }
+        return null;
+    }
+
+    /** Zone OCR de la session (null = session principale, champs ocrX..ocrH). */
+    @JsonIgnore
+    public Rectangle captureArea(String sessionId) {
+        if (sessionId == null) return getOcrCaptureArea();
+        Session s = session(sessionId);
+        return s == null ? null : s.getOcrCaptureArea();
+    }
+
+    /** Extracteurs de la session (null = session principale) ; liste vide si aucun. */
+    @JsonIgnore
+    public List<Extractor> extractors(String sessionId) {
+        List<Extractor> list = sessionId == null ? extractors
+                : session(sessionId) == null ? null : session(sessionId).extractors;
+        return list == null ? List.of() : list;
+    }
+
+    /** Vrai si o donne le même pipeline OCR (zone, extracteurs, tessdata, cascade, cadences, interpolation) : pas besoin de le reconstruire. */
+    public boolean sameOcrSettings(Config o) {
+        return sameOcrSettings(o, null);
+    }
+
+    /** Idem pour une session nommée (null = principale) : seules sa zone et ses extracteurs comptent. */
+    public boolean sameOcrSettings(Config o, String sessionId) {
+        return o != null
+                && Objects.equals(captureArea(sessionId), o.captureArea(sessionId))
+                && extractors(sessionId).equals(o.extractors(sessionId))
+                && Objects.equals(tessDataPath, o.tessDataPath)
+                && Objects.equals(tessLang, o.tessLang)
+                && ocrCascadeOrDefault() == o.ocrCascadeOrDefault()
+                && ocrCascadeMinConfidenceOrDefault() == o.ocrCascadeMinConfidenceOrDefault()
+                && ocrPeriodMsOrDefault() == o.ocrPeriodMsOrDefault()
+                && outputPeriodMsOrDefault() == o.outputPeriodMsOrDefault()
+                && interpolationModeOrDefault() == o.interpolationModeOrDefault()
+                && interpolationWindowMsOrDefault() == o.interpolationWindowMsOrDefault()
+                && interpolationSnapPctOrDefault() == o.interpolationSnapPctOrDefault();
+    }
 }
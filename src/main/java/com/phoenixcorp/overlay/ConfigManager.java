@@ -3,6 +3,7 @@ package com.phoenixcorp.overlay;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Optional;
 
 public class ConfigManager {
     private static final ConfigManager INSTANCE = new ConfigManager();
@@ -10,7 +11,10 @@ public class ConfigManager {
 
     private final ObjectMapper om = new ObjectMapper();
     private final Path configPath = Path.of(System.getProperty("user.dir"), "config.json");
-    private Config cached;
+    private volatile Config cached;
+
+    /** Résultat d'un rechargement à chaud : config précédente et nouvelle (déjà en place). */
+    public record Change(Config previous, Config current) { }
 
     private ConfigManager(){}
 
@@ -30,10 +34,36 @@ public class ConfigManager {
         return cached;
     }
 
+    public Path configPath() {
+        return configPath;
+    }
+
+    /**
+     * Relit config.json (hot reload, hors chemin critique) et remplace la config courante d'un coup.
+     * Vide si le fichier est absent, illisible ou identique à la config courante (nos propres écritures).
+     */
+    public Optional<Change> reload() {
+        try {
+            if (!Files.exists(configPath)) return Optional.empty();
+            Config fresh = om.readValue(configPath.toFile(), Config.class);
+            synchronized (this) {
+                Config previous = getConfig();
+                if (om.valueToTree(previous).equals(om.valueToTree(fresh))) return Optional.empty();
+                cached = fresh;
+                return Optional.of(new Change(previous, fresh));
+            }
+        } catch (Exception e) {
+            System.err.println("[Config] reload error: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /** Met à jour le cache tout de suite ; l'écriture disque est différée (WriteBehindStore). */
     public void save(Config cfg) {
         try {
-            om.writerWithDefaultPrettyPrinter().writeValue(configPath.toFile(), cfg);
+            byte[] json = om.writerWithDefaultPrettyPrinter().writeValueAsBytes(cfg);
             cached = cfg;
+            WriteBehindStore.getInstance().write(configPath, json);
         } catch (Exception e) {
             System.err.println("[Config] save error: " + e.getMessage());
         }
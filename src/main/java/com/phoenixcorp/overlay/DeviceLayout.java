@@ -0,0 +1,103 @@
+package com.phoenixcorp.overlay;
+
+/**
+ * Modèle de disposition des périphériques Chroma.
+ * - dimensions + effet CUSTOM de chaque device
+ * - zones (barres HP / ressource) précalculées en index de LED (row * cols + col)
+ * L'ordre d'un index map = ordre de remplissage de la barre (LED 0 = début de barre).
+ */
+public final class DeviceLayout {
+
+    public enum Device {
+        KEYBOARD  ("keyboard",   "CHROMA_CUSTOM",  6, 22, true),
+        MOUSE     ("mouse",      "CHROMA_CUSTOM2", 9, 7,  true),
+        MOUSEPAD  ("mousepad",   "CHROMA_CUSTOM",  1, 15, false),
+        KEYPAD    ("keypad",     "CHROMA_CUSTOM",  4, 5,  true),
+        HEADSET   ("headset",    "CHROMA_CUSTOM",  1, 5,  false),
+        CHROMALINK("chromalink", "CHROMA_CUSTOM",  1, 5,  false);
+
+        public final String endpoint;
+        public final String effect;
+        public final int rows, cols;
+        public final boolean matrix;   // param 2D (rows x cols) ou 1D (cols)
+
+        Device(String endpoint, String effect, int rows, int cols, boolean matrix) {
+            this.endpoint = endpoint; this.effect = effect;
+            this.rows = rows; this.cols = cols; this.matrix = matrix;
+        }
+
+        public int size() { return rows * cols; }
+
+        /** Par endpoint ("mousepad") ou nom d'enum, sans casse ; null si inconnu. */
+        public static Device fromName(String name) {
+            if (name == null) return null;
+            for (Device d : values()) {
+                if (d.endpoint.equalsIgnoreCase(name.trim()) || d.name().equalsIgnoreCase(name.trim())) return d;
+            }
+            return null;
+        }
+    }
+
+    public enum Bar { HP, RESOURCE }
+
+    private static final int[] NONE = new int[0];
+
+    // [device][bar] -> index map
+    private final int[][][] zones = new int[Device.values().length][Bar.values().length][];
+
+    private DeviceLayout() {
+        for (int[][] z : zones) { z[0] = NONE; z[1] = NONE; }
+    }
+
+    /** Index map de la barre sur le device (vide si le device n'affiche pas cette barre). */
+    public int[] zone(Device d, Bar b) {
+        return zones[d.ordinal()][b.ordinal()];
+    }
+
+    /**
+     * Clavier : zones issues des overrides (row / firstCol..lastCol).
+     * Autres devices : disposition par défaut.
+     */
+    public static DeviceLayout fromOverrides(LightingOverrides o) {
+        DeviceLayout l = new DeviceLayout();
+        l.set(Device.KEYBOARD, Bar.HP,       rowSpan(Device.KEYBOARD, o.hpRow(), o.hpFirstCol(), o.hpLastCol()));
+        l.set(Device.KEYBOARD, Bar.RESOURCE, rowSpan(Device.KEYBOARD, o.resourceRow(), o.resourceFirstCol(), o.resourceLastCol()));
+
+        // Souris : bandeaux latéraux, de bas en haut (gauche = HP, droite = ressource)
+        l.set(Device.MOUSE, Bar.HP,       colSpanUp(Device.MOUSE, 0, 7, 1));
+        l.set(Device.MOUSE, Bar.RESOURCE, colSpanUp(Device.MOUSE, 6, 7, 1));
+
+        // Tapis : 15 LEDs en anneau, LED 7 laissée au fond comme séparateur
+        l.set(Device.MOUSEPAD, Bar.HP,       rowSpan(Device.MOUSEPAD, 0, 0, 6));
+        l.set(Device.MOUSEPAD, Bar.RESOURCE, rowSpan(Device.MOUSEPAD, 0, 8, 14));
+
+        // Keypad : HP sur la ligne 0, ressource sur la ligne 1
+        l.set(Device.KEYPAD, Bar.HP,       rowSpan(Device.KEYPAD, 0, 0, 4));
+        l.set(Device.KEYPAD, Bar.RESOURCE, rowSpan(Device.KEYPAD, 1, 0, 4));
+
+        // Casque = HP, Chromalink = ressource
+        l.set(Device.HEADSET,    Bar.HP,       rowSpan(Device.HEADSET, 0, 0, 4));
+        l.set(Device.CHROMALINK, Bar.RESOURCE, rowSpan(Device.CHROMALINK, 0, 0, 4));
+        return l;
+    }
+
+    private void set(Device d, Bar b, int[] leds) {
+        zones[d.ordinal()][b.ordinal()] = leds;
+    }
+
+    private static int[] rowSpan(Device d, int row, int firstCol, int lastCol) {
+        if (row < 0 || row >= d.rows) return NONE;
+        if (firstCol < 0) firstCol = 0;
+        if (lastCol >= d.cols) lastCol = d.cols - 1;
+        if (lastCol < firstCol) return NONE;
+        int[] leds = new int[lastCol - firstCol + 1];
+        for (int i = 0; i < leds.length; i++) leds[i] = row * d.cols + firstCol + i;
+        return leds;
+    }
+
+    private static int[] colSpanUp(Device d, int col, int bottomRow, int topRow) {
+        int[] leds = new int[bottomRow - topRow + 1];
+        for (int i = 0; i < leds.length; i++) leds[i] = (bottomRow - i) * d.cols + col;
+        return leds;
+    }
+}
@@ -0,0 +1,161 @@
+package com.phoenixcorp.overlay;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lecteur OCR à capture partagée : une seule capture par tick, union de la zone vie / ressource et des zones
+ * des extracteurs dus à ce tick. Puis, en parallèle :
+ * - extracteurs dus (cadence propre) sur le pool borné des extracteurs (OcrScheduler.extractors())
+ * - vie / ressource (TesseractOcrReader) sur le thread du tick
+ * Le tick attend les extracteurs au plus jusqu'à sa fin de période ; un extracteur plus lent finit en tâche
+ * de fond, n'est pas relancé entre-temps, et sa valeur part avec le tick suivant. Le snapshot porte la dernière
+ * valeur de chaque extracteur (Snapshot.stats). Ajouter une stat n'ajoute pas de capture, seulement des pixels.
+ */
+public final class FrameReader implements OcrReader {
+
+    /** Par extracteur : lectures, illisibles / en erreur, durée moyenne (ms), dernière valeur (null = aucune). */
+    public record ExtractorStats(String id, long periodMs, long reads, long unreadable, double avgMs, Stat last) { }
+
+    private final TesseractOcrReader bars;
+    private final Rectangle barsArea;
+    private final StatExtractor[] extractors;
+    private final ExecutorService pool;
+    private final long tickNanos;
+
+    private final long[] due;                       // prochaine lecture (System.nanoTime())
+    private final Future<?>[] pending;              // lecture en cours (thread du tick seulement)
+    private final AtomicReferenceArray<Stat> last;
+    private final AtomicLongArray reads, unreadable, nanos;
+    private final Counter[] ok, failed;
+    private final Timer[] times;
+
+    public FrameReader(TesseractOcrReader bars, List<StatExtractor> extractors, ExecutorService pool, long tickMs) {
+        this.bars = bars;
+        this.barsArea = bars.captureArea();
+        this.extractors = extractors.toArray(new StatExtractor[0]);
+        this.pool = pool;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMs));
+        int n = this.extractors.length;
+        due = new long[n];
+        pending = new Future<?>[n];
+        last = new AtomicReferenceArray<>(n);
+        reads = new AtomicLongArray(n);
+        unreadable = new AtomicLongArray(n);
+        nanos = new AtomicLongArray(n);
+        ok = new Counter[n];
+        failed = new Counter[n];
+        times = new Timer[n];
+        long now = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            due[i] = now;
+            String id = this.extractors[i].id();
+            ok[i] = PipelineMetrics.extractorReads(id, "ok");
+            failed[i] = PipelineMetrics.extractorReads(id, "unreadable");
+            times[i] = PipelineMetrics.extractorTime(id);
+        }
+    }
+
+    public List<ExtractorStats> stats() {
+        List<ExtractorStats> out = new ArrayList<>();
+        for (int i = 0; i < extractors.length; i++) {
+            long n = reads.get(i);
+            out.add(new ExtractorStats(extractors[i].id(), extractors[i].periodMs(), n, unreadable.get(i),
+                    n == 0 ? 0 : nanos.get(i) / 1e6 / n, last.get(i)));
+        }
+        return out;
+    }
+
+    @Override
+    public Snapshot read() {
+        try {
+            long now = System.nanoTime();
+            boolean[] run = new boolean[extractors.length];
+            Rectangle area = new Rectangle(barsArea);
+            for (int i = 0; i < extractors.length; i++) {
+                Future<?> f = pending[i];
+                if (now - due[i] >= 0 && (f == null || f.isDone())) {
+                    run[i] = true;
+                    // Demi-tick de marge : le tick qui tombe à l'échéance (à la gigue près) la lit
+                    due[i] = now + TimeUnit.MILLISECONDS.toNanos(extractors[i].periodMs()) - tickNanos / 2;
+                    area.add(extractors[i].region());
+                }
+            }
+            return read(CapturedFrame.grab(area), run, now + tickNanos);
+        } catch (AWTException e) {
+            System.err.println("[Extract] " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            // Arrêt du runner (cancel(true)) : pas une erreur, le flag reste visible pour l'appelant
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Throwable t) {
+            System.err.println("[Extract] Unexpected: " + t.getMessage());
+            return null;
+        }
+    }
+
+    /** Extracteurs run lancés sur frame, vie / ressource lues ici ; attend les premiers jusqu'à deadline. */
+    Snapshot read(CapturedFrame frame, boolean[] run, long deadlineNanos) throws InterruptedException {
+        for (int i = 0; i < extractors.length; i++) {
+            if (!run[i]) continue;
+            BufferedImage crop = frame.crop(extractors[i].region());
+            int k = i;
+            pending[i] = pool.submit(() -> extract(k, crop));
+        }
+        Snapshot s = bars.read(frame);
+        for (int i = 0; i < extractors.length; i++) {
+            if (!run[i]) continue;
+            try {
+                pending[i].get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException late) {
+                // Valeur pour le tick suivant
+            } catch (ExecutionException ignore) {
+                // compté dans extract
+            }
+        }
+        if (s == null) return null;
+        Map<String, Stat> stats = new LinkedHashMap<>();
+        for (int i = 0; i < extractors.length; i++) {
+            Stat v = last.get(i);
+            if (v != null) stats.put(extractors[i].id(), v);
+        }
+        return stats.isEmpty() ? s : s.withStats(Collections.unmodifiableMap(stats));
+    }
+
+    private void extract(int i, BufferedImage crop) {
+        long t0 = System.nanoTime();
+        Stat v = null;
+        try {
+            if (crop != null) v = extractors[i].extract(crop);
+        } catch (Throwable t) {
+            System.err.println("[Extract] " + extractors[i].id() + ": " + t.getMessage());
+        }
+        long dt = System.nanoTime() - t0;
+        reads.incrementAndGet(i);
+        nanos.addAndGet(i, dt);
+        times[i].record(dt, TimeUnit.NANOSECONDS);
+        if (v == null) {
+            unreadable.incrementAndGet(i);
+            failed[i].increment();
+        } else {
+            last.set(i, v);
+            ok[i].increment();
+        }
+    }
+}
@@ -1,25 +1,80 @@
 package com.phoenixcorp.overlay;
 
+import com.phoenixcorp.overlay.api.ConfigHotReloader;
 import com.phoenixcorp.overlay.api.LightingRuntime;
+import com.phoenixcorp.overlay.api.LightingSessions;
+import com.phoenixcorp.overlay.api.PreviewStreamHub;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeImageHints.class)
 public class LightingDesignerServer {
 
     public static void main(String[] args) {
-        SpringApplication.run(LightingDesignerServer.class, args);
+        SpringApplication app = new SpringApplication(LightingDesignerServer.class);
+        // Spring force headless par défaut : la capture écran (Robot) et l'overlay de sélection ont besoin d'AWT.
+        // Exécutable natif : headless (sauf -Djava.awt.headless=false, build avec métadonnées AWT)
+        app.setHeadless(AwtSupport.inNativeImage());
+        app.run(args);
     }
 
     @Bean
     public LightingRuntime lightingRuntime() {
-        return new LightingRuntime(LightingOverrides.loadOrDefaults());
+        Config cfg = ConfigManager.getInstance().getConfig();
+        // Sorties (config.json outputs) : Chroma par défaut, OpenRGB sous Linux ; changement pris au redémarrage
+        LightingRuntime runtime = new LightingRuntime(LightingRuntime.Scope.of(null, cfg.devices), LightingOverrides.loadOrDefaults(),
+                cfg.output("chroma") ? new ChromaSessionManager() : null,
+                new SessionRecorder(SessionRecorder.defaultDir(), "server"));
+        OutputSink.fromConfig(cfg).forEach(runtime::addSink);
+        return runtime;
     }
 
     @Bean
-    public DisposableBean lightingRuntimeShutdownHook(LightingRuntime runtime) {
-        return runtime::shutdown;
+    public PreviewStreamHub previewStreamHub(LightingRuntime runtime) {
+        PreviewStreamHub hub = new PreviewStreamHub();
+        runtime.addFrameListener(hub);
+        return hub;
+    }
+
+    /** Session principale + sessions nommées de config.json (même Chroma, mêmes threads OCR). */
+    @Bean
+    public LightingSessions lightingSessions(LightingRuntime runtime, PreviewStreamHub hub) {
+        LightingSessions sessions = new LightingSessions(runtime, hub);
+        sessions.openFromConfig();
+        return sessions;
+    }
+
+    /** Context prêt : session Chroma et moteur OCR préparés en tâche de fond (le démarrage ne les attend pas). */
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> lightingWarmUp(LightingRuntime runtime, LightingSessions sessions) {
+        return event -> {
+            StartupTimeline.mark("context");
+            runtime.warmUpAsync();
+            sessions.warmUpAsync();
+        };
+    }
+
+    @Bean
+    public ConfigHotReloader configHotReloader(LightingSessions sessions) {
+        ConfigHotReloader reloader = new ConfigHotReloader(sessions);
+        reloader.start();
+        return reloader;
+    }
+
+    @Bean
+    public DisposableBean lightingRuntimeShutdownHook(LightingRuntime runtime, PreviewStreamHub hub,
+                                                      LightingSessions sessions, ConfigHotReloader reloader) {
+        return () -> {
+            reloader.shutdown();
+            sessions.shutdown();   // avant la principale, qui ferme la session Chroma partagée
+            hub.shutdown();
+            runtime.shutdown();
+        };
     }
 }
@@ -4,7 +4,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 import java.io.*;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -19,19 +22,41 @@ public final class LightingOverrides {
     public Map<String, Object> resourceColors;
     public Object backgroundColor;
 
+    // Zones clavier des stats d'extracteurs (config.json extractors) : une barre par stat
+    public List<StatZone> statZones;
+
+    /** Barre de la stat (id d'extracteur) sur row, colonnes firstCol..lastCol ; color RGB (int ou "#RRGGBB"). */
+    public static class StatZone {
+        public String stat;
+        public int row, firstCol, lastCol;
+        public Object color;
+
+        public int bgr() { return rgbToBgr(toRgbInt(color, 0xFFFFFF)); }
+    }
+
     private static final ObjectMapper OM = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
 
+    public static Path path() {
+        return Path.of("lighting_overrides.json").toAbsolutePath();
+    }
+
+    /** lighting_overrides-<session>.json (sessions nommées ; null = fichier principal). */
+    public static Path path(String session) {
+        return session == null ? path() : Path.of("lighting_overrides-" + session + ".json").toAbsolutePath();
+    }
+
     public static LightingOverrides loadOrDefaults() {
-        // 1) Working dir
-        File f = new File("lighting_overrides.json");
-        if (f.exists()) {
-            try (InputStream in = new FileInputStream(f)) {
-                LightingOverrides lo = OM.readValue(in, LightingOverrides.class);
-                System.out.println("[Overrides] loaded from working dir: " + f.getAbsolutePath());
-                return lo;
-            } catch (Exception e) {
-                System.err.println("[Overrides] parse error (working dir): " + e.getMessage());
-            }
+        return loadOrDefaults(path());
+    }
+
+    /** Comme loadOrDefaults(), depuis file (absent : classpath puis défauts). */
+    public static LightingOverrides loadOrDefaults(Path file) {
+        // 1) Working dir (après écriture d'une éventuelle sauvegarde en attente)
+        WriteBehindStore.getInstance().flush(file);
+        LightingOverrides fromFile = readFile(file);
+        if (fromFile != null) {
+            System.out.println("[Overrides] loaded from working dir: " + file);
+            return fromFile;
         }
         // 2) Classpath
         try (InputStream in = LightingOverrides.class.getResourceAsStream("/lighting_overrides.json")) {
@@ -61,32 +86,71 @@ public final class LightingOverrides {
         return d;
     }
 
+    /** Lit lighting_overrides.json tel qu'il est sur disque ; null si absent ou illisible. */
+    public static LightingOverrides readWorkingDirFile() {
+        return readFile(path());
+    }
+
+    /** Idem pour file (overrides d'une session nommée). */
+    public static LightingOverrides readFile(Path file) {
+        File f = file.toFile();
+        if (!f.exists()) return null;
+        try (InputStream in = new FileInputStream(f)) {
+            return OM.readValue(in, LightingOverrides.class);
+        } catch (Exception e) {
+            System.err.println("[Overrides] parse error (working dir): " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Sérialise tout de suite (lo peut encore changer), écriture disque différée (WriteBehindStore). */
     public static void save(LightingOverrides lo) {
-        try (OutputStream out = new FileOutputStream(new File("lighting_overrides.json"))) {
-            Map<String, Object> m = new HashMap<>();
-            m.put("hpRow", lo.hpRow);
-            m.put("hpFirstCol", lo.hpFirstCol);
-            m.put("hpLastCol", lo.hpLastCol);
-            m.put("resourceRow", lo.resourceRow);
-            m.put("resourceFirstCol", lo.resourceFirstCol);
-            m.put("resourceLastCol", lo.resourceLastCol);
-            m.put("hpColor", toRgbInt(lo.hpColor));
-            m.put("resourceColor", toRgbInt(lo.resourceColor));
-            m.put("backgroundColor", toRgbInt(lo.backgroundColor));
-            if (lo.resourceColors != null) {
-                Map<String, Integer> rc = new HashMap<>();
-                for (Map.Entry<String, Object> e : lo.resourceColors.entrySet()) {
-                    rc.put(e.getKey(), toRgbInt(e.getValue()));
-                }
-                m.put("resourceColors", rc);
-            }
-            OM.writeValue(out, m);
-            System.out.println("[Overrides] saved to working dir.");
+        save(lo, path());
+    }
+
+    public static void save(LightingOverrides lo, Path file) {
+        try {
+            WriteBehindStore.getInstance().write(file, OM.writeValueAsBytes(toJsonMap(lo)));
         } catch (Exception e) {
             System.err.println("[Overrides] save error: " + e.getMessage());
         }
     }
 
+    /** Forme normalisée (couleurs en int RGB) : celle écrite sur disque, et base de comparaison. */
+    public static Map<String, Object> toJsonMap(LightingOverrides lo) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("hpRow", lo.hpRow);
+        m.put("hpFirstCol", lo.hpFirstCol);
+        m.put("hpLastCol", lo.hpLastCol);
+        m.put("resourceRow", lo.resourceRow);
+        m.put("resourceFirstCol", lo.resourceFirstCol);
+        m.put("resourceLastCol", lo.resourceLastCol);
+        m.put("hpColor", toRgbInt(lo.hpColor));
+        m.put("resourceColor", toRgbInt(lo.resourceColor));
+        m.put("backgroundColor", toRgbInt(lo.backgroundColor));
+        if (lo.resourceColors != null) {
+            Map<String, Integer> rc = new HashMap<>();
+            for (Map.Entry<String, Object> e : lo.resourceColors.entrySet()) {
+                rc.put(e.getKey(), toRgbInt(e.getValue()));
+            }
+            m.put("resourceColors", rc);
+        }
+        if (lo.statZones != null) {
+            List<Map<String, Object>> zones = new ArrayList<>();
+            for (StatZone z : lo.statZones) {
+                Map<String, Object> zm = new HashMap<>();
+                zm.put("stat", z.stat);
+                zm.put("row", z.row);
+                zm.put("firstCol", z.firstCol);
+                zm.put("lastCol", z.lastCol);
+                zm.put("color", toRgbInt(z.color));
+                zones.add(zm);
+            }
+            m.put("statZones", zones);
+        }
+        return m;
+    }
+
     // Getters (BGR pour Razer)
     public int hpRow()        { return hpRow; }
     public int hpFirstCol()   { return hpFirstCol; }
@@ -105,6 +169,8 @@ public final class LightingOverrides {
         return Optional.ofNullable(rgb).map(LightingOverrides::rgbToBgr);
     }
 
+    public List<StatZone> statZones() { return statZones == null ? List.of() : statZones; }
+
     public boolean hasBackground() { return backgroundColor != null; }
     public int backgroundBgr()     { return rgbToBgr(toRgbInt(backgroundColor, 0x102040)); }
 
@@ -115,6 +181,8 @@ public final class LightingOverrides {
         int b = (rgb)       & 0xFF;
         return (b << 16) | (g << 8) | r;
     }
+    /** Couleur RGB d'un int, "#RRGGBB", "0xRRGGBB" ou décimal ; def si absente ou illisible. */
+    public static int parseRgb(Object any, int def) { return toRgbInt(any, def); }
     private static int toRgbInt(Object any) { return toRgbInt(any, 0xFFFFFF); }
     private static int toRgbInt(Object any, int def) {
         if (any == null) return def;
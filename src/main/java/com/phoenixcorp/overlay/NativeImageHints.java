@@ -0,0 +1,44 @@
+package com.phoenixcorp.overlay;
+
+import net.sourceforge.tess4j.ITessAPI;
+import net.sourceforge.tess4j.TessAPI;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Métadonnées d'accessibilité pour l'exécutable natif (profil "native", traitement AOT de Spring) :
+ * ce que l'analyse statique de native-image ne voit pas.
+ * - Jackson : Config et LightingOverrides (lus / écrits hors contrôleurs, par ConfigManager et LightingOverrides)
+ * - tess4j / JNA : proxy de l'interface TessAPI, constructeurs des handles ITessAPI.*, libs natives embarquées
+ *   (le JNI de JNA vient du dépôt de métadonnées GraalVM, activé par le parent Spring Boot)
+ * - ressources : traineddata + manifeste, front statique
+ * AWT / Swing n'est pas décrit ici : voir AwtSupport et le README (agent de traçage).
+ */
+public class NativeImageHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                Config.class, LightingOverrides.class);
+
+        // Native.load(...) → Proxy.newProxyInstance(TessAPI) ; appels par Method.invoke
+        hints.proxies().registerJdkProxy(TessAPI.class);
+        hints.reflection().registerType(TessAPI.class, MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.PUBLIC_FIELDS);
+        // JNA instancie les PointerType / Structure rendus par l'API native et lit leurs champs
+        for (Class<?> nested : ITessAPI.class.getDeclaredClasses()) {
+            hints.reflection().registerType(nested, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                    MemberCategory.PUBLIC_FIELDS, MemberCategory.DECLARED_FIELDS);
+        }
+
+        hints.resources()
+                .registerPattern("tessdata/*.traineddata")
+                .registerPattern("tessdata/manifest.sha256")
+                .registerPattern("tessdata/configs/*")
+                .registerPattern("win32-x86-64/*")                 // libtesseract / leptonica extraites par tess4j (Windows)
+                .registerPattern("com/sun/jna/*/libjnidispatch.*")
+                .registerPattern("lighting_overrides.json")
+                .registerPattern("static/**");
+    }
+}
@@ -0,0 +1,147 @@
+package com.phoenixcorp.overlay;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Prétraitements de la cascade OCR (TesseractOcrReader), en Java pur sur la capture :
+ * - normalize : niveaux de gris, contraste étiré, texte foncé sur fond clair (texte clair du jeu inversé)
+ * - textLine : lignes de texte détectées par projection, recadrées et mises bout à bout sur une seule ligne
+ *   réduite (passe rapide en PSM 7, sans analyse de mise en page)
+ * - upscale : agrandissement pour la passe alternative (petits chiffres)
+ */
+final class OcrImages {
+    private OcrImages() {}
+
+    static final int MIN_CONTRAST = 48;   // écart de luminance en dessous duquel il n'y a rien à lire
+    static final int INK = 128;           // pixel d'encre après normalisation
+    static final int MAX_LINES = 4;       // au-delà, ce n'est pas une zone de barres : passe complète
+    static final int MIN_LINE = 4;        // bande plus fine = bruit (soulignement, bord de cadre)
+    static final int PAD = 6;
+
+    /** Image normalisée (TYPE_BYTE_GRAY), null si uniforme. */
+    static BufferedImage normalize(BufferedImage src) {
+        int w = src.getWidth(), h = src.getHeight();
+        int[] rgb = packedRgb(src);
+        int[] px = new int[w * h];
+        int min = 255, max = 0;
+        for (int i = 0; i < px.length; i++) {
+            int p = rgb[i];
+            int lum = (((p >> 16) & 0xFF) * 77 + ((p >> 8) & 0xFF) * 150 + (p & 0xFF) * 29) >> 8;
+            px[i] = lum;
+            if (lum < min) min = lum;
+            if (lum > max) max = lum;
+        }
+        if (max - min < MIN_CONTRAST) return null;
+        int mid = (min + max) / 2, bright = 0;
+        for (int lum : px) if (lum > mid) bright++;
+        boolean lightText = bright * 2 < px.length;   // l'encre est la minorité
+        BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] dst = ((DataBufferByte) out.getRaster().getDataBuffer()).getData();
+        int range = max - min;
+        for (int i = 0; i < px.length; i++) {
+            int v = (px[i] - min) * 255 / range;
+            dst[i] = (byte) (lightText ? 255 - v : v);
+        }
+        return out;
+    }
+
+    /**
+     * Lignes de texte de norm sur une seule ligne, hauteur de ligne ramenée à lineHeight au plus
+     * (jamais agrandie) ; null si aucune ligne ou plus de MAX_LINES.
+     */
+    static BufferedImage textLine(BufferedImage norm, int lineHeight) {
+        int w = norm.getWidth(), h = norm.getHeight();
+        byte[] g = ((DataBufferByte) norm.getRaster().getDataBuffer()).getData();
+        int[] top = new int[MAX_LINES], bottom = new int[MAX_LINES], left = new int[MAX_LINES], right = new int[MAX_LINES];
+        int lines = 0, start = -1, tallest = 0;
+        for (int y = 0; y <= h; y++) {
+            boolean ink = y < h && rowHasInk(g, y * w, w);
+            if (ink && start < 0) start = y;
+            if (!ink && start >= 0) {
+                if (y - start >= MIN_LINE) {
+                    if (lines == MAX_LINES) return null;
+                    top[lines] = Math.max(0, start - 1);
+                    bottom[lines] = Math.min(h, y + 1);
+                    columns(g, w, top[lines], bottom[lines], lines, left, right);
+                    tallest = Math.max(tallest, bottom[lines] - top[lines]);
+                    lines++;
+                }
+                start = -1;
+            }
+        }
+        if (lines == 0) return null;
+
+        double scale = Math.min(1.0, (double) lineHeight / tallest);
+        int gap = (int) Math.ceil(tallest * scale);   // une ligne d'écart : deux mots distincts pour Tesseract
+        int width = 2 * PAD + gap * (lines - 1), height = 2 * PAD + (int) Math.ceil(tallest * scale);
+        for (int i = 0; i < lines; i++) width += (int) Math.ceil((right[i] - left[i]) * scale);
+
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g2 = out.createGraphics();
+        try {
+            g2.setColor(Color.WHITE);
+            g2.fillRect(0, 0, width, height);
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            int x = PAD;
+            for (int i = 0; i < lines; i++) {
+                int dw = (int) Math.ceil((right[i] - left[i]) * scale);
+                int dh = (int) Math.ceil((bottom[i] - top[i]) * scale);
+                g2.drawImage(norm, x, PAD, x + dw, PAD + dh, left[i], top[i], right[i], bottom[i], null);
+                x += dw + gap;
+            }
+        } finally {
+            g2.dispose();
+        }
+        return out;
+    }
+
+    /** norm agrandie factor fois (bicubique). */
+    static BufferedImage upscale(BufferedImage norm, int factor) {
+        int w = norm.getWidth() * factor, h = norm.getHeight() * factor;
+        BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g2 = out.createGraphics();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g2.drawImage(norm, 0, 0, w, h, null);
+        } finally {
+            g2.dispose();
+        }
+        return out;
+    }
+
+    // Capture Robot (INT_RGB) lue directement dans son tampon, sinon getRGB (conversion de modèle de couleur)
+    private static int[] packedRgb(BufferedImage src) {
+        int w = src.getWidth(), h = src.getHeight();
+        if ((src.getType() == BufferedImage.TYPE_INT_RGB || src.getType() == BufferedImage.TYPE_INT_ARGB)
+                && src.getRaster().getDataBuffer() instanceof DataBufferInt db
+                && src.getRaster().getParent() == null && db.getData().length == w * h) {
+            return db.getData();
+        }
+        return src.getRGB(0, 0, w, h, null, 0, w);
+    }
+
+    private static boolean rowHasInk(byte[] g, int from, int w) {
+        for (int i = from, end = from + w; i < end; i++) {
+            if ((g[i] & 0xFF) < INK) return true;
+        }
+        return false;
+    }
+
+    // Colonnes d'encre de la bande [top, bottom) (au moins une ligne d'encre, donc jamais vide)
+    private static void columns(byte[] g, int w, int top, int bottom, int i, int[] left, int[] right) {
+        int l = w, r = -1;
+        for (int y = top; y < bottom; y++) {
+            for (int x = 0, row = y * w; x < w; x++) {
+                if ((g[row + x] & 0xFF) < INK) {
+                    if (x < l) l = x;
+                    if (x > r) r = x;
+                }
+            }
+        }
+        left[i] = Math.max(0, l - 1);
+        right[i] = Math.min(w, r + 2);
+    }
+}
@@ -1,17 +1,59 @@
 package com.phoenixcorp.overlay;
 
+import java.util.Map;
+
 public interface OcrReader {
 
+    /** Valeur d'un extracteur (StatExtractor) : cur / max, max <= 0 = rien d'affiché (barre éteinte). */
+    record Stat(int cur, int max) {
+        public double pct() {
+            if (max <= 0) return 0.0;
+            return Math.max(0.0, Math.min(1.0, (double) cur / max));
+        }
+    }
+
     final class Snapshot {
         public final int hpCur, hpMax;
         public final int resCur, resMax;
         public final ResourceType type;
+        // Stats des extracteurs en plus de vie / ressource (cible, points de combo...), par id ; vide sans extracteur
+        public final Map<String, Stat> stats;
+        // Traçage : n° de frame (0 = non estampillée), instants System.nanoTime() de capture et de fin d'OCR
+        public final long seq;
+        public final long captureNanos, ocrNanos;
         public Snapshot(int hpCur, int hpMax, int resCur, int resMax, ResourceType type) {
+            this(hpCur, hpMax, resCur, resMax, type, 0L, 0L, 0L);
+        }
+        public Snapshot(int hpCur, int hpMax, int resCur, int resMax, ResourceType type,
+                        long seq, long captureNanos, long ocrNanos) {
+            this(hpCur, hpMax, resCur, resMax, type, Map.of(), seq, captureNanos, ocrNanos);
+        }
+        public Snapshot(int hpCur, int hpMax, int resCur, int resMax, ResourceType type, Map<String, Stat> stats,
+                        long seq, long captureNanos, long ocrNanos) {
             this.hpCur = hpCur; this.hpMax = hpMax; this.resCur = resCur; this.resMax = resMax;
             this.type = type == null ? ResourceType.UNKNOWN : type;
+            this.stats = stats == null ? Map.of() : stats;
+            this.seq = seq; this.captureNanos = captureNanos; this.ocrNanos = ocrNanos;
+        }
+        /** Copie avec le traçage donné (mêmes valeurs). */
+        public Snapshot stamped(long seq, long captureNanos, long ocrNanos) {
+            return new Snapshot(hpCur, hpMax, resCur, resMax, type, stats, seq, captureNanos, ocrNanos);
+        }
+        /** Copie avec ces stats d'extracteurs (map non copiée : ne plus la modifier). */
+        public Snapshot withStats(Map<String, Stat> stats) {
+            return new Snapshot(hpCur, hpMax, resCur, resMax, type, stats, seq, captureNanos, ocrNanos);
+        }
+        /** Stat de l'extracteur id, null si absente. */
+        public Stat stat(String id) {
+            return stats.get(id);
+        }
+        /** Âge de la frame (ns) depuis sa capture, 0 si non estampillée. */
+        public long ageNanos(long nowNanos) {
+            return captureNanos == 0L ? 0L : nowNanos - captureNanos;
         }
         @Override public String toString() {
-            return "Snapshot{hp=" + hpCur + "/" + hpMax + ", res=" + resCur + "/" + resMax + ", type=" + type + "}";
+            return "Snapshot{hp=" + hpCur + "/" + hpMax + ", res=" + resCur + "/" + resMax + ", type=" + type
+                    + (stats.isEmpty() ? "" : ", stats=" + stats) + (seq != 0L ? ", seq=" + seq : "") + "}";
         }
     }
 
@@ -1,44 +1,148 @@
 package com.phoenixcorp.overlay;
 
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 public final class OcrRunner {
-    private final ScheduledExecutorService exec = Executors.newSingleThreadScheduledExecutor(r -> {
-        Thread t = new Thread(r, "ocr-runner"); t.setDaemon(true); return t;
-    });
+    private final ScheduledExecutorService exec;
+    private final OcrScheduler shared;     // null : thread propre (exec)
+    private final ExecutorService pool;    // exécution des ticks en mode partagé
+    private final AtomicBoolean busy = new AtomicBoolean();
+    private final AtomicLong skipped = new AtomicLong();   // ticks sautés depuis le dernier exécuté
+    private volatile Future<?> inFlight;
     private ScheduledFuture<?> task;
     private final OcrReader reader;
     private final Consumer<OcrReader.Snapshot> onSnapshot;
     private final long periodMs;
+    private final AtomicLong seq = new AtomicLong();
+    private final String threadName;
+    private long firstTick, ticks;         // échéances des ticks (retard mesuré, pas estimé)
 
     public OcrRunner(OcrReader reader, Consumer<OcrReader.Snapshot> onSnapshot) {
         this(reader, onSnapshot, 100);
     }
 
     public OcrRunner(OcrReader reader, Consumer<OcrReader.Snapshot> onSnapshot, long periodMs) {
+        this(reader, onSnapshot, periodMs, "ocr-runner");
+    }
+
+    /** Variante nommée : sert aussi à cadencer la sortie (lecteur = interpolateur). */
+    public OcrRunner(OcrReader reader, Consumer<OcrReader.Snapshot> onSnapshot, long periodMs, String threadName) {
+        this.reader = reader; this.onSnapshot = onSnapshot; this.periodMs = Math.max(30, periodMs);
+        this.threadName = threadName;
+        this.shared = null;
+        this.pool = null;
+        this.exec = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, threadName); t.setDaemon(true); return t;
+        });
+    }
+
+    /**
+     * Variante partagée (sessions) : déclenché par le thread commun, exécuté sur un worker du pool borné.
+     * Jamais plus d'un tick en cours par runner ; un tick qui tombe pendant le précédent est sauté.
+     */
+    public OcrRunner(OcrReader reader, Consumer<OcrReader.Snapshot> onSnapshot, long periodMs, String name,
+                     OcrScheduler shared) {
+        this(reader, onSnapshot, periodMs, name, shared, shared.workers());
+    }
+
+    /** Variante partagée exécutée sur pool (ex. OcrScheduler.outputs() pour la cadence de sortie). */
+    public OcrRunner(OcrReader reader, Consumer<OcrReader.Snapshot> onSnapshot, long periodMs, String name,
+                     OcrScheduler shared, ExecutorService pool) {
         this.reader = reader; this.onSnapshot = onSnapshot; this.periodMs = Math.max(30, periodMs);
+        this.threadName = name;
+        this.shared = shared;
+        this.pool = pool;
+        this.exec = shared.scheduler();
     }
 
     public synchronized void start() {
         if (task != null && !task.isCancelled() && !task.isDone()) return;
+        firstTick = System.nanoTime();
+        ticks = 0;
+        if (shared == null) {
+            // Tick en retard : le scheduler rattrape les suivants à la suite (aucun n'est perdu)
+            task = exec.scheduleAtFixedRate(() -> tick(nextDue()), 0, periodMs, TimeUnit.MILLISECONDS);
+            return;
+        }
         task = exec.scheduleAtFixedRate(() -> {
+            long due = nextDue();
+            if (!busy.compareAndSet(false, true)) {
+                skipped.incrementAndGet();
+                PipelineMetrics.DROPPED_SKIPPED.increment();
+                return;
+            }
             try {
-                OcrReader.Snapshot s = reader.read();
-                if (s != null) onSnapshot.accept(s);
-            } catch (Throwable t) {
-                System.err.println("[OCR] Error: " + t.getMessage());
+                inFlight = pool.submit(() -> {
+                    try {
+                        tick(due);
+                    } finally {
+                        busy.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                busy.set(false);
+                skipped.incrementAndGet();
+                PipelineMetrics.DROPPED_SKIPPED.increment();
             }
         }, 0, periodMs, TimeUnit.MILLISECONDS);
     }
 
+    // Échéance théorique du tick courant (thread du scheduler seulement)
+    private long nextDue() {
+        return firstTick + ticks++ * TimeUnit.MILLISECONDS.toNanos(periodMs);
+    }
+
+    /** due = échéance du tick : retard du scheduler et attente d'un worker comptent dans ocr.ticks.late. */
+    private void tick(long due) {
+        PipelineEvents.OcrTickEvent tick = new PipelineEvents.OcrTickEvent();
+        tick.begin();
+        long t0 = System.nanoTime();
+        long late = Math.max(0L, t0 - due);
+        if (late >= TimeUnit.MILLISECONDS.toNanos(periodMs)) PipelineMetrics.TICKS_LATE.increment();
+        long skippedBefore = skipped.getAndSet(0L);
+        long frameSeq = 0L;
+        try {
+            OcrReader.Snapshot s = reader.read();
+            if (s != null) {
+                s = stamp(s, t0);
+                frameSeq = s.seq;
+                onSnapshot.accept(s);
+            }
+        } catch (Throwable t) {
+            System.err.println("[OCR] Error: " + t.getMessage());
+        }
+        tick.end();
+        if (tick.shouldCommit()) {
+            tick.runner = threadName;
+            tick.seq = frameSeq;
+            tick.late = late;
+            tick.skipped = skippedBefore;
+            tick.commit();
+        }
+    }
+
+    /** Estampille les frames qui ne le sont pas encore (les frames interpolées gardent celui de leur source). */
+    private OcrReader.Snapshot stamp(OcrReader.Snapshot s, long tickNanos) {
+        if (s.seq != 0L) return s;
+        long capture = s.captureNanos != 0L ? s.captureNanos : tickNanos;
+        long ocr = s.ocrNanos != 0L ? s.ocrNanos : System.nanoTime();
+        return s.stamped(seq.incrementAndGet(), capture, ocr);
+    }
+
     public synchronized void stop() {
         if (task != null) { task.cancel(true); task = null; }
+        Future<?> f = inFlight;
+        if (f != null) { f.cancel(true); inFlight = null; }
+        busy.set(false); // tick annulé avant d'avoir tourné : son finally ne passera pas
     }
 
     public synchronized boolean isRunning() {
         return task != null && !task.isCancelled() && !task.isDone();
     }
 
-    public void shutdown() { stop(); exec.shutdownNow(); }
+    /** Les threads partagés (OcrScheduler) ne sont pas arrêtés. */
+    public void shutdown() { stop(); if (shared == null) exec.shutdownNow(); }
 }
@@ -0,0 +1,95 @@
+package com.phoenixcorp.overlay;
+
+import io.micrometer.core.instrument.Gauge;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads OCR partagés par toutes les sessions : un seul thread "ocr-scheduler" déclenche les ticks,
+ * un pool borné "ocr-worker-n" les exécute. Ajouter une session n'ajoute aucun thread, et au plus
+ * workers() OCR tournent en même temps (CPU et moteurs Tesseract bornés).
+ * File d'attente bornée : un tick refusé est compté comme fusionné (cf. OcrRunner).
+ * Extracteurs de stats (FrameReader) sur un second pool borné "ocr-extract-n", de même taille : un tick qui
+ * les attend n'occupe pas leur place ; file pleine = extracteur lu sur le thread du tick.
+ * Cadence de sortie (interpolation, rendu, envoi LEDs bloquant) : déclenchée par le même scheduler mais exécutée
+ * sur ses threads "lighting-output-n", jamais sur les workers OCR (au plus un tick en cours par session).
+ */
+public final class OcrScheduler {
+
+    static final int MAX_QUEUED = 64;
+
+    private static volatile OcrScheduler shared;
+
+    private final ScheduledExecutorService scheduler;
+    private final ThreadPoolExecutor workers;
+    private final ThreadPoolExecutor extractors;
+    private final ExecutorService outputs;
+
+    /** Instance commune, dimensionnée par config.json (ocrWorkers) à la première utilisation. */
+    public static OcrScheduler shared() {
+        OcrScheduler s = shared;
+        if (s != null) return s;
+        synchronized (OcrScheduler.class) {
+            if (shared == null) {
+                int n = ConfigManager.getInstance().getConfig().ocrWorkersOrDefault();
+                shared = new OcrScheduler(n);
+                // Un moteur libre par worker et par thread d'extraction : pas d'init Tesseract quand toutes
+                // les sessions et leurs extracteurs lisent ensemble
+                TesseractEnginePool.reserveIdle(2 * n);
+                Gauge.builder("ocr.workers.active", shared.workers, ThreadPoolExecutor::getActiveCount)
+                        .description("Ticks OCR en cours d'exécution").register(PipelineMetrics.REGISTRY);
+                Gauge.builder("ocr.workers.queued", shared.workers, w -> w.getQueue().size())
+                        .description("Ticks OCR en attente d'un worker").register(PipelineMetrics.REGISTRY);
+                System.out.println("[OCR] " + n + " worker(s) partagé(s)");
+            }
+            return shared;
+        }
+    }
+
+    public OcrScheduler(int workers) {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ocr-scheduler"); t.setDaemon(true); return t;
+        });
+        AtomicInteger n = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED), r -> {
+            Thread t = new Thread(r, "ocr-worker-" + n.incrementAndGet()); t.setDaemon(true); return t;
+        });
+        AtomicInteger e = new AtomicInteger();
+        this.extractors = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED), r -> {
+            Thread t = new Thread(r, "ocr-extract-" + e.incrementAndGet()); t.setDaemon(true); return t;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        // Threads plateforme : l'envoi Chroma bloque sous synchronized (un thread virtuel y serait épinglé)
+        this.outputs = Executors.newCachedThreadPool(Thread.ofPlatform().daemon().name("lighting-output-", 1).factory());
+    }
+
+    /** Ne fait que déclencher : ses tâches doivent rendre la main aussitôt. */
+    public ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    public ThreadPoolExecutor workers() {
+        return workers;
+    }
+
+    /** Pool des extracteurs de stats (FrameReader). */
+    public ThreadPoolExecutor extractors() {
+        return extractors;
+    }
+
+    /** Ticks de sortie (OcrRunner de l'interpolateur) : hors du pool OCR borné. */
+    public ExecutorService outputs() {
+        return outputs;
+    }
+
+    public int workerCount() {
+        return workers.getMaximumPoolSize();
+    }
+}
@@ -0,0 +1,447 @@
+package com.phoenixcorp.overlay;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Sortie OpenRGB (protocole binaire du SDK, TCP 6742) : les LEDs sous Linux, sans Synapse ni JSON.
+ * - une seule SocketChannel persistante, ouverte en tâche de fond (connectAsync, puis après une perte)
+ * - à la connexion : contrôleurs listés, mode Direct, et correspondance matrice 6x22 → LEDs de chaque
+ *   contrôleur calculée une fois (zones matrice mises à l'échelle, zones linéaires étirées sur la barre de vie
+ *   des overrides, recalculées quand elle bouge)
+ * - par frame : un paquet UPDATELEDS par contrôleur, écrit dans son ByteBuffer direct réutilisé ; écriture
+ *   non bloquante, frame refusée (busy) tant que la précédente n'est pas partie
+ * - DEVICE_LIST_UPDATED du serveur : reconnexion, donc nouvelle correspondance
+ */
+public final class OpenRgbSink implements OutputSink {
+
+    static final int ROWS = 6, COLS = 22;
+    static final int PROTOCOL_VERSION = 3;   // format des descriptions de contrôleur lu par parseController
+    static final int HEADER_SIZE = 16;       // "ORGB", index contrôleur, id paquet, taille (u32 little-endian)
+    static final int REQUEST_CONTROLLER_COUNT = 0, REQUEST_CONTROLLER_DATA = 1, REQUEST_PROTOCOL_VERSION = 40,
+            SET_CLIENT_NAME = 50, DEVICE_LIST_UPDATED = 100, UPDATELEDS = 1050, SETCUSTOMMODE = 1100;
+    static final int ZONE_SINGLE = 0, ZONE_LINEAR = 1, ZONE_MATRIX = 2;
+    private static final int COLORS_OFFSET = HEADER_SIZE + 6;   // après data_size (u32) et num_colors (u16)
+    private static final int CONNECT_TIMEOUT_MS = 2000, REPLY_TIMEOUT_MS = 1000;
+    private static final long RETRY_NANOS = 2_000_000_000L;
+
+    /** Zone d'un contrôleur : LEDs [start, start+count), map = grille height x width d'index (-1 = vide). */
+    record Zone(int type, int start, int count, int height, int width, int[] map) { }
+
+    /** Contrôleur connecté : case de la matrice de chaque LED (-1 = éteinte) et son paquet UPDATELEDS. */
+    record Controller(int index, String name, List<Zone> zones, int[] ledSource, ByteBuffer packet) { }
+
+    private final String host;
+    private final int port;
+    private final ExecutorService connector = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "openrgb-connect"); t.setDaemon(true); return t;
+    });
+    private final Counter sent, busy, errors;
+
+    // Sous verrou (this) : connexion courante et tampons réutilisés
+    private SocketChannel channel;
+    private Controller[] controllers = new Controller[0];
+    private ByteBuffer[] packets = new ByteBuffer[0];
+    private final int[] frame = new int[ROWS * COLS];     // dernière frame (BGR), rejouée après reconnexion
+    private boolean hasFrame;
+    private final ByteBuffer inbound = ByteBuffer.allocateDirect(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer discard = ByteBuffer.allocateDirect(512);
+    private long inboundSkip;                              // corps de paquet serveur restant à ignorer
+    private long nextRetryNanos;
+    private boolean closed;
+    // Barre de vie des overrides (hpRow, hpFirstCol..hpLastCol) : cases lues par les zones linéaires
+    private int barRow = 0, barFirst = 0, barLast = COLS - 1;
+
+    public OpenRgbSink(String host, int port) {
+        this.host = host;
+        this.port = port;
+        this.sent = PipelineMetrics.sinkFrames("openrgb", "sent");
+        this.busy = PipelineMetrics.sinkFrames("openrgb", "busy");
+        this.errors = PipelineMetrics.sinkFrames("openrgb", "error");
+    }
+
+    @Override
+    public String name() {
+        return "openrgb";
+    }
+
+    /** Handshake sur le thread openrgb-connect, hors verrou : les frames ne l'attendent jamais. */
+    @Override
+    public CompletableFuture<Boolean> connectAsync() {
+        try {
+            return CompletableFuture.supplyAsync(this::connect, connector);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    public synchronized boolean isConnected() {
+        return channel != null;
+    }
+
+    /** Contrôleurs de la connexion courante (vide si déconnecté). */
+    public synchronized List<Controller> controllers() {
+        return List.of(controllers);
+    }
+
+    /** Zones linéaires recalées sur la barre de vie (comme les bandeaux de StripSink). */
+    @Override
+    public synchronized void overridesChanged(LightingOverrides lo) {
+        barRow = lo.hpRow();
+        barFirst = lo.hpFirstCol();
+        barLast = lo.hpLastCol();
+        for (Controller c : controllers) remap(c);
+    }
+
+    @Override
+    public synchronized boolean keyboard(int[][] matrixBgr, OcrReader.Snapshot source, long renderedNanos) {
+        if (closed || matrixBgr == null) return false;
+        flatten(matrixBgr);
+        hasFrame = true;
+        if (channel == null) {
+            reconnectLater();
+            return false;
+        }
+        try {
+            return writeFrame();
+        } catch (IOException e) {
+            System.err.println("[OpenRGB] envoi impossible: " + e.getMessage());
+            errors.increment();
+            disconnect();
+            reconnectLater();
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        if (channel != null) {
+            // LEDs éteintes en partant (au mieux : une écriture, sans attendre)
+            Arrays.fill(frame, 0);
+            try { writeFrame(); } catch (IOException ignore) { }
+            disconnect();
+        }
+        connector.shutdownNow();
+    }
+
+    // ================== interne ==================
+
+    private void flatten(int[][] matrix) {
+        for (int r = 0; r < ROWS; r++) {
+            int[] row = r < matrix.length ? matrix[r] : null;
+            for (int c = 0; c < COLS; c++) {
+                frame[r * COLS + c] = row != null && c < row.length ? row[c] : 0;
+            }
+        }
+    }
+
+    /** Remplit et écrit les paquets UPDATELEDS ; false si la frame précédente n'est pas encore partie. */
+    private boolean writeFrame() throws IOException {
+        SocketChannel ch = channel;
+        drainInbound(ch);
+        if (channel == null) return false;   // liste des périphériques changée : reconnexion en cours
+        if (pending()) {
+            ch.write(packets);
+            if (pending()) {
+                busy.increment();
+                return false;
+            }
+        }
+        for (Controller c : controllers) {
+            ByteBuffer p = c.packet;
+            int[] src = c.ledSource;
+            // Couleur OpenRGB = 0x00BBGGRR little-endian (octets R, G, B, 0) : l'entier BGR tel quel
+            for (int k = 0; k < src.length; k++) {
+                p.putInt(COLORS_OFFSET + 4 * k, src[k] < 0 ? 0 : frame[src[k]] & 0xFFFFFF);
+            }
+            p.clear();
+        }
+        // Non bloquant : un reste éventuel part avant la frame suivante
+        ch.write(packets);
+        sent.increment();
+        return true;
+    }
+
+    private boolean pending() {
+        for (ByteBuffer p : packets) {
+            if (p.hasRemaining()) return true;
+        }
+        return false;
+    }
+
+    /** Paquets envoyés par le serveur (non sollicités) : ignorés, sauf DEVICE_LIST_UPDATED. */
+    private void drainInbound(SocketChannel ch) throws IOException {
+        while (true) {
+            if (inboundSkip > 0) {
+                discard.clear().limit((int) Math.min(inboundSkip, discard.capacity()));
+                int n = ch.read(discard);
+                if (n < 0) throw new EOFException("connexion fermée par le serveur");
+                if (n == 0) return;
+                inboundSkip -= n;
+                continue;
+            }
+            int n = ch.read(inbound);
+            if (n < 0) throw new EOFException("connexion fermée par le serveur");
+            if (inbound.hasRemaining()) return;
+            int id = inbound.getInt(8);
+            inboundSkip = Integer.toUnsignedLong(inbound.getInt(12));
+            inbound.clear();
+            if (id == DEVICE_LIST_UPDATED) {
+                System.out.println("[OpenRGB] liste des périphériques modifiée : reconnexion");
+                disconnect();
+                reconnectLater();
+                return;
+            }
+        }
+    }
+
+    private void reconnectLater() {
+        long now = System.nanoTime();
+        if (closed || now - nextRetryNanos < 0) return;
+        nextRetryNanos = now + RETRY_NANOS;
+        connectAsync();
+    }
+
+    private void disconnect() {
+        if (channel != null) {
+            try { channel.close(); } catch (IOException ignore) { }
+        }
+        channel = null;
+        controllers = new Controller[0];
+        packets = new ByteBuffer[0];
+        inbound.clear();
+        inboundSkip = 0;
+    }
+
+    private boolean connect() {
+        synchronized (this) {
+            if (closed) return false;
+            if (channel != null) return true;
+        }
+        SocketChannel ch = null;
+        try {
+            ch = SocketChannel.open();
+            ch.socket().connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ch.socket().setSoTimeout(REPLY_TIMEOUT_MS);
+            Controller[] found = handshake(ch);
+            ch.configureBlocking(false);
+            synchronized (this) {
+                if (closed) {
+                    ch.close();
+                    return false;
+                }
+                install(ch, found);
+            }
+            int leds = 0;
+            StringBuilder names = new StringBuilder();
+            for (Controller c : found) {
+                leds += c.ledSource.length;
+                names.append(names.isEmpty() ? "" : ", ").append(c.name);
+            }
+            System.out.println("[OpenRGB] " + host + ":" + port + " : " + found.length + " contrôleur(s), "
+                    + leds + " LEDs (" + names + ")");
+            return true;
+        } catch (IOException e) {
+            System.err.println("[OpenRGB] connexion impossible (" + host + ":" + port + "): " + e.getMessage());
+            if (ch != null) {
+                try { ch.close(); } catch (IOException ignore) { }
+            }
+            return false;
+        }
+    }
+
+    private void install(SocketChannel ch, Controller[] found) throws IOException {
+        channel = ch;
+        controllers = found;
+        for (Controller c : found) remap(c);
+        packets = new ByteBuffer[found.length];
+        for (int i = 0; i < found.length; i++) {
+            packets[i] = found[i].packet;
+            packets[i].position(packets[i].limit());   // rien en attente
+        }
+        if (!hasFrame) return;
+        try {
+            writeFrame();   // dernière frame rejouée
+        } catch (IOException e) {
+            disconnect();
+            throw e;
+        }
+    }
+
+    /** Nom du client, version négociée, contrôleurs décrits puis passés en mode Direct (flux bloquant). */
+    private static Controller[] handshake(SocketChannel ch) throws IOException {
+        InputStream in = ch.socket().getInputStream();
+        byte[] name = "LightingDesigner\0".getBytes(StandardCharsets.US_ASCII);
+        write(ch, packet(0, SET_CLIENT_NAME, name.length).put(name));
+        write(ch, packet(0, REQUEST_PROTOCOL_VERSION, 4).putInt(PROTOCOL_VERSION));
+        int protocol;
+        try {
+            protocol = Math.min(PROTOCOL_VERSION, reply(in, REQUEST_PROTOCOL_VERSION).getInt());
+        } catch (SocketTimeoutException e) {
+            protocol = 0;   // serveur antérieur à la négociation : il ne répond pas
+        }
+        write(ch, packet(0, REQUEST_CONTROLLER_COUNT, 0));
+        int count = reply(in, REQUEST_CONTROLLER_COUNT).getInt();
+        List<Controller> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            write(ch, protocol > 0 ? packet(i, REQUEST_CONTROLLER_DATA, 4).putInt(protocol)
+                    : packet(i, REQUEST_CONTROLLER_DATA, 0));
+            Controller c = parseController(i, reply(in, REQUEST_CONTROLLER_DATA), protocol);
+            if (c.ledSource.length == 0) continue;
+            write(ch, packet(i, SETCUSTOMMODE, 0));
+            out.add(c);
+        }
+        return out.toArray(new Controller[0]);
+    }
+
+    /** En-tête prêt, position au début des données. */
+    static ByteBuffer packet(int device, int id, int dataSize) {
+        return ByteBuffer.allocate(HEADER_SIZE + dataSize).order(ByteOrder.LITTLE_ENDIAN)
+                .put((byte) 'O').put((byte) 'R').put((byte) 'G').put((byte) 'B')
+                .putInt(device).putInt(id).putInt(dataSize);
+    }
+
+    private static void write(SocketChannel ch, ByteBuffer packet) throws IOException {
+        packet.flip();
+        while (packet.hasRemaining()) ch.write(packet);
+    }
+
+    /** Données de la prochaine réponse id (autres paquets ignorés). */
+    private static ByteBuffer reply(InputStream in, int id) throws IOException {
+        while (true) {
+            ByteBuffer h = ByteBuffer.wrap(readFully(in, HEADER_SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+            if (h.get(0) != 'O' || h.get(1) != 'R' || h.get(2) != 'G' || h.get(3) != 'B') {
+                throw new IOException("en-tête OpenRGB invalide");
+            }
+            int packetId = h.getInt(8);
+            int size = h.getInt(12);
+            if (size < 0 || size > (1 << 24)) throw new IOException("paquet OpenRGB trop grand: " + size);
+            byte[] data = readFully(in, size);
+            if (packetId == id) return ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private static byte[] readFully(InputStream in, int n) throws IOException {
+        byte[] b = in.readNBytes(n);
+        if (b.length < n) throw new EOFException("connexion fermée par le serveur");
+        return b;
+    }
+
+    /** Description d'un contrôleur (protocole 0 à 3) → correspondance LED → matrice et paquet UPDATELEDS. */
+    static Controller parseController(int index, ByteBuffer b, int protocol) {
+        b.getInt();                                   // data_size
+        b.getInt();                                   // type
+        String name = string(b);
+        if (protocol >= 1) string(b);                 // vendor
+        for (int i = 0; i < 4; i++) string(b);        // description, version, serial, location
+        int modes = u16(b);
+        b.getInt();                                   // mode actif
+        for (int m = 0; m < modes; m++) {
+            string(b);
+            // value, flags, speed min/max, [brightness min/max], colors min/max, speed, [brightness], direction, color mode
+            skip(b, 4 * (protocol >= 3 ? 12 : 9));
+            skip(b, 4 * u16(b));                      // couleurs du mode
+        }
+        int zoneCount = u16(b);
+        List<Zone> zones = new ArrayList<>(zoneCount);
+        int start = 0;
+        for (int z = 0; z < zoneCount; z++) {
+            string(b);
+            int type = b.getInt();
+            b.getInt();                               // leds min
+            b.getInt();                               // leds max
+            int count = b.getInt();
+            int matrixBytes = u16(b);
+            int h = 0, w = 0;
+            int[] map = null;
+            if (matrixBytes > 0) {
+                h = b.getInt();
+                w = b.getInt();
+                map = new int[h * w];
+                for (int i = 0; i < map.length; i++) map[i] = b.getInt();
+            }
+            zones.add(new Zone(type, start, count, h, w, map));
+            start += count;
+        }
+        int leds = u16(b);
+        return new Controller(index, name, List.copyOf(zones), mapLeds(zones, leds, 0, 0, COLS - 1),
+                updateLedsPacket(index, leds));
+    }
+
+    // Correspondance recalculée en place (le tableau est celui que lit writeFrame)
+    private void remap(Controller c) {
+        int[] source = mapLeds(c.zones, c.ledSource.length, barRow, barFirst, barLast);
+        System.arraycopy(source, 0, c.ledSource, 0, source.length);
+    }
+
+    /**
+     * Case de la matrice 6x22 (r * 22 + c) de chaque LED ; -1 = hors grille, éteinte.
+     * Zones linéaires : étirées sur la barre barRow, colonnes first → last.
+     */
+    static int[] mapLeds(List<Zone> zones, int leds, int barRow, int first, int last) {
+        int[] source = new int[leds];
+        Arrays.fill(source, -1);
+        for (Zone z : zones) {
+            if (z.type == ZONE_MATRIX && z.map != null && z.height > 0 && z.width > 0) {
+                // Centre de chaque case de la grille du contrôleur → case de la matrice logique
+                for (int y = 0; y < z.height; y++) {
+                    int row = (2 * y + 1) * ROWS / (2 * z.height);
+                    for (int x = 0; x < z.width; x++) {
+                        int led = z.map[y * z.width + x];
+                        if (led < 0 || led >= z.count || z.start + led >= leds) continue;
+                        source[z.start + led] = row * COLS + (2 * x + 1) * COLS / (2 * z.width);
+                    }
+                }
+            } else {
+                StripSink.mapZone(source, z.start, z.count, false, barRow, first, last);
+            }
+        }
+        return source;
+    }
+
+    /** UPDATELEDS d'un contrôleur : en-tête et tailles écrits une fois, couleurs réécrites à chaque frame. */
+    static ByteBuffer updateLedsPacket(int index, int leds) {
+        int dataSize = 4 + 2 + 4 * leds;
+        ByteBuffer p = ByteBuffer.allocateDirect(HEADER_SIZE + dataSize).order(ByteOrder.LITTLE_ENDIAN);
+        p.put((byte) 'O').put((byte) 'R').put((byte) 'G').put((byte) 'B')
+                .putInt(index).putInt(UPDATELEDS).putInt(dataSize)
+                .putInt(dataSize).putShort((short) leds);
+        return p.clear();
+    }
+
+    private static String string(ByteBuffer b) {
+        int len = u16(b);
+        byte[] s = new byte[len];
+        b.get(s);
+        int end = len > 0 && s[len - 1] == 0 ? len - 1 : len;
+        return new String(s, 0, end, StandardCharsets.UTF_8);
+    }
+
+    private static int u16(ByteBuffer b) {
+        return Short.toUnsignedInt(b.getShort());
+    }
+
+    private static void skip(ByteBuffer b, int n) {
+        b.position(b.position() + n);
+    }
+}
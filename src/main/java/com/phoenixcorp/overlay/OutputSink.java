@@ -0,0 +1,55 @@
+package com.phoenixcorp.overlay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sortie LEDs pilotée par LightingRuntime (Chroma, OpenRGB...).
+ * - connectAsync : connexion en tâche de fond, jamais sur le thread de sortie
+ * - keyboard / devices : appelés sur le thread de sortie, sous verrou runtime ; ne doivent pas bloquer
+ *   au-delà d'un envoi (une sortie injoignable rend false et se reconnecte d'elle-même). Une frame refusée
+ *   est représentée à cette sortie aux ticks suivants, jusqu'à ce qu'elle la prenne
+ * - les matrices reçues ne doivent pas être modifiées
+ */
+public interface OutputSink extends AutoCloseable {
+
+    String name();
+
+    /** false si la sortie est injoignable ; les envois suivants retenteront. */
+    CompletableFuture<Boolean> connectAsync();
+
+    /**
+     * Frame clavier 6x22 (BGR). source / renderedNanos (facultatifs) servent au budget de latence
+     * et aux mesures. Retourne false si la frame n'a pas été envoyée.
+     */
+    boolean keyboard(int[][] matrixBgr, OcrReader.Snapshot source, long renderedNanos);
+
+    /**
+     * Frames à plat des autres périphériques (index = Device.ordinal(), null = ignoré).
+     * false si une frame n'a pas été prise : le runtime la représentera au tick suivant.
+     */
+    default boolean devices(int[][] frames, OcrReader.Snapshot source) { return true; }
+
+    /** Fond statique des périphériques hors clavier. */
+    default void background(int bgr) { }
+
+    default void setLatencyBudgetMs(long ms) { }
+
+    /** Overrides du runtime (position des barres...) : à l'ajout de la sortie puis à chaque changement. */
+    default void overridesChanged(LightingOverrides overrides) { }
+
+    @Override
+    void close();
+
+    /**
+     * Sorties de config.json (outputs) hors Chroma, pour la session principale seulement : elles suivent ses
+     * overrides (position des barres). Les sessions nommées ne pilotent que le Chroma partagé.
+     */
+    static List<OutputSink> fromConfig(Config cfg) {
+        List<OutputSink> sinks = new ArrayList<>();
+        if (cfg.output("openrgb")) sinks.add(new OpenRgbSink(cfg.openRgbHostOrDefault(), cfg.openRgbPortOrDefault()));
+        if (cfg.output("strips") && cfg.strips != null && !cfg.strips.isEmpty()) sinks.add(new StripSink(cfg.strips));
+        return sinks;
+    }
+}
@@ -0,0 +1,99 @@
+package com.phoenixcorp.overlay;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Événements Java Flight Recorder du pipeline OCR → rendu → Chroma.
+ * Usage : e.begin() ... e.end(); if (e.shouldCommit()) { champs; e.commit(); }
+ * → quasi gratuit quand JFR est inactif. Les seuils par défaut ne gardent que les événements lents.
+ */
+public final class PipelineEvents {
+    private PipelineEvents() {}
+
+    @Name("com.phoenixcorp.lighting.Capture")
+    @Label("Capture écran")
+    @Category({"LightingDesigner", "OCR"})
+    @StackTrace(false)
+    @Threshold("10 ms")
+    public static final class CaptureEvent extends Event {
+        @Label("Largeur") public int width;
+        @Label("Hauteur") public int height;
+    }
+
+    @Name("com.phoenixcorp.lighting.OcrPass")
+    @Label("Passe OCR")
+    @Category({"LightingDesigner", "OCR"})
+    @StackTrace(false)
+    @Threshold("50 ms")
+    public static final class OcrPassEvent extends Event {
+        @Label("Passe") public String tier;
+        @Label("Pixels en entrée") public int inputPixels;
+        @Label("Caractères lus") public int characters;
+    }
+
+    @Name("com.phoenixcorp.lighting.Parse")
+    @Label("Analyse du texte OCR")
+    @Category({"LightingDesigner", "OCR"})
+    @StackTrace(false)
+    @Threshold("1 ms")
+    public static final class ParseEvent extends Event {
+        @Label("Succès") public boolean success;
+        @Label("HP") public int hpCur;
+        @Label("HP max") public int hpMax;
+        @Label("Ressource") public int resCur;
+        @Label("Ressource max") public int resMax;
+        @Label("Type de ressource") public String resourceType;
+    }
+
+    @Name("com.phoenixcorp.lighting.OcrTick")
+    @Label("Tick OcrRunner")
+    @Category({"LightingDesigner", "OCR"})
+    @StackTrace(false)
+    @Threshold("100 ms")
+    public static final class OcrTickEvent extends Event {
+        @Label("Thread") public String runner;
+        @Label("Frame") public long seq;
+        @Label("Retard") @Description("Démarrage du tick après son échéance (scheduler en retard, attente d'un worker)")
+        @Timespan(Timespan.NANOSECONDS) public long late;
+        @Label("Ticks sautés") @Description("Ticks du runner partagé sautés depuis le précédent (tick encore en cours)")
+        public long skipped;
+    }
+
+    @Name("com.phoenixcorp.lighting.FrameRender")
+    @Label("Rendu frame")
+    @Category({"LightingDesigner", "Rendu"})
+    @StackTrace(false)
+    @Threshold("2 ms")
+    public static final class FrameRenderEvent extends Event {
+        @Label("Frame") public long seq;
+        @Label("Modifiée") public boolean changed;
+    }
+
+    @Name("com.phoenixcorp.lighting.FrameSend")
+    @Label("Envoi Chroma")
+    @Category({"LightingDesigner", "Chroma"})
+    @StackTrace(false)
+    @Threshold("20 ms")
+    public static final class FrameSendEvent extends Event {
+        @Label("Endpoint") public String endpoint;
+        @Label("Statut HTTP") @Description("-1 si exception") public int status;
+        @Label("Taille") @DataAmount public long bytes;
+    }
+
+    @Name("com.phoenixcorp.lighting.SessionReconnect")
+    @Label("Enregistrement session Chroma")
+    @Category({"LightingDesigner", "Chroma"})
+    @StackTrace(false)
+    public static final class SessionReconnectEvent extends Event {
+        @Label("Reconnexion") @Description("false = premier enregistrement") public boolean reconnect;
+        @Label("Succès") public boolean success;
+    }
+}
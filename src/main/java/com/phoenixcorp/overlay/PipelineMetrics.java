@@ -0,0 +1,114 @@
+package com.phoenixcorp.overlay;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Métriques du pipeline OCR → rendu → Chroma.
+ * Enregistrées dans le registre global Micrometer : Spring Boot y branche son registre
+ * (Actuator, /api/metrics) ; hors Spring (JavaFX) le registre est vide et tout est no-op.
+ */
+public final class PipelineMetrics {
+    private PipelineMetrics() {}
+
+    public static final MeterRegistry REGISTRY = Metrics.globalRegistry;
+
+    // Étapes : lighting.stage{stage=...}
+    public static final Timer CAPTURE = stage("capture");
+    public static final Timer OCR     = stage("ocr");
+    public static final Timer PARSE   = stage("parse");
+    public static final Timer RENDER  = stage("render");
+
+    // Frames non envoyées : détection de changement (delta < seuil, matrice identique)
+    public static final Counter SKIPPED_DELTA     = skipped("delta");
+    public static final Counter SKIPPED_UNCHANGED = skipped("unchanged");
+
+    // Frames perdues : tick OCR sauté (précédent encore en cours, runner partagé) ou lecture illisible
+    public static final Counter DROPPED_SKIPPED = dropped("skipped");
+    public static final Counter DROPPED_UNREADABLE = dropped("unreadable");
+    public static final Counter DROPPED_STALE = dropped("stale");   // âge > budget de latence avant envoi
+
+    // Ticks OCR démarrés au moins une période après leur échéance (rattrapés à la suite, pas perdus)
+    public static final Counter TICKS_LATE = Counter.builder("ocr.ticks.late")
+            .description("Ticks OCR démarrés avec au moins une période de retard")
+            .register(REGISTRY);
+
+    // Latence par segment : lighting.latency{span=capture_ocr|ocr_render|render_ack|end_to_end}
+    public static final Timer LATENCY_CAPTURE_OCR = latency("capture_ocr");
+    public static final Timer LATENCY_OCR_RENDER  = latency("ocr_render");
+    public static final Timer LATENCY_RENDER_ACK  = latency("render_ack");
+    public static final Timer LATENCY_END_TO_END  = latency("end_to_end");
+
+    // Respect du budget de latence : lighting.latency.budget{result=ok|violation}
+    public static final Counter BUDGET_OK        = budget("ok");
+    public static final Counter BUDGET_VIOLATION = budget("violation");
+
+    public static final Counter CHROMA_RECONNECTS = Counter.builder("chroma.reconnects")
+            .description("Ré-enregistrements de session Chroma")
+            .register(REGISTRY);
+    public static final Counter CHROMA_HEARTBEAT_FAILURES = Counter.builder("chroma.heartbeat.failures")
+            .description("Heartbeats Chroma en échec")
+            .register(REGISTRY);
+
+    /** Latence d'un appel REST Chroma par endpoint (keyboard, mouse, heartbeat...) et statut HTTP. */
+    public static Timer chromaPut(String endpoint, String status) {
+        return Timer.builder("chroma.put")
+                .tag("endpoint", endpoint)
+                .tag("status", status)
+                .publishPercentiles(0.5, 0.99)
+                .register(REGISTRY);
+    }
+
+    /** Frames confiées à une sortie LEDs hors Chroma (openrgb...) : sent, busy (socket pleine), error. */
+    public static Counter sinkFrames(String sink, String result) {
+        return Counter.builder("lighting.sink.frames").tag("sink", sink).tag("result", result).register(REGISTRY);
+    }
+
+    /** Passes de la cascade OCR : ocr.tier{tier=fast|full|alt, result=hit|miss|fallback}. */
+    public static Counter ocrTier(String tier, String result) {
+        return Counter.builder("ocr.tier").tag("tier", tier).tag("result", result).register(REGISTRY);
+    }
+
+    /** Durée d'une passe OCR (Tesseract seul) : ocr.tier.time{tier}. */
+    public static Timer ocrTierTime(String tier) {
+        return Timer.builder("ocr.tier.time").tag("tier", tier).publishPercentiles(0.5, 0.99).register(REGISTRY);
+    }
+
+    /** Lectures d'un extracteur de stat : ocr.extractor.reads{extractor, result=ok|unreadable}. */
+    public static Counter extractorReads(String extractor, String result) {
+        return Counter.builder("ocr.extractor.reads").tag("extractor", extractor).tag("result", result).register(REGISTRY);
+    }
+
+    /** Durée d'une lecture d'extracteur (hors capture) : ocr.extractor.time{extractor}. */
+    public static Timer extractorTime(String extractor) {
+        return Timer.builder("ocr.extractor.time").tag("extractor", extractor).publishPercentiles(0.5, 0.99).register(REGISTRY);
+    }
+
+    private static Timer stage(String name) {
+        return Timer.builder("lighting.stage")
+                .tag("stage", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(REGISTRY);
+    }
+
+    private static Timer latency(String span) {
+        return Timer.builder("lighting.latency")
+                .tag("span", span)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(REGISTRY);
+    }
+
+    private static Counter budget(String result) {
+        return Counter.builder("lighting.latency.budget").tag("result", result).register(REGISTRY);
+    }
+
+    private static Counter skipped(String reason) {
+        return Counter.builder("lighting.frames.skipped").tag("reason", reason).register(REGISTRY);
+    }
+
+    private static Counter dropped(String reason) {
+        return Counter.builder("lighting.frames.dropped").tag("reason", reason).register(REGISTRY);
+    }
+}
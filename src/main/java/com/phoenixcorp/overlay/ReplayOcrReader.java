@@ -0,0 +1,141 @@
+package com.phoenixcorp.overlay;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * OcrReader qui rejoue une suite de snapshots, sans Tesseract : pour mesurer tout ce qui suit l'OCR.
+ * Sources : journal de session (SessionLog, fichier ou dossier), CSV, ou suite générée paramétrable.
+ * Les snapshots sont construits d'avance : read() n'alloue pas (hors estampillage par l'appelant).
+ */
+public final class ReplayOcrReader implements OcrReader {
+
+    private final Snapshot[] frames;
+    private final boolean loop;
+    private int next;
+
+    public ReplayOcrReader(List<Snapshot> frames, boolean loop) {
+        if (frames.isEmpty()) throw new IllegalArgumentException("Aucun snapshot à rejouer");
+        this.frames = frames.toArray(new Snapshot[0]);
+        this.loop = loop;
+    }
+
+    /** Journal binaire (segment unique, export, ou dossier de segments). */
+    public static ReplayOcrReader fromSessionLog(Path path, boolean loop) throws IOException {
+        List<SessionLog.Record> records = Files.isDirectory(path)
+                ? SessionLog.read(path, Long.MIN_VALUE, Long.MAX_VALUE)
+                : SessionLog.read(path);
+        List<Snapshot> out = new ArrayList<>(records.size());
+        for (SessionLog.Record r : records) out.add(r.toSnapshot());
+        return new ReplayOcrReader(out, loop);
+    }
+
+    /**
+     * CSV avec en-tête (colonnes hpCur, hpMax, resCur, resMax, type ; les autres sont ignorées, cf. export csv)
+     * ou sans en-tête : hpCur,hpMax,resCur,resMax[,type].
+     */
+    public static ReplayOcrReader fromCsv(Path path, boolean loop) throws IOException {
+        List<Snapshot> out = new ArrayList<>();
+        try (BufferedReader r = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            Map<String, Integer> cols = null;
+            int lineNo = 0;
+            for (String line; (line = r.readLine()) != null; ) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] f = line.split("\\s*,\\s*");
+                if (cols == null) {
+                    cols = new HashMap<>();
+                    if (!Character.isDigit(f[0].charAt(0))) {
+                        for (int i = 0; i < f.length; i++) cols.put(f[i].toLowerCase(Locale.ROOT), i);
+                        continue;
+                    }
+                    String[] defaults = {"hpcur", "hpmax", "rescur", "resmax", "type"};
+                    for (int i = 0; i < defaults.length; i++) cols.put(defaults[i], i);
+                }
+                try {
+                    out.add(new Snapshot(
+                            Integer.parseInt(f[cols.getOrDefault("hpcur", 0)]),
+                            Integer.parseInt(f[cols.getOrDefault("hpmax", 1)]),
+                            Integer.parseInt(f[cols.getOrDefault("rescur", 2)]),
+                            Integer.parseInt(f[cols.getOrDefault("resmax", 3)]),
+                            type(f, cols.get("type"))));
+                } catch (RuntimeException e) {
+                    throw new IOException(path.getFileName() + ":" + lineNo + ": ligne invalide (" + e.getMessage() + ")");
+                }
+            }
+        }
+        return new ReplayOcrReader(out, loop);
+    }
+
+    /** Choisit la source d'après le nom : *.csv, sinon journal binaire. */
+    public static ReplayOcrReader fromFile(Path path, boolean loop) throws IOException {
+        return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv")
+                ? fromCsv(path, loop)
+                : fromSessionLog(path, loop);
+    }
+
+    /**
+     * Suite générée (comme FakeOcrReader, mais paramétrée et reproductible).
+     * @param frames        nombre de snapshots
+     * @param hpPeriod      période de l'oscillation HP, en frames
+     * @param resPeriod     période de l'oscillation ressource, en frames
+     * @param typeEvery     changement de type de ressource toutes les n frames (0 = jamais)
+     * @param noisePct      bruit aléatoire ajouté aux pourcentages (0.02 = ±2 %)
+     * @param seed          graine du bruit
+     */
+    public static ReplayOcrReader synthetic(int frames, double hpPeriod, double resPeriod, int typeEvery,
+                                            double noisePct, long seed) {
+        Random rnd = new Random(seed);
+        ResourceType[] cycle = {ResourceType.MANA, ResourceType.RAGE, ResourceType.ENERGY, ResourceType.RUNIC_POWER};
+        int hpMax = 1000, resMax = 1000;
+        List<Snapshot> out = new ArrayList<>(frames);
+        for (int t = 0; t < frames; t++) {
+            double hpPct = 0.6 + 0.4 * Math.sin(2 * Math.PI * t / hpPeriod) + noisePct * (2 * rnd.nextDouble() - 1);
+            double resPct = Math.abs(Math.sin(2 * Math.PI * t / resPeriod)) + noisePct * (2 * rnd.nextDouble() - 1);
+            ResourceType type = typeEvery > 0 ? cycle[(t / typeEvery) % cycle.length] : ResourceType.MANA;
+            out.add(new Snapshot(clamp(hpPct, hpMax), hpMax, clamp(resPct, resMax), resMax, type));
+        }
+        return new ReplayOcrReader(out, true);
+    }
+
+    @Override
+    public Snapshot read() {
+        if (next == frames.length) {
+            if (!loop) return null;
+            next = 0;
+        }
+        return frames[next++];
+    }
+
+    /** Fin de la suite atteinte (jamais en boucle). */
+    public boolean exhausted() {
+        return !loop && next == frames.length;
+    }
+
+    public int size() {
+        return frames.length;
+    }
+
+    private static ResourceType type(String[] f, Integer col) {
+        if (col == null || col >= f.length) return ResourceType.MANA;
+        try {
+            return ResourceType.valueOf(f[col].trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResourceType.UNKNOWN;
+        }
+    }
+
+    private static int clamp(double pct, int max) {
+        return (int) Math.round(Math.max(0.0, Math.min(1.0, pct)) * max);
+    }
+}
@@ -6,7 +6,8 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.time.Duration;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public class SelectCaptureArea {
 
@@ -19,69 +20,94 @@ public class SelectCaptureArea {
         return selectInteractiveForApi(Duration.ofSeconds(15));
     }
 
+    /** Variante bloquante (appelant hors EDT) : attend la fin de la sélection ou le timeout. */
     public static SelectionResult selectInteractiveForApi(Duration timeout) {
         try {
-            final Rectangle[] result = { null };
-            final Object lock = new Object();
-            final AtomicBoolean completed = new AtomicBoolean(false);
+            return selectAsync(timeout).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new SelectionResult(null, true);
+        } catch (Throwable t) {
+            System.err.println("[SelectCaptureArea] " + t.getMessage());
+            return new SelectionResult(null, false);
+        }
+    }
 
+    /**
+     * Ouvre l'overlay et rend la main tout de suite : le future est complété par le callback Swing
+     * (relâchement souris) ou par le timeout, qui ferme alors l'overlay. Aucun thread n'attend.
+     */
+    public static CompletableFuture<SelectionResult> selectAsync(Duration timeout) {
+        String awt = AwtSupport.reason();
+        if (awt != null) {
+            // Pas d'overlay possible : zone à saisir dans config.json (ocrX/ocrY/ocrW/ocrH, rechargé à chaud)
+            return CompletableFuture.failedFuture(new HeadlessException(awt));
+        }
+        final CompletableFuture<SelectionResult> future = new CompletableFuture<>();
+        final JWindow[] window = { null };
+        long timeoutMillis = timeout == null ? 15000L : Math.max(1000L, timeout.toMillis());
+        // timeout sécu
+        future.completeOnTimeout(new SelectionResult(null, true), timeoutMillis, TimeUnit.MILLISECONDS);
+        future.whenComplete((r, t) -> SwingUtilities.invokeLater(() -> {
+            if (window[0] != null) window[0].dispose();
+        }));
+
+        try {
             SwingUtilities.invokeLater(() -> {
-                JWindow overlay = new JWindow();
-                overlay.setAlwaysOnTop(true);
-                overlay.setBackground(new Color(0,0,0,10));
+                if (future.isDone()) return;
+                try {
+                    JWindow overlay = new JWindow();
+                    window[0] = overlay;
+                    overlay.setAlwaysOnTop(true);
+                    overlay.setBackground(new Color(0,0,0,10));
 
-                GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-                Rectangle bounds = ge.getMaximumWindowBounds();
-                overlay.setBounds(bounds);
+                    GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
+                    Rectangle bounds = ge.getMaximumWindowBounds();
+                    overlay.setBounds(bounds);
 
-                JPanel panel = new JPanel() {
-                    { setOpaque(false); }
-                    Point start, end;
-                    @Override protected void paintComponent(Graphics g) {
-                        super.paintComponent(g);
-                        if (start != null && end != null) {
-                            int x = Math.min(start.x, end.x), y = Math.min(start.y, end.y);
-                            int w = Math.abs(end.x - start.x), h = Math.abs(end.y - start.y);
-                            g.setColor(new Color(0, 120, 215, 80));  g.fillRect(x,y,w,h);
-                            g.setColor(new Color(0, 120, 215, 200)); g.drawRect(x,y,w,h);
+                    JPanel panel = new JPanel() {
+                        { setOpaque(false); }
+                        Point start, end;
+                        @Override protected void paintComponent(Graphics g) {
+                            super.paintComponent(g);
+                            if (start != null && end != null) {
+                                int x = Math.min(start.x, end.x), y = Math.min(start.y, end.y);
+                                int w = Math.abs(end.x - start.x), h = Math.abs(end.y - start.y);
+                                g.setColor(new Color(0, 120, 215, 80));  g.fillRect(x,y,w,h);
+                                g.setColor(new Color(0, 120, 215, 200)); g.drawRect(x,y,w,h);
+                            }
                         }
-                    }
-                };
+                    };
 
-                panel.addMouseListener(new MouseAdapter() {
-                    @Override public void mousePressed(MouseEvent e) { panel.putClientProperty("start", e.getPoint()); }
-                    @Override public void mouseReleased(MouseEvent e) {
-                        Point s = (Point) panel.getClientProperty("start");
-                        if (s != null) {
-                            int x = Math.min(s.x, e.getX()), y = Math.min(s.y, e.getY());
-                            int w = Math.abs(e.getX() - s.x), h = Math.abs(e.getY() - s.y);
-                            result[0] = new Rectangle(x, y, w, h);
+                    panel.addMouseListener(new MouseAdapter() {
+                        @Override public void mousePressed(MouseEvent e) { panel.putClientProperty("start", e.getPoint()); }
+                        @Override public void mouseReleased(MouseEvent e) {
+                            Point s = (Point) panel.getClientProperty("start");
+                            Rectangle area = null;
+                            if (s != null) {
+                                int x = Math.min(s.x, e.getX()), y = Math.min(s.y, e.getY());
+                                int w = Math.abs(e.getX() - s.x), h = Math.abs(e.getY() - s.y);
+                                area = new Rectangle(x, y, w, h);
+                            }
+                            overlay.dispose();
+                            future.complete(new SelectionResult(area, false));
                         }
-                        overlay.dispose();
-                        completed.set(true);
-                        synchronized (lock) { lock.notifyAll(); }
-                    }
-                });
+                    });
 
-                panel.addMouseMotionListener(new MouseAdapter() {
-                    @Override public void mouseDragged(MouseEvent e) { panel.putClientProperty("end", e.getPoint()); panel.repaint(); }
-                });
+                    panel.addMouseMotionListener(new MouseAdapter() {
+                        @Override public void mouseDragged(MouseEvent e) { panel.putClientProperty("end", e.getPoint()); panel.repaint(); }
+                    });
 
-                overlay.setContentPane(panel);
-                overlay.setVisible(true);
+                    overlay.setContentPane(panel);
+                    overlay.setVisible(true);
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
             });
-
-            long timeoutMillis = timeout == null ? 15000L : Math.max(1000L, timeout.toMillis());
-            synchronized (lock) { lock.wait(timeoutMillis); } // timeout sécu
-            boolean timedOut = !completed.get();
-            return new SelectionResult(result[0], timedOut);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return new SelectionResult(null, true);
         } catch (Throwable t) {
-            System.err.println("[SelectCaptureArea] " + t.getMessage());
-            return new SelectionResult(null, false);
+            future.completeExceptionally(t);
         }
+        return future;
     }
 
     public record SelectionResult(Rectangle area, boolean timedOut) {
@@ -0,0 +1,188 @@
+package com.phoenixcorp.overlay;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Format des journaux de session écrits par SessionRecorder, et lecture.
+ * Segment = en-tête 32 octets (magic "LDSESS01", version, taille d'enregistrement, début en ms epoch,
+ * nombre d'enregistrements valides) + enregistrements de 48 octets, little-endian :
+ *   0 temps (ms epoch) | 8 seq | 16 hpCur | 20 hpMax | 24 resCur | 28 resMax | 32 type (ordinal)
+ *   33 flags | 36 hash de la frame clavier | 40 envoi rendu→ack (µs) | 44 capture→ack (µs)
+ * Un export (/api/recorder/export) est un segment unique : même lecteur.
+ * En ligne de commande : java ... SessionLog <fichier.bin|dossier> [deMs àMs] → CSV sur la sortie standard.
+ */
+public final class SessionLog {
+    private SessionLog() {}
+
+    static final long MAGIC = 0x31305353_4553444CL;   // "LDSESS01" lu en little-endian
+    static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 48;
+
+    static final int H_MAGIC = 0, H_VERSION = 8, H_RECORD_SIZE = 12, H_START = 16, H_COUNT = 24;
+    static final int R_TIME = 0, R_SEQ = 8, R_HP_CUR = 16, R_HP_MAX = 20, R_RES_CUR = 24, R_RES_MAX = 28,
+                     R_TYPE = 32, R_FLAGS = 33, R_HASH = 36, R_SEND = 40, R_E2E = 44;
+
+    // Devenir de la frame
+    public static final int SENT = 1;               // envoyée au clavier
+    public static final int SKIPPED_DELTA = 2;      // variation HP/ressource sous le seuil
+    public static final int SKIPPED_UNCHANGED = 4;  // matrice identique à la précédente
+    public static final int STALE = 8;              // trop vieille (budget de latence), non envoyée
+
+    private static final OcrReader.ResourceType[] TYPES = OcrReader.ResourceType.values();
+
+    public record Record(long timeMillis, long seq, int hpCur, int hpMax, int resCur, int resMax,
+                         OcrReader.ResourceType type, int flags, int frameHash, int sendMicros, int endToEndMicros) {
+        public OcrReader.Snapshot toSnapshot() {
+            return new OcrReader.Snapshot(hpCur, hpMax, resCur, resMax, type);
+        }
+
+        public String flagsText() {
+            if ((flags & SENT) != 0) return "sent";
+            if ((flags & SKIPPED_DELTA) != 0) return "delta";
+            if ((flags & SKIPPED_UNCHANGED) != 0) return "unchanged";
+            if ((flags & STALE) != 0) return "stale";
+            return "-";
+        }
+    }
+
+    static void writeHeader(ByteBuffer b, long startMillis) {
+        b.putLong(H_MAGIC, MAGIC);
+        b.putInt(H_VERSION, VERSION);
+        b.putInt(H_RECORD_SIZE, RECORD_SIZE);
+        b.putLong(H_START, startMillis);
+        b.putInt(H_COUNT, 0);
+    }
+
+    static Record decode(ByteBuffer b, int pos) {
+        int type = b.get(pos + R_TYPE) & 0xFF;
+        return new Record(b.getLong(pos + R_TIME), b.getLong(pos + R_SEQ),
+                b.getInt(pos + R_HP_CUR), b.getInt(pos + R_HP_MAX), b.getInt(pos + R_RES_CUR), b.getInt(pos + R_RES_MAX),
+                type < TYPES.length ? TYPES[type] : OcrReader.ResourceType.UNKNOWN,
+                b.get(pos + R_FLAGS) & 0xFF, b.getInt(pos + R_HASH), b.getInt(pos + R_SEND), b.getInt(pos + R_E2E));
+    }
+
+    /** Segments d'un dossier, du plus ancien au plus récent (noms horodatés). */
+    public static List<Path> segments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(p -> p.getFileName().toString().endsWith(".bin")).sorted().toList();
+        }
+    }
+
+    /** Parcourt les enregistrements valides de file dont le temps est dans [fromMillis, toMillis]. */
+    public static void forEach(Path file, long fromMillis, long toMillis, Consumer<Record> action) throws IOException {
+        ByteBuffer all;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && ch.read(header) > 0) { }
+            if (header.position() < HEADER_SIZE || header.getLong(H_MAGIC) != MAGIC) {
+                throw new IOException("Pas un journal de session: " + file.getFileName());
+            }
+            if (header.getInt(H_RECORD_SIZE) != RECORD_SIZE) {
+                throw new IOException("Taille d'enregistrement inattendue (" + header.getInt(H_RECORD_SIZE) + "): " + file.getFileName());
+            }
+            int count = header.getInt(H_COUNT);
+            long available = (ch.size() - HEADER_SIZE) / RECORD_SIZE;
+            count = (int) Math.max(0, Math.min(count, available));
+            all = ByteBuffer.allocate(count * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (all.hasRemaining() && ch.read(all, HEADER_SIZE + all.position()) > 0) { }
+        }
+        for (int pos = 0; pos + RECORD_SIZE <= all.position(); pos += RECORD_SIZE) {
+            long t = all.getLong(pos + R_TIME);
+            if (t >= fromMillis && t <= toMillis) action.accept(decode(all, pos));
+        }
+    }
+
+    public static List<Record> read(Path file) throws IOException {
+        List<Record> out = new ArrayList<>();
+        forEach(file, Long.MIN_VALUE, Long.MAX_VALUE, out::add);
+        return out;
+    }
+
+    /** Enregistrements de tous les segments de dir sur la fenêtre [fromMillis, toMillis], dans l'ordre. */
+    public static List<Record> read(Path dir, long fromMillis, long toMillis) throws IOException {
+        List<Record> out = new ArrayList<>();
+        for (Path seg : segments(dir)) {
+            try {
+                forEach(seg, fromMillis, toMillis, out::add);
+            } catch (IOException e) {
+                System.err.println("[Recorder] segment ignoré: " + e.getMessage());
+            }
+        }
+        out.sort(Comparator.comparingLong(Record::timeMillis)); // plusieurs enregistreurs dans le même dossier
+        return out;
+    }
+
+    /** Segment autonome contenant records (format d'export). */
+    public static byte[] toSegment(List<Record> records) {
+        ByteBuffer b = ByteBuffer.allocate(HEADER_SIZE + records.size() * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        writeHeader(b, records.isEmpty() ? 0L : records.get(0).timeMillis());
+        int pos = HEADER_SIZE;
+        for (Record r : records) {
+            b.putLong(pos + R_TIME, r.timeMillis());
+            b.putLong(pos + R_SEQ, r.seq());
+            b.putInt(pos + R_HP_CUR, r.hpCur());
+            b.putInt(pos + R_HP_MAX, r.hpMax());
+            b.putInt(pos + R_RES_CUR, r.resCur());
+            b.putInt(pos + R_RES_MAX, r.resMax());
+            b.put(pos + R_TYPE, (byte) r.type().ordinal());
+            b.put(pos + R_FLAGS, (byte) r.flags());
+            b.putInt(pos + R_HASH, r.frameHash());
+            b.putInt(pos + R_SEND, r.sendMicros());
+            b.putInt(pos + R_E2E, r.endToEndMicros());
+            pos += RECORD_SIZE;
+        }
+        b.putInt(H_COUNT, records.size());
+        return b.array();
+    }
+
+    public static void writeCsv(List<Record> records, Appendable out) throws IOException {
+        out.append("timeMillis,seq,hpCur,hpMax,resCur,resMax,type,outcome,frameHash,sendMicros,endToEndMicros\n");
+        for (Record r : records) {
+            out.append(Long.toString(r.timeMillis())).append(',')
+               .append(Long.toString(r.seq())).append(',')
+               .append(Integer.toString(r.hpCur())).append(',')
+               .append(Integer.toString(r.hpMax())).append(',')
+               .append(Integer.toString(r.resCur())).append(',')
+               .append(Integer.toString(r.resMax())).append(',')
+               .append(r.type().name()).append(',')
+               .append(r.flagsText()).append(',')
+               .append(Integer.toHexString(r.frameHash())).append(',')
+               .append(Integer.toString(r.sendMicros())).append(',')
+               .append(Integer.toString(r.endToEndMicros())).append('\n');
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: SessionLog <fichier.bin|dossier> [deMs àMs]");
+            System.exit(2);
+        }
+        Path path = Path.of(args[0]);
+        long from = args.length > 1 ? Long.parseLong(args[1]) : Long.MIN_VALUE;
+        long to = args.length > 2 ? Long.parseLong(args[2]) : Long.MAX_VALUE;
+        List<Record> records;
+        if (Files.isDirectory(path)) {
+            records = read(path, from, to);
+        } else {
+            records = new ArrayList<>();
+            forEach(path, from, to, records::add);
+        }
+        PrintStream out = System.out;
+        writeCsv(records, out);
+        out.flush();
+    }
+}
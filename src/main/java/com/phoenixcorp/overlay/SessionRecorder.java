@@ -0,0 +1,144 @@
+package com.phoenixcorp.overlay;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+import static com.phoenixcorp.overlay.SessionLog.*;
+
+/**
+ * Enregistreur de session toujours actif : un enregistrement de 48 octets par snapshot (valeurs, devenir
+ * de la frame, hash de la matrice, latences d'envoi) dans des segments mappés en mémoire qui tournent.
+ * - écriture = quelques put dans le mapping : ni allocation ni appel système par enregistrement
+ *   (l'OS écrit les pages ; elles survivent à un crash du process)
+ * - SEGMENT_RECORDS enregistrements par segment (~3 Mo, ~1 h 50 à 10 Hz), MAX_SEGMENTS gardés
+ * - ouverture paresseuse au premier enregistrement ; erreur d'E/S → enregistreur désactivé, pipeline intact
+ * Format et lecture : SessionLog.
+ */
+public final class SessionRecorder implements AutoCloseable {
+
+    static final int SEGMENT_RECORDS = 1 << 16;
+    static final int MAX_SEGMENTS = 8;
+
+    private final Path dir;
+    private final String name;
+    private MappedByteBuffer buf;
+    private int count;
+    private boolean disabled;
+    private long lastSegmentMillis;   // noms de segment uniques et croissants, même à plein débit (replay)
+
+    public SessionRecorder(Path dir, String name) {
+        this.dir = dir;
+        this.name = name;
+    }
+
+    /** ~/.lightingdesigner/sessions */
+    public static Path defaultDir() {
+        return Paths.get(System.getProperty("user.home"), ".lightingdesigner", "sessions");
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    /**
+     * Ajoute un enregistrement ; flags = SessionLog.SENT / SKIPPED_* / STALE.
+     * sendNanos = rendu → ack Chroma, endToEndNanos = capture → ack (0 si non envoyée).
+     */
+    public synchronized void record(OcrReader.Snapshot s, int flags, int frameHash, long sendNanos, long endToEndNanos) {
+        if (disabled || s == null) return;
+        if (buf == null || count == SEGMENT_RECORDS) {
+            if (!rotate()) return;
+        }
+        int pos = HEADER_SIZE + count * RECORD_SIZE;
+        MappedByteBuffer b = buf;
+        b.putLong(pos + R_TIME, System.currentTimeMillis());
+        b.putLong(pos + R_SEQ, s.seq);
+        b.putInt(pos + R_HP_CUR, s.hpCur);
+        b.putInt(pos + R_HP_MAX, s.hpMax);
+        b.putInt(pos + R_RES_CUR, s.resCur);
+        b.putInt(pos + R_RES_MAX, s.resMax);
+        b.put(pos + R_TYPE, (byte) s.type.ordinal());
+        b.put(pos + R_FLAGS, (byte) flags);
+        b.putInt(pos + R_HASH, frameHash);
+        b.putInt(pos + R_SEND, micros(sendNanos));
+        b.putInt(pos + R_E2E, micros(endToEndNanos));
+        // Compteur mis à jour après l'enregistrement : un lecteur ne voit jamais un enregistrement à moitié écrit
+        b.putInt(H_COUNT, ++count);
+    }
+
+    /** Hash de la frame clavier (sans allocation). */
+    public static int hash(int[][] matrix) {
+        if (matrix == null) return 0;
+        int h = 1;
+        for (int[] row : matrix) {
+            for (int v : row) h = 31 * h + v;
+        }
+        return h;
+    }
+
+    /** Écrit les pages du segment courant sur disque (avant un export, à l'arrêt). */
+    public synchronized void flush() {
+        if (buf != null) buf.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        buf = null;
+        disabled = true;
+    }
+
+    private boolean rotate() {
+        try {
+            if (buf != null) buf.force();
+            Files.createDirectories(dir);
+            lastSegmentMillis = Math.max(System.currentTimeMillis(), lastSegmentMillis + 1);
+            String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date(lastSegmentMillis));
+            Path file = dir.resolve(name + "-" + stamp + ".bin");
+            long size = HEADER_SIZE + (long) SEGMENT_RECORDS * RECORD_SIZE;
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // Le mapping reste valide après la fermeture du canal
+                buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            writeHeader(buf, System.currentTimeMillis());
+            count = 0;
+            prune();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[Recorder] désactivé: " + e.getMessage());
+            buf = null;
+            disabled = true;
+            return false;
+        }
+    }
+
+    // Garde les MAX_SEGMENTS plus récents de cet enregistreur (un segment encore mappé peut résister sous Windows)
+    private void prune() throws IOException {
+        String own = java.util.regex.Pattern.quote(name) + "-\\d{8}-\\d{6}-\\d{3}\\.bin";
+        List<Path> mine = segments(dir).stream()
+                .filter(p -> p.getFileName().toString().matches(own))
+                .toList();
+        for (int i = 0; i < mine.size() - MAX_SEGMENTS; i++) {
+            try {
+                Files.deleteIfExists(mine.get(i));
+            } catch (IOException e) {
+                System.err.println("[Recorder] suppression impossible: " + mine.get(i).getFileName());
+            }
+        }
+    }
+
+    private static int micros(long nanos) {
+        return nanos <= 0 ? 0 : (int) Math.min(Integer.MAX_VALUE, nanos / 1000);
+    }
+}
@@ -0,0 +1,214 @@
+package com.phoenixcorp.overlay;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Diffusion des snapshots OCR à leurs consommateurs (sortie Chroma, métriques, aperçus...).
+ * - publish() ne bloque jamais : le snapshot est déposé dans le tampon borné de chaque abonné
+ * - chaque abonné est servi dans l'ordre par son propre drain (thread virtuel) : un abonné lent
+ *   ne retarde ni la capture ni les autres abonnés ; Drain.PLATFORM pour un abonné qui bloque sous un verrou
+ *   moniteur (envoi LEDs) : un thread virtuel y épinglerait son porteur (JDK 21)
+ * - débordement : DROP_OLDEST (anneau de capacity, le plus ancien est écrasé) ou LATEST_ONLY
+ *   (capacité 1 : seul le dernier en attente compte)
+ * - par abonné : publiés, livrés, perdus, en attente, retard publication → livraison
+ *   (Stats, et lighting.bus.* {bus, subscriber} dans Micrometer)
+ */
+public final class SnapshotBus implements Consumer<OcrReader.Snapshot>, AutoCloseable {
+
+    public enum Overflow { DROP_OLDEST, LATEST_ONLY }
+
+    /** Threads des drains : VIRTUAL (défaut) ou PLATFORM (E/S bloquantes sous synchronized). */
+    public enum Drain { VIRTUAL, PLATFORM }
+
+    /** Compteurs d'un abonné ; lag = publication → début de livraison. */
+    public record Stats(String subscriber, Overflow overflow, int capacity, long published, long delivered,
+                        long dropped, long errors, int pending, int maxPending, double lagMs, double maxLagMs) { }
+
+    private final String name;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ExecutorService drains;
+    private final ExecutorService platformDrains;
+    private volatile boolean closed;
+
+    public SnapshotBus(String name) {
+        this.name = name;
+        this.drains = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("bus-" + name + "-", 0).factory());
+        // Threads réutilisés d'un drain à l'autre (un drain s'arrête dès que son tampon est vide)
+        this.platformDrains = Executors.newCachedThreadPool(
+                Thread.ofPlatform().daemon().name("bus-" + name + "-p", 0).factory());
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** LATEST_ONLY ignore capacity (1). */
+    public Subscription subscribe(String subscriber, Overflow overflow, int capacity, Consumer<OcrReader.Snapshot> consumer) {
+        return subscribe(subscriber, overflow, capacity, Drain.VIRTUAL, consumer);
+    }
+
+    public Subscription subscribe(String subscriber, Overflow overflow, int capacity, Drain drain,
+                                  Consumer<OcrReader.Snapshot> consumer) {
+        if (closed) throw new IllegalStateException("Bus fermé: " + name);
+        Subscription s = new Subscription(subscriber, overflow,
+                overflow == Overflow.LATEST_ONLY ? 1 : Math.max(1, capacity),
+                drain == Drain.PLATFORM ? platformDrains : drains, consumer);
+        subscriptions.add(s);
+        return s;
+    }
+
+    /** Thread OCR : dépôt dans chaque tampon, sans attente ni allocation (hors démarrage d'un drain). */
+    public void publish(OcrReader.Snapshot snapshot) {
+        if (snapshot == null) return;
+        long now = System.nanoTime();
+        for (Subscription s : subscriptions) s.offer(snapshot, now);
+    }
+
+    @Override
+    public void accept(OcrReader.Snapshot snapshot) {
+        publish(snapshot);
+    }
+
+    public List<Stats> stats() {
+        List<Stats> out = new ArrayList<>(subscriptions.size());
+        for (Subscription s : subscriptions) out.add(s.stats());
+        return out;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Subscription s : subscriptions) s.close();
+        drains.shutdownNow();
+        platformDrains.shutdownNow();
+    }
+
+    public final class Subscription implements AutoCloseable {
+        private final String subscriber;
+        private final Overflow overflow;
+        private final Consumer<OcrReader.Snapshot> consumer;
+        private final ExecutorService executor;
+        private final OcrReader.Snapshot[] ring;
+        private final long[] published;       // instant de publication de chaque case
+        private int head, size, maxPending;   // sous verrou (this)
+        private boolean cancelled;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicLong offered = new AtomicLong(), delivered = new AtomicLong(),
+                dropped = new AtomicLong(), errors = new AtomicLong();
+        private volatile long lagNanos, maxLagNanos;
+        private final List<Meter> meters = new ArrayList<>();
+
+        Subscription(String subscriber, Overflow overflow, int capacity, ExecutorService executor,
+                     Consumer<OcrReader.Snapshot> consumer) {
+            this.subscriber = subscriber;
+            this.overflow = overflow;
+            this.executor = executor;
+            this.consumer = consumer;
+            this.ring = new OcrReader.Snapshot[capacity];
+            this.published = new long[capacity];
+            Tags tags = Tags.of("bus", name, "subscriber", subscriber);
+            meters.add(FunctionCounter.builder("lighting.bus.delivered", delivered, AtomicLong::get)
+                    .tags(tags).register(PipelineMetrics.REGISTRY));
+            meters.add(FunctionCounter.builder("lighting.bus.dropped", dropped, AtomicLong::get)
+                    .tags(tags).description("Snapshots écrasés (tampon plein)").register(PipelineMetrics.REGISTRY));
+            meters.add(Gauge.builder("lighting.bus.pending", this, s -> s.pending())
+                    .tags(tags).register(PipelineMetrics.REGISTRY));
+            meters.add(Gauge.builder("lighting.bus.lag", this, s -> s.lagNanos / 1e6)
+                    .tags(tags).baseUnit("milliseconds").register(PipelineMetrics.REGISTRY));
+        }
+
+        void offer(OcrReader.Snapshot s, long now) {
+            offered.incrementAndGet();
+            synchronized (this) {
+                if (cancelled) return;
+                if (size == ring.length) {
+                    ring[head] = null;
+                    head = (head + 1) % ring.length;
+                    size--;
+                    dropped.incrementAndGet();
+                }
+                int tail = (head + size) % ring.length;
+                ring[tail] = s;
+                published[tail] = now;
+                if (++size > maxPending) maxPending = size;
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false); // bus fermé
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                OcrReader.Snapshot s;
+                long stamp;
+                synchronized (this) {
+                    // draining repassé à false sous le verrou : un offer suivant relancera un drain
+                    if (size == 0 || cancelled) {
+                        draining.set(false);
+                        return;
+                    }
+                    s = ring[head];
+                    stamp = published[head];
+                    ring[head] = null;
+                    head = (head + 1) % ring.length;
+                    size--;
+                }
+                long lag = System.nanoTime() - stamp;
+                lagNanos = lag;
+                if (lag > maxLagNanos) maxLagNanos = lag;
+                try {
+                    consumer.accept(s);
+                } catch (Throwable t) {
+                    errors.incrementAndGet();
+                    System.err.println("[Bus] " + name + "/" + subscriber + " : " + t.getMessage());
+                }
+                delivered.incrementAndGet();
+            }
+        }
+
+        synchronized int pending() {
+            return size;
+        }
+
+        public Stats stats() {
+            int pending, max;
+            synchronized (this) {
+                pending = size;
+                max = maxPending;
+            }
+            return new Stats(subscriber, overflow, ring.length, offered.get(), delivered.get(), dropped.get(),
+                    errors.get(), pending, max, lagNanos / 1e6, maxLagNanos / 1e6);
+        }
+
+        /** Désabonne : les snapshots en attente sont abandonnés. */
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (cancelled) return;
+                cancelled = true;
+                Arrays.fill(ring, null);
+                size = 0;
+            }
+            subscriptions.remove(this);
+            for (Meter m : meters) PipelineMetrics.REGISTRY.remove(m);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.phoenixcorp.overlay;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Filtre temporel entre l'OCR et le rendu : une lecture bruitée ou une valeur qui oscille autour d'une
+ * frontière de LED ne doit pas réécrire les LEDs. Par barre (vie, ressource) :
+ * - plausibilité : saut > maxJumpPct, max qui change, cur > max ou max <= 0 = suspect, retenu tant qu'il
+ *   n'a pas été lu confirmFrames fois de suite (même max, écart <= maxJumpPct) ; idem changement de type
+ * - médiane des window dernières valeurs retenues (fenêtre vidée quand un saut ou un nouveau max est confirmé)
+ * - hystérésis : le nombre de LEDs allumées ne change que si la valeur franchit la frontière d'au moins
+ *   hysteresisLeds LED (0 et barre pleine passent toujours)
+ * Les stats des extracteurs (Snapshot.stats, cadences propres) passent telles quelles.
+ * Écritures évitées : frames dont la valeur brute aurait changé le clavier affiché et que le filtre a retenues,
+ * par étape (Stats, lighting.filter.saved).
+ */
+public final class SnapshotFilter {
+
+    static final int MAX_WINDOW = 15;
+
+    /** Réglages (config.json filter*) ; window 1 = sans médiane, hysteresisLeds 0 = sans hystérésis. */
+    public record Settings(boolean enabled, int window, int confirmFrames, double maxJumpPct, double hysteresisLeds) {
+        public static Settings from(Config cfg) {
+            return new Settings(cfg.filterEnabledOrDefault(), cfg.filterWindowOrDefault(), cfg.filterConfirmFramesOrDefault(),
+                    cfg.filterMaxJumpPctOrDefault(), cfg.filterHysteresisLedsOrDefault());
+        }
+    }
+
+    /** Frames filtrées, écritures évitées (total et par étape), frames dont la sortie diffère de la lecture brute. */
+    public record Stats(long frames, long saved, long savedImplausible, long savedMedian, long savedHysteresis, long altered) { }
+
+    private Settings settings;
+    private final Bar hp = new Bar(), res = new Bar();
+    private OcrReader.ResourceType type, candType;
+    private int candTypeCount;
+
+    private final AtomicLong frames = new AtomicLong(), altered = new AtomicLong(),
+            savedImplausible = new AtomicLong(), savedMedian = new AtomicLong(), savedHysteresis = new AtomicLong();
+
+    public SnapshotFilter(Settings settings) {
+        this.settings = sanitize(settings);
+    }
+
+    public synchronized Settings settings() {
+        return settings;
+    }
+
+    /** Nouveaux réglages : fenêtres et valeurs retenues oubliées (compteurs conservés). */
+    public synchronized void configure(Settings s) {
+        s = sanitize(s);
+        if (s.equals(settings)) return;
+        settings = s;
+        reset();
+    }
+
+    /** Largeur des barres clavier (LEDs), pour l'hystérésis et le décompte des écritures. */
+    public synchronized void setBarWidths(int hpWidth, int resWidth) {
+        hp.width = hpWidth;
+        res.width = resWidth;
+    }
+
+    /** Redémarrage du pipeline : la prochaine lecture est acceptée telle quelle. */
+    public synchronized void reset() {
+        hp.reset();
+        res.reset();
+        type = candType = null;
+        candTypeCount = 0;
+    }
+
+    /** Valeurs à afficher pour cette lecture (raw lui-même si rien n'est retenu). */
+    public synchronized OcrReader.Snapshot apply(OcrReader.Snapshot raw) {
+        if (raw == null) return null;
+        frames.incrementAndGet();
+        if (!settings.enabled) return raw;
+
+        boolean first = type == null;
+        OcrReader.ResourceType shownType = type;
+        int hpShown = hp.shownFill(), resShown = res.shownFill();
+
+        // 1) plausibilité
+        hp.plausible(raw.hpCur, raw.hpMax);
+        res.plausible(raw.resCur, raw.resMax);
+        confirmType(raw.type);
+        int hpP = hp.fill(hp.cur, hp.max), resP = res.fill(res.cur, res.max);
+        // 2) médiane
+        hp.median();
+        res.median();
+        int hpM = hp.fill(hp.med, hp.max), resM = res.fill(res.med, res.max);
+        // 3) hystérésis
+        hp.hysteresis();
+        res.hysteresis();
+
+        if (!first) {
+            boolean rawChange = hp.fill(raw.hpCur, raw.hpMax) != hpShown || res.fill(raw.resCur, raw.resMax) != resShown
+                    || raw.type != shownType;
+            boolean outChange = hp.shownFill() != hpShown || res.shownFill() != resShown || type != shownType;
+            if (rawChange && !outChange) {
+                if (hpP == hpShown && resP == resShown && type == shownType) savedImplausible.incrementAndGet();
+                else if (hpM == hpShown && resM == resShown) savedMedian.incrementAndGet();
+                else savedHysteresis.incrementAndGet();
+            }
+        }
+
+        if (hp.shownCur == raw.hpCur && hp.shownMax == raw.hpMax && res.shownCur == raw.resCur
+                && res.shownMax == raw.resMax && type == raw.type) {
+            return raw;
+        }
+        altered.incrementAndGet();
+        return new OcrReader.Snapshot(hp.shownCur, hp.shownMax, res.shownCur, res.shownMax, type, raw.stats,
+                raw.seq, raw.captureNanos, raw.ocrNanos);
+    }
+
+    public Stats stats() {
+        long i = savedImplausible.get(), m = savedMedian.get(), h = savedHysteresis.get();
+        return new Stats(frames.get(), i + m + h, i, m, h, altered.get());
+    }
+
+    private void confirmType(OcrReader.ResourceType t) {
+        if (type == null || t == type) {
+            type = t;
+            candTypeCount = 0;
+            return;
+        }
+        candTypeCount = t == candType ? candTypeCount + 1 : 1;
+        candType = t;
+        if (candTypeCount >= settings.confirmFrames) {
+            type = t;
+            candTypeCount = 0;
+        }
+    }
+
+    private static Settings sanitize(Settings s) {
+        int window = Math.max(1, Math.min(MAX_WINDOW, s.window));
+        return new Settings(s.enabled, window, Math.max(1, s.confirmFrames),
+                s.maxJumpPct <= 0 ? 1.0 : s.maxJumpPct, Math.max(0.0, s.hysteresisLeds));
+    }
+
+    private static double pct(int cur, int max) {
+        if (max <= 0) return 0;
+        return Math.max(0.0, Math.min(1.0, (double) cur / max));
+    }
+
+    /** État d'une barre : valeur retenue (cur/max), fenêtre, valeur affichée (shown*). */
+    private final class Bar {
+        int width;
+        boolean has;
+        int cur, max;                     // dernière valeur plausible
+        int candCur, candMax, candCount;  // valeur suspecte en attente de confirmation
+        final int[] window = new int[MAX_WINDOW];
+        final int[] sorted = new int[MAX_WINDOW];
+        int head, size;
+        int med;                          // médiane de la fenêtre (même max)
+        boolean shown;
+        int shownCur, shownMax;
+
+        void reset() {
+            has = shown = false;
+            candCount = size = head = 0;
+        }
+
+        int fill(int c, int m) {
+            return ColorMatrixBuilder.fillCount(pct(c, m), width);
+        }
+
+        int shownFill() {
+            return shown ? fill(shownCur, shownMax) : -1;
+        }
+
+        void plausible(int rawCur, int rawMax) {
+            boolean suspicious = has && (rawCur != cur || rawMax != max)
+                    && (rawMax != max || rawMax <= 0 || rawCur < 0 || rawCur > rawMax
+                        || Math.abs(pct(rawCur, rawMax) - pct(cur, max)) > settings.maxJumpPct);
+            if (!suspicious) {
+                candCount = 0;
+                cur = rawCur;
+                max = rawMax;
+                has = true;
+                return;
+            }
+            // Confirmé si relu de suite : même max, proche de la lecture suspecte précédente
+            boolean same = candCount > 0 && rawMax == candMax
+                    && Math.abs(pct(rawCur, rawMax) - pct(candCur, candMax)) <= settings.maxJumpPct;
+            candCount = same ? candCount + 1 : 1;
+            candCur = rawCur;
+            candMax = rawMax;
+            if (candCount >= settings.confirmFrames) {
+                candCount = 0;
+                cur = rawCur;
+                max = rawMax;
+                size = head = 0;   // la médiane ne doit pas ramener l'ancienne valeur
+            }
+        }
+
+        void median() {
+            int n = settings.window;
+            window[head] = cur;
+            head = (head + 1) % n;
+            if (size < n) size++;
+            // Tri par insertion des size dernières valeurs (15 au plus), sans allocation
+            for (int i = 0; i < size; i++) {
+                int v = window[i], j = i - 1;
+                while (j >= 0 && sorted[j] > v) {
+                    sorted[j + 1] = sorted[j];
+                    j--;
+                }
+                sorted[j + 1] = v;
+            }
+            med = sorted[(size - 1) / 2];
+        }
+
+        void hysteresis() {
+            if (!shown || max != shownMax || width <= 0 || settings.hysteresisLeds <= 0) {
+                show();
+                return;
+            }
+            int s = fill(shownCur, shownMax), n = fill(med, max);
+            // Même nombre de LEDs (rien de visible), ou 0 / barre pleine d'un côté : valeur prise telle quelle
+            if (n == s || n == 0 || s == 0 || n == width || s == width) {
+                show();
+                return;
+            }
+            double pos = pct(med, max) * width;
+            double margin = settings.hysteresisLeds;
+            if (n > s ? pos >= s + 1 + margin : pos <= s - margin) show();
+        }
+
+        private void show() {
+            shown = true;
+            shownCur = med;
+            shownMax = max;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.phoenixcorp.overlay;
+
+import java.util.Locale;
+
+/**
+ * Lissage côté sortie entre deux lectures OCR, pour pouvoir baisser la fréquence OCR.
+ * - LINEAR : glisse de la valeur affichée vers la dernière lecture sur la fenêtre
+ * - EXTRAPOLATE : prolonge la tendance des deux dernières lectures (lookahead borné par la fenêtre)
+ * - saut immédiat si gros écart, changement de max ou de type de ressource
+ */
+public final class SnapshotInterpolator {
+
+    public enum Mode {
+        OFF, LINEAR, EXTRAPOLATE;
+
+        public static Mode parse(String s) {
+            if (s == null || s.isBlank()) return OFF;
+            try {
+                return Mode.valueOf(s.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                System.err.println("[Interp] mode inconnu: " + s + " (OFF)");
+                return OFF;
+            }
+        }
+    }
+
+    private final Mode mode;
+    private final long windowNanos;
+    private final double snapPct;
+
+    // Dernière lecture OCR et la précédente (pour la pente en EXTRAPOLATE)
+    private OcrReader.Snapshot latest, previous;
+    private long latestAt, previousAt;
+    // Point de départ de la transition LINEAR (= ce qui était affiché à l'arrivée de latest)
+    private OcrReader.Snapshot from;
+
+    public SnapshotInterpolator(Mode mode, long windowMs, double snapPct) {
+        this.mode = mode == null ? Mode.OFF : mode;
+        this.windowNanos = Math.max(1, windowMs) * 1_000_000L;
+        this.snapPct = snapPct <= 0 ? 1.0 : snapPct;
+    }
+
+    public Mode mode() { return mode; }
+
+    /** Nouvelle lecture OCR horodatée (System.nanoTime()). */
+    public synchronized void push(OcrReader.Snapshot s, long nowNanos) {
+        if (s == null) return;
+        if (latest == null || mustSnap(latest, s)) {
+            previous = null;
+            from = null;
+        } else {
+            previous = latest;
+            previousAt = latestAt;
+            from = sampleLocked(nowNanos);
+        }
+        latest = s;
+        latestAt = nowNanos;
+    }
+
+    /** Valeur à afficher à l'instant donné (null tant qu'aucune lecture). */
+    public synchronized OcrReader.Snapshot sample(long nowNanos) {
+        return sampleLocked(nowNanos);
+    }
+
+    /** Adapte l'interpolateur en source pour un {@link OcrRunner} cadencé à la fréquence de sortie. */
+    public OcrReader asReader() {
+        return () -> sample(System.nanoTime());
+    }
+
+    public synchronized void reset() {
+        latest = previous = from = null;
+    }
+
+    private OcrReader.Snapshot sampleLocked(long now) {
+        if (latest == null) return null;
+        long dt = Math.max(0, now - latestAt);
+        return switch (mode) {
+            case OFF -> latest;
+            case LINEAR -> {
+                if (from == null || dt >= windowNanos) yield latest;
+                double k = (double) dt / (double) windowNanos;
+                yield blend(from, latest, k);
+            }
+            case EXTRAPOLATE -> {
+                if (previous == null) yield latest;
+                long span = latestAt - previousAt;
+                if (span <= 0) yield latest;
+                double k = (double) Math.min(dt, windowNanos) / (double) span;
+                yield blend(previous, latest, 1.0 + k);
+            }
+        };
+    }
+
+    /** a + (b - a) * k sur cur (k > 1 = extrapolation), borné à [0..max] de b. */
+    private static OcrReader.Snapshot blend(OcrReader.Snapshot a, OcrReader.Snapshot b, double k) {
+        int hp  = lerp(a.hpCur,  b.hpCur,  k, b.hpMax);
+        int res = lerp(a.resCur, b.resCur, k, b.resMax);
+        if (hp == b.hpCur && res == b.resCur) return b;
+        // Traçage de la dernière lecture réelle : l'âge reste celui de la donnée OCR
+        return new OcrReader.Snapshot(hp, b.hpMax, res, b.resMax, b.type, b.stats, b.seq, b.captureNanos, b.ocrNanos);
+    }
+
+    private static int lerp(int a, int b, double k, int max) {
+        long v = Math.round(a + (b - a) * k);
+        if (v < 0) v = 0;
+        if (v > max) v = max;
+        return (int) v;
+    }
+
+    private boolean mustSnap(OcrReader.Snapshot a, OcrReader.Snapshot b) {
+        if (a.type != b.type) return true;
+        if (a.hpMax != b.hpMax || a.resMax != b.resMax) return true;
+        return Math.abs(pct(b.hpCur, b.hpMax) - pct(a.hpCur, a.hpMax)) > snapPct
+                || Math.abs(pct(b.resCur, b.resMax) - pct(a.resCur, a.resMax)) > snapPct;
+    }
+
+    private static double pct(int cur, int max) {
+        return max <= 0 ? 0.0 : (double) cur / (double) max;
+    }
+}
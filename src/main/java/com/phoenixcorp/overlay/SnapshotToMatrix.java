@@ -1,5 +1,6 @@
 package com.phoenixcorp.overlay;
 
+import java.util.Arrays;
 import java.util.Optional;
 
 public final class SnapshotToMatrix {
@@ -7,10 +8,12 @@ public final class SnapshotToMatrix {
 
     private final ColorMatrixBuilder builder;
     private final LightingOverrides overrides;
+    private final DeviceLayout layout;
 
     public SnapshotToMatrix(ColorMatrixBuilder builder, LightingOverrides overrides) {
         this.builder = builder;
         this.overrides = overrides;
+        this.layout = DeviceLayout.fromOverrides(overrides);
     }
 
     public int[][] toKeyboard(OcrReader.Snapshot s) {
@@ -51,9 +54,52 @@ public final class SnapshotToMatrix {
                 resPct
         );
 
+        // 4) Stats des extracteurs (cible, combo...) sur leurs zones ; stat pas encore lue = zone laissée au fond
+        for (LightingOverrides.StatZone z : overrides.statZones()) {
+            OcrReader.Stat st = z.stat == null ? null : s.stat(z.stat);
+            if (st == null) continue;
+            builder.applyBarRows(m, z.row, z.firstCol, z.lastCol, z.bgr(), st.pct());
+        }
+
         return m;
     }
 
+    /**
+     * Rend en une passe les frames (à plat, row-major) de tous les périphériques hors clavier,
+     * indexées par Device.ordinal(). Le clavier reste rendu par toKeyboard (matrice 2D).
+     */
+    public int[][] toDevices(OcrReader.Snapshot s) {
+        final int bg = overrides.hasBackground() ? overrides.backgroundBgr() : 0;
+        final int hpColor = overrides.hpBgr();
+        final int resColor = resourceBgrFor(s.type).orElseGet(() -> overrides.resourceBgr());
+        final double hpPct = clampPct(s.hpCur, s.hpMax);
+        final double resPct = clampPct(s.resCur, s.resMax);
+
+        final int[][] frames = new int[DeviceLayout.Device.values().length][];
+        for (DeviceLayout.Device d : DeviceLayout.Device.values()) {
+            if (d == DeviceLayout.Device.KEYBOARD) continue;
+            int[] f = new int[d.size()];
+            if (bg != 0) Arrays.fill(f, bg);
+            builder.applyBar(f, layout.zone(d, DeviceLayout.Bar.HP), hpColor, hpPct);
+            builder.applyBar(f, layout.zone(d, DeviceLayout.Bar.RESOURCE), resColor, resPct);
+            frames[d.ordinal()] = f;
+        }
+        return frames;
+    }
+
+    /**
+     * LEDs allumées sur les barres clavier {HP, ressource} : deux snapshots de mêmes remplissages
+     * et même type donnent la même frame (clé de cache des rendus "what-if").
+     */
+    public int[] keyboardFills(OcrReader.Snapshot s) {
+        return new int[] {
+                ColorMatrixBuilder.fillCount(clampPct(s.hpCur, s.hpMax),
+                        ColorMatrixBuilder.barWidth(overrides.hpFirstCol(), overrides.hpLastCol())),
+                ColorMatrixBuilder.fillCount(clampPct(s.resCur, s.resMax),
+                        ColorMatrixBuilder.barWidth(overrides.resourceFirstCol(), overrides.resourceLastCol()))
+        };
+    }
+
     private Optional<Integer> resourceBgrFor(OcrReader.ResourceType type) {
         try {
             return overrides.resourceBgrFor(type);
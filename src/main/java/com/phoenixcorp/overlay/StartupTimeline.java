@@ -0,0 +1,36 @@
+package com.phoenixcorp.overlay;
+
+import io.micrometer.core.instrument.Gauge;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Jalons du démarrage, en ms depuis le lancement de la JVM (context, chroma_session, ocr_warm, first_led).
+ * Chaque jalon n'est noté qu'une fois ; exposé en jauges lighting.startup{phase} et dans /api/metrics.
+ */
+public final class StartupTimeline {
+    private StartupTimeline() {}
+
+    private static final Map<String, Long> PHASES = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /** Note le jalon s'il ne l'a pas déjà été ; retourne true la première fois. */
+    public static boolean mark(String phase) {
+        long ms = ManagementFactory.getRuntimeMXBean().getUptime();
+        if (PHASES.putIfAbsent(phase, ms) != null) return false;
+        Gauge.builder("lighting.startup", () -> PHASES.get(phase))
+                .tag("phase", phase)
+                .baseUnit("milliseconds")
+                .register(PipelineMetrics.REGISTRY);
+        System.out.println("[Startup] " + phase + " à " + ms + " ms");
+        return true;
+    }
+
+    public static Map<String, Long> snapshot() {
+        synchronized (PHASES) {
+            return new LinkedHashMap<>(PHASES);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.phoenixcorp.overlay;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stat lue dans sa sous-région d'une capture partagée (FrameReader), en plus de vie / ressource.
+ * - region : zone écran lue ; la capture du tick couvre toutes les zones, une seule par tick
+ * - periodMs : cadence propre, arrondie au tick OCR (une stat lente n'est pas relue à chaque tick)
+ * - extract : appelé sur un worker du pool borné des extracteurs, en parallèle des autres ;
+ *   jamais deux appels en même temps pour un même extracteur
+ */
+public interface StatExtractor {
+
+    String id();
+
+    Rectangle region();
+
+    long periodMs();
+
+    /** Valeur lue dans crop (pixels de region) ; null si illisible (la valeur précédente est gardée). */
+    OcrReader.Stat extract(BufferedImage crop) throws Exception;
+
+    /** Extracteurs de config.json (extractors, ou ceux de la session) ; les entrées incomplètes sont ignorées. */
+    static List<StatExtractor> fromConfig(Config cfg, String sessionId, TesseractEnginePool engines) {
+        List<StatExtractor> out = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        long tick = cfg.ocrPeriodMsOrDefault();
+        for (Config.Extractor e : cfg.extractors(sessionId)) {
+            Rectangle region = e.region();
+            if (e.id == null || e.id.isBlank() || region == null || !ids.add(e.id)) {
+                System.err.println("[Extract] extracteur ignoré (id manquant ou en double, zone incomplète): " + e.id);
+                continue;
+            }
+            long period = e.periodMs == null ? tick : Math.max(tick, e.periodMs);
+            if (e.bar()) {
+                out.add(new BarStatExtractor(e.id, region, period, LightingOverrides.parseRgb(e.color, 0xFFFFFF),
+                        e.toleranceOrDefault()));
+            } else {
+                out.add(new TextStatExtractor(e.id, region, period, e.maxOrDefault(), engines));
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,309 @@
+package com.phoenixcorp.overlay;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rubans LED en UDP (WLED...), DDP ou E1.31/sACN : chaque zone de ruban recopie une barre (vie, ressource)
+ * de la frame clavier rendue par SnapshotToMatrix.
+ * - un seul DatagramChannel non bloquant pour toutes les cibles, adresses résolues à la connexion
+ * - paquets (en-têtes compris) construits une fois ; par frame, seuls couleurs et numéro de séquence
+ *   sont réécrits : aucune allocation
+ * - fire-and-forget : un paquet que le noyau ne prend pas est perdu (busy), la frame suivante suit
+ * - sans changement, la dernière frame est renvoyée chaque seconde (WLED reprend son effet après 2,5 s de silence)
+ */
+public final class StripSink implements OutputSink {
+
+    static final int ROWS = 6, COLS = 22;
+    static final int DDP_HEADER = 10, DDP_MAX_PIXELS = 480;      // 1440 octets : tient dans une trame Ethernet
+    static final int E131_HEADER = 126, E131_MAX_PIXELS = 170;   // 510 canaux DMX par univers
+    private static final long KEEPALIVE_NANOS = 1_000_000_000L;
+    private static final byte[] ACN_ID = "ASC-E1.17\0\0\0".getBytes(StandardCharsets.US_ASCII);
+
+    /** Une cible : ses zones, ses paquets prêts, et la case de la matrice de chaque pixel (-1 = éteint). */
+    private static final class Target {
+        final Config.Strip spec;
+        final int pixels;
+        final ByteBuffer[] packets;
+        InetSocketAddress address;
+        int[] pixelSource;
+
+        Target(Config.Strip spec, int pixels, ByteBuffer[] packets) {
+            this.spec = spec;
+            this.pixels = pixels;
+            this.packets = packets;
+            this.pixelSource = new int[pixels];
+            Arrays.fill(pixelSource, -1);
+        }
+
+        int chunk() {
+            return spec.e131() ? E131_MAX_PIXELS : DDP_MAX_PIXELS;
+        }
+
+        int header() {
+            return spec.e131() ? E131_HEADER : DDP_HEADER;
+        }
+    }
+
+    private final List<Target> targets = new ArrayList<>();
+    private final ScheduledExecutorService keepAlive = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "strips-keepalive"); t.setDaemon(true); return t;
+    });
+    private final Counter sent, busy, errors;
+
+    // Sous verrou (this)
+    private DatagramChannel channel;
+    private CompletableFuture<Boolean> connecting;
+    private final int[] frame = new int[ROWS * COLS];   // dernière frame (BGR)
+    private boolean hasFrame;
+    private long lastSendNanos;
+    private int sequence;
+    private boolean closed;
+
+    public StripSink(List<Config.Strip> strips) {
+        byte[] cid = cid();
+        for (Config.Strip s : strips) {
+            if (s.host == null || s.host.isBlank() || s.zones == null) {
+                System.err.println("[Strips] ruban ignoré (host ou zones manquants)");
+                continue;
+            }
+            int pixels = 0;
+            for (Config.StripZone z : s.zones) {
+                if (z.start != null && z.count != null && z.start >= 0 && z.count > 0) pixels = Math.max(pixels, z.start + z.count);
+            }
+            if (pixels == 0) continue;
+            targets.add(new Target(s, pixels, s.e131() ? e131Packets(pixels, s.universeOrDefault(), cid) : ddpPackets(pixels)));
+        }
+        this.sent = PipelineMetrics.sinkFrames("strips", "sent");
+        this.busy = PipelineMetrics.sinkFrames("strips", "busy");
+        this.errors = PipelineMetrics.sinkFrames("strips", "error");
+        keepAlive.scheduleWithFixedDelay(this::resendIfIdle, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public String name() {
+        return "strips";
+    }
+
+    /** Canal ouvert et adresses résolues sur le thread strips-keepalive (DNS hors thread de sortie). */
+    @Override
+    public synchronized CompletableFuture<Boolean> connectAsync() {
+        if (channel != null) return CompletableFuture.completedFuture(true);
+        if (connecting != null && !connecting.isDone()) return connecting;
+        try {
+            connecting = CompletableFuture.supplyAsync(this::connect, keepAlive);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return connecting;
+    }
+
+    /** Zones recalculées sur la position des barres (hpRow/hpFirstCol..., resourceRow...). */
+    @Override
+    public synchronized void overridesChanged(LightingOverrides lo) {
+        for (Target t : targets) {
+            int[] source = new int[t.pixels];
+            Arrays.fill(source, -1);
+            for (Config.StripZone z : t.spec.zones) {
+                if (z.start == null || z.count == null || z.start < 0 || z.count <= 0) continue;
+                int row, first, last;
+                if ("hp".equalsIgnoreCase(z.bar)) {
+                    row = lo.hpRow(); first = lo.hpFirstCol(); last = lo.hpLastCol();
+                } else if ("resource".equalsIgnoreCase(z.bar)) {
+                    row = lo.resourceRow(); first = lo.resourceFirstCol(); last = lo.resourceLastCol();
+                } else {
+                    System.err.println("[Strips] barre inconnue ignorée: " + z.bar + " (hp | resource)");
+                    continue;
+                }
+                mapZone(source, z.start, z.count, Boolean.TRUE.equals(z.reverse), row, first, last);
+            }
+            t.pixelSource = source;
+        }
+    }
+
+    @Override
+    public synchronized boolean keyboard(int[][] matrixBgr, OcrReader.Snapshot source, long renderedNanos) {
+        if (closed || matrixBgr == null) return false;
+        for (int r = 0; r < ROWS; r++) {
+            int[] row = r < matrixBgr.length ? matrixBgr[r] : null;
+            for (int c = 0; c < COLS; c++) {
+                frame[r * COLS + c] = row != null && c < row.length ? row[c] : 0;
+            }
+        }
+        hasFrame = true;
+        if (channel == null) {
+            connectAsync();
+            return false;
+        }
+        return sendFrame();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            if (channel != null) {
+                Arrays.fill(frame, 0);   // rubans éteints en partant
+                sendFrame();
+                try { channel.close(); } catch (IOException ignore) { }
+                channel = null;
+            }
+            closed = true;
+        }
+        keepAlive.shutdownNow();
+    }
+
+    // ================== interne ==================
+
+    private boolean connect() {
+        // Résolution DNS hors verrou ; une cible introuvable reste muette jusqu'au redémarrage
+        List<InetSocketAddress> addresses = new ArrayList<>(targets.size());
+        for (Target t : targets) {
+            InetSocketAddress a = new InetSocketAddress(t.spec.host, t.spec.portOrDefault());
+            if (a.isUnresolved()) System.err.println("[Strips] hôte introuvable: " + t.spec.host);
+            addresses.add(a.isUnresolved() ? null : a);
+        }
+        try {
+            DatagramChannel ch = DatagramChannel.open();
+            ch.configureBlocking(false);
+            synchronized (this) {
+                if (closed) {
+                    ch.close();
+                    return false;
+                }
+                for (int i = 0; i < targets.size(); i++) targets.get(i).address = addresses.get(i);
+                channel = ch;
+                if (hasFrame) sendFrame();
+            }
+            System.out.println("[Strips] " + targets.size() + " ruban(s) : "
+                    + targets.stream().map(t -> (t.spec.e131() ? "e131 " : "ddp ") + t.spec.host + ":"
+                    + t.spec.portOrDefault() + " (" + t.pixels + " px)").toList());
+            return true;
+        } catch (IOException e) {
+            System.err.println("[Strips] canal UDP indisponible: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void resendIfIdle() {
+        synchronized (this) {
+            if (closed || channel == null || !hasFrame) return;
+            if (System.nanoTime() - lastSendNanos < KEEPALIVE_NANOS) return;
+            sendFrame();
+        }
+    }
+
+    /** Couleurs et séquence réécrites dans les paquets existants, puis un send par paquet. */
+    private boolean sendFrame() {
+        sequence = sequence % 255 + 1;   // 1..255 (DDP : 1..15, 0 = sans séquence)
+        boolean all = true;
+        for (Target t : targets) {
+            if (t.address == null) continue;
+            int chunk = t.chunk(), header = t.header();
+            int[] source = t.pixelSource;
+            for (int k = 0; k < t.packets.length; k++) {
+                ByteBuffer p = t.packets[k];
+                int first = k * chunk, n = Math.min(chunk, t.pixels - first);
+                for (int i = 0; i < n; i++) {
+                    int src = source[first + i];
+                    int bgr = src < 0 ? 0 : frame[src];
+                    int at = header + 3 * i;
+                    p.put(at, (byte) bgr).put(at + 1, (byte) (bgr >> 8)).put(at + 2, (byte) (bgr >> 16));   // R, G, B
+                }
+                if (t.spec.e131()) p.put(111, (byte) sequence);
+                else p.put(1, (byte) (sequence % 15 + 1));
+                p.clear();
+                try {
+                    if (channel.send(p, t.address) == 0) {
+                        busy.increment();
+                        all = false;
+                    }
+                } catch (IOException e) {
+                    errors.increment();
+                    all = false;
+                }
+            }
+        }
+        lastSendNanos = System.nanoTime();
+        if (all) sent.increment();
+        return all;
+    }
+
+    /** Pixel j de la zone → centre de la portion correspondante de la barre (first → last). */
+    static void mapZone(int[] source, int start, int count, boolean reverse, int row, int first, int last) {
+        row = Math.max(0, Math.min(ROWS - 1, row));
+        first = Math.max(0, Math.min(COLS - 1, first));
+        last = Math.max(0, Math.min(COLS - 1, last));
+        int cells = Math.abs(last - first) + 1;
+        int dir = last >= first ? 1 : -1;
+        for (int j = 0; j < count && start + j < source.length; j++) {
+            int i = reverse ? count - 1 - j : j;
+            source[start + j] = row * COLS + first + dir * ((2 * i + 1) * cells / (2 * count));
+        }
+    }
+
+    /** DDP : en-tête de 10 octets, offset et longueur en octets, push sur le dernier paquet. */
+    static ByteBuffer[] ddpPackets(int pixels) {
+        int count = (pixels + DDP_MAX_PIXELS - 1) / DDP_MAX_PIXELS;
+        ByteBuffer[] packets = new ByteBuffer[count];
+        for (int k = 0; k < count; k++) {
+            int first = k * DDP_MAX_PIXELS, n = Math.min(DDP_MAX_PIXELS, pixels - first);
+            ByteBuffer p = ByteBuffer.allocateDirect(DDP_HEADER + 3 * n);   // big-endian
+            p.put((byte) (k == count - 1 ? 0x41 : 0x40))   // version 1 (+ push)
+                    .put((byte) 1)                         // séquence
+                    .put((byte) 0x0B)                      // RGB, 8 bits par canal
+                    .put((byte) 1)                         // id de destination : sortie par défaut
+                    .putInt(3 * first)
+                    .putShort((short) (3 * n));
+            packets[k] = p.clear();
+        }
+        return packets;
+    }
+
+    /** E1.31 : un univers (170 pixels) par paquet à partir de universe, en-tête ANSI E1.31 de 126 octets. */
+    static ByteBuffer[] e131Packets(int pixels, int universe, byte[] cid) {
+        int count = (pixels + E131_MAX_PIXELS - 1) / E131_MAX_PIXELS;
+        ByteBuffer[] packets = new ByteBuffer[count];
+        byte[] source = Arrays.copyOf("LightingDesigner".getBytes(StandardCharsets.US_ASCII), 64);
+        for (int k = 0; k < count; k++) {
+            int channels = 3 * Math.min(E131_MAX_PIXELS, pixels - k * E131_MAX_PIXELS);
+            int length = E131_HEADER + channels;
+            ByteBuffer p = ByteBuffer.allocateDirect(length);
+            // Couche racine
+            p.putShort((short) 0x0010).putShort((short) 0).put(ACN_ID)
+                    .putShort((short) (0x7000 | (length - 16))).putInt(0x00000004).put(cid);
+            // Couche framing
+            p.putShort((short) (0x7000 | (length - 38))).putInt(0x00000002).put(source)
+                    .put((byte) 100)                       // priorité
+                    .putShort((short) 0)                   // adresse de synchro
+                    .put((byte) 0)                         // séquence
+                    .put((byte) 0)                         // options
+                    .putShort((short) (universe + k));
+            // Couche DMP
+            p.putShort((short) (0x7000 | (length - 115))).put((byte) 0x02).put((byte) 0xA1)
+                    .putShort((short) 0).putShort((short) 1).putShort((short) (channels + 1))
+                    .put((byte) 0);                        // start code DMX
+            packets[k] = p.clear();
+        }
+        return packets;
+    }
+
+    private static byte[] cid() {
+        UUID id = UUID.randomUUID();
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+}
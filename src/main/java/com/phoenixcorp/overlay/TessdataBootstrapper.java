@@ -1,42 +1,223 @@
 package com.phoenixcorp.overlay;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Copie locale des traineddata embarqués, vérifiée par checksum :
+ * - tessdata/manifest.sha256 (classpath) donne sha256 + taille des fichiers embarqués ;
+ *   une langue absente du manifeste est comparée au digest de sa ressource
+ * - vérification par lecture mmap (pas de copie en tas), mémorisée par (taille, date de modif)
+ * - fichier absent, tronqué ou corrompu → re-copie dans un temporaire, fsync, move atomique
+ * - plusieurs langues ("eng+osd") préparées en parallèle
+ */
 public final class TessdataBootstrapper {
     private TessdataBootstrapper() {}
 
+    private static final String MANIFEST = "/tessdata/manifest.sha256";
+    private static final long MAP_CHUNK = 64L << 20;
+
+    private record Expected(String sha256, long size) { }
+    private record Verified(long size, long modified, String sha256) { }
+
+    private static final Map<String, Expected> MANIFEST_ENTRIES = loadManifest();
+    private static final Map<String, Expected> RESOURCE_DIGESTS = new ConcurrentHashMap<>();
+    private static final Map<Path, Verified> VERIFIED = new ConcurrentHashMap<>();
+
+    /** ~/.lightingdesigner/tessdata */
+    public static Path localDir() {
+        return Paths.get(System.getProperty("user.home"), ".lightingdesigner", "tessdata");
+    }
+
+    /** true si path désigne le dossier géré ici (donc à re-vérifier avant usage). */
+    public static boolean isLocalDir(String path) {
+        if (path == null || path.isBlank()) return false;
+        try {
+            return Paths.get(path).toAbsolutePath().normalize().equals(localDir().toAbsolutePath().normalize());
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    /** "eng+osd" → [eng, osd] ; vide → [eng]. */
+    public static List<String> languages(String... langs) {
+        Set<String> out = new LinkedHashSet<>();
+        if (langs != null) {
+            for (String lang : langs) {
+                if (lang == null) continue;
+                for (String l : lang.split("\\+")) {
+                    if (!l.isBlank()) out.add(l.trim());
+                }
+            }
+        }
+        if (out.isEmpty()) out.add("eng");
+        return new ArrayList<>(out);
+    }
+
     /**
-     * Garantit la présence de ~/.lightingdesigner/tessdata et des fichiers <lang>.traineddata.
+     * Garantit la présence de ~/.lightingdesigner/tessdata et des fichiers <lang>.traineddata intègres.
      * Retourne le chemin **du dossier tessdata** (à passer à Tesseract.setDatapath()).
      */
-    public static Path ensureLocalTessdata(String... langs) {
-        String home = System.getProperty("user.home");
-        Path base = Paths.get(home, ".lightingdesigner");
-        Path tessDir = base.resolve("tessdata");
+    public static synchronized Path ensureLocalTessdata(String... langs) {
+        Path tessDir = localDir();
         try {
             Files.createDirectories(tessDir);
-            if (langs != null) {
-                for (String lang : langs) {
-                    String l = (lang == null || lang.isBlank()) ? "eng" : lang.trim();
-                    String resourcePath = "/tessdata/" + l + ".traineddata";
-                    Path target = tessDir.resolve(l + ".traineddata");
-                    if (Files.notExists(target) || Files.size(target) == 0L) {
-                        try (InputStream is = TessdataBootstrapper.class.getResourceAsStream(resourcePath)) {
-                            if (is == null) {
-                                System.err.println("[Tessdata] Ressource introuvable: " + resourcePath);
-                            } else {
-                                Files.copy(is, target, StandardCopyOption.REPLACE_EXISTING);
-                                System.out.println("[Tessdata] Copié: " + target);
-                            }
-                        }
+            List<String> all = languages(langs);
+            if (all.size() == 1) {
+                prepare(tessDir, all.get(0));
+            } else {
+                try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+                    List<Future<?>> futures = new ArrayList<>();
+                    for (String l : all) {
+                        futures.add(pool.submit(() -> { prepare(tessDir, l); return null; }));
                     }
+                    for (Future<?> f : futures) f.get();
                 }
             }
-            return tessDir; //
+            return tessDir;
         } catch (IOException e) {
             throw new RuntimeException("Impossible de préparer tessdata: " + e.getMessage(), e);
+        } catch (java.util.concurrent.ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Impossible de préparer tessdata: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Préparation tessdata interrompue", e);
+        }
+    }
+
+    private static void prepare(Path tessDir, String lang) throws IOException {
+        String resourcePath = "/tessdata/" + lang + ".traineddata";
+        Path target = tessDir.resolve(lang + ".traineddata");
+        Expected expected = expected(lang, resourcePath);
+        if (expected == null) {
+            // Pas embarqué : fichier fourni par l'utilisateur, pris tel quel
+            if (Files.notExists(target)) System.err.println("[Tessdata] Ressource introuvable: " + resourcePath);
+            return;
+        }
+        if (matches(target, expected)) return;
+        if (Files.exists(target)) System.err.println("[Tessdata] Checksum invalide, re-copie: " + target);
+        copyAtomically(resourcePath, target, lang, expected);
+    }
+
+    private static Expected expected(String lang, String resourcePath) throws IOException {
+        Expected e = RESOURCE_DIGESTS.get(lang);
+        if (e == null) e = MANIFEST_ENTRIES.get(lang);
+        if (e != null) return e;
+        try (InputStream is = TessdataBootstrapper.class.getResourceAsStream(resourcePath)) {
+            if (is == null) return null;
+            MessageDigest md = sha256();
+            long size = 0;
+            byte[] buf = new byte[64 * 1024];
+            for (int n; (n = is.read(buf)) > 0; size += n) md.update(buf, 0, n);
+            e = new Expected(HexFormat.of().formatHex(md.digest()), size);
+        }
+        RESOURCE_DIGESTS.put(lang, e);
+        return e;
+    }
+
+    private static boolean matches(Path file, Expected expected) throws IOException {
+        if (Files.notExists(file)) return false;
+        long size = Files.size(file);
+        if (size != expected.size()) return false;
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        Verified v = VERIFIED.get(file);
+        if (v != null && v.size() == size && v.modified() == modified) return v.sha256().equals(expected.sha256());
+        String sha = mappedSha256(file);
+        VERIFIED.put(file, new Verified(size, modified, sha));
+        return sha.equals(expected.sha256());
+    }
+
+    // Lecture mmap par tranches (une projection est limitée à 2 Go)
+    private static String mappedSha256(Path file) throws IOException {
+        MessageDigest md = sha256();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            for (long pos = 0; pos < size; pos += MAP_CHUNK) {
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_CHUNK, size - pos));
+                md.update(buf);
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static void copyAtomically(String resourcePath, Path target, String lang, Expected expected) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            MessageDigest md = sha256();
+            try (InputStream is = TessdataBootstrapper.class.getResourceAsStream(resourcePath)) {
+                if (is == null) throw new IOException("Ressource introuvable: " + resourcePath);
+                Files.copy(new DigestInputStream(is, md), tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ch.force(true);
+            }
+            String sha = HexFormat.of().formatHex(md.digest());
+            long size = Files.size(tmp);
+            if (!sha.equals(expected.sha256()) || size != expected.size()) {
+                // Le jar embarque une autre version que le manifeste : la ressource fait foi
+                System.err.println("[Tessdata] Manifeste périmé pour " + lang + " (sha256=" + sha + ")");
+                RESOURCE_DIGESTS.put(lang, new Expected(sha, size));
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
+            VERIFIED.put(target, new Verified(size, Files.getLastModifiedTime(target).toMillis(), sha));
+            System.out.println("[Tessdata] Copié: " + target);
+        } finally {
+            if (tmp != null) {
+                try { Files.deleteIfExists(tmp); } catch (IOException ignore) { }
+            }
+        }
+    }
+
+    // Format : "<sha256>  <taille>  <fichier>", lignes # ignorées
+    private static Map<String, Expected> loadManifest() {
+        Map<String, Expected> out = new ConcurrentHashMap<>();
+        try (InputStream is = TessdataBootstrapper.class.getResourceAsStream(MANIFEST)) {
+            if (is == null) return out;
+            BufferedReader r = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+            for (String line; (line = r.readLine()) != null; ) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split("\\s+");
+                if (parts.length < 3 || !parts[2].endsWith(".traineddata")) continue;
+                String lang = parts[2].substring(0, parts[2].length() - ".traineddata".length());
+                out.put(lang, new Expected(parts[0].toLowerCase(java.util.Locale.ROOT), Long.parseLong(parts[1])));
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("[Tessdata] Manifeste illisible: " + e.getMessage());
+        }
+        return out;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 }
@@ -0,0 +1,201 @@
+package com.phoenixcorp.overlay;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import io.micrometer.core.instrument.Counter;
+import net.sourceforge.tess4j.Tesseract;
+import net.sourceforge.tess4j.TesseractException;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moteurs Tesseract initialisés une seule fois, par (datapath, langue).
+ * Tesseract.doOCR() de tess4j refait TessBaseAPIInit (chargement du traineddata) à chaque appel :
+ * ici le handle natif reste ouvert et chaque frame ne fait que SetImage + GetUTF8Text.
+ * Un moteur n'est utilisé que par un thread à la fois (emprunt / restitution).
+ * Mode de segmentation et liste blanche sont réglés par passe (Pass) : un même moteur sert toutes les passes.
+ */
+public final class TesseractEnginePool {
+
+    static final int MAX_IDLE = 2;
+
+    // Moteurs libres gardés par pool : au moins MAX_IDLE, relevé au nombre de workers OCR (OcrScheduler)
+    private static volatile int maxIdle = MAX_IDLE;
+
+    private static final Counter ENGINE_INITS = Counter.builder("ocr.engine.inits")
+            .description("Moteurs Tesseract initialisés (chargement du traineddata)")
+            .register(PipelineMetrics.REGISTRY);
+
+    private record Key(String datapath, String lang) { }
+
+    /** Réglages d'une passe : mode de segmentation Tesseract (PSM) et caractères autorisés ("" = tous). */
+    public record Pass(int pageSegMode, String whitelist) {
+        public static final Pass BLOCK = new Pass(6, "");   // Bloc de texte uniforme, sans liste blanche
+    }
+
+    /** Texte reconnu et confiance (0..100) du mot le moins sûr ; -1 si aucun mot. */
+    public record Result(String text, int minWordConfidence) { }
+
+    private static final Map<Key, TesseractEnginePool> POOLS = new ConcurrentHashMap<>();
+
+    /** Pool partagé pour ce datapath (null = défaut tess4j) et cette langue ("eng", "eng+osd"...). */
+    public static TesseractEnginePool of(String datapath, String lang) {
+        Key key = new Key(datapath == null || datapath.isBlank() ? null : datapath,
+                          lang == null || lang.isBlank() ? "eng" : lang);
+        return POOLS.computeIfAbsent(key, TesseractEnginePool::new);
+    }
+
+    /** Ferme les moteurs inactifs des autres langues / datapaths (changement de tessLang). */
+    public static void trimExcept(TesseractEnginePool keep) {
+        for (TesseractEnginePool p : POOLS.values()) {
+            if (p != keep) p.closeIdle();
+        }
+    }
+
+    /** Garde au moins n moteurs libres par pool (n lectures OCR simultanées, toutes sessions confondues). */
+    public static void reserveIdle(int n) {
+        maxIdle = Math.max(maxIdle, n);
+    }
+
+    /** Handle natif ouvert une fois ; accès protégés de tess4j (init / setImage / getOCRText / dispose). */
+    private static final class Engine extends Tesseract {
+        private int pageSegMode = Pass.BLOCK.pageSegMode();
+        private String whitelist = Pass.BLOCK.whitelist();
+
+        Engine(Key key) {
+            if (key.datapath() != null) setDatapath(key.datapath()); // Doit pointer sur le dossier "tessdata"
+            setLanguage(key.lang());
+            setOcrEngineMode(3); // OEM_DEFAULT
+            setPageSegMode(6);   // Bloc de texte uniforme
+            setTessVariable("debug_file", "NUL");
+            init();
+            setVariables();
+            String loaded = getAPI().TessBaseAPIGetInitLanguagesAsString(getHandle());
+            if (loaded == null || loaded.isBlank()) {
+                dispose();
+                throw new IllegalStateException("Init Tesseract impossible (lang=" + key.lang() + ", datapath=" + key.datapath() + ")");
+            }
+        }
+
+        Result recognize(BufferedImage img, Pass pass) throws IOException {
+            apply(pass);
+            try {
+                setImage(img);
+                String text = getOCRText(null, 0);
+                return new Result(text, text == null ? -1 : minWordConfidence());
+            } finally {
+                getAPI().TessBaseAPIClear(getHandle());
+            }
+        }
+
+        // Variables changées seulement quand la passe diffère de la précédente sur ce moteur
+        private void apply(Pass pass) {
+            if (pass.pageSegMode() != pageSegMode) {
+                getAPI().TessBaseAPISetPageSegMode(getHandle(), pass.pageSegMode());
+                pageSegMode = pass.pageSegMode();
+            }
+            if (!pass.whitelist().equals(whitelist)) {
+                getAPI().TessBaseAPISetVariable(getHandle(), "tessedit_char_whitelist", pass.whitelist());
+                whitelist = pass.whitelist();
+            }
+        }
+
+        // Tableau natif terminé par -1, libéré par TessDeleteIntArray
+        private int minWordConfidence() {
+            IntByReference all = getAPI().TessBaseAPIAllWordConfidences(getHandle());
+            if (all == null) return -1;
+            Pointer p = all.getPointer();
+            int min = -1, n = 0;
+            for (int c; (c = p.getInt(4L * n)) != -1; n++) {
+                min = min < 0 ? c : Math.min(min, c);
+            }
+            getAPI().TessDeleteIntArray(p.getByteBuffer(0, 4L * (n + 1)).asIntBuffer());
+            return min;
+        }
+
+        void close() {
+            dispose();
+        }
+    }
+
+    private final Key key;
+    private final ConcurrentLinkedDeque<Engine> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    private TesseractEnginePool(Key key) {
+        this.key = key;
+    }
+
+    /** OCR sur un moteur du pool ; n'initialise un moteur que si aucun n'est libre. */
+    public String recognize(BufferedImage img) throws TesseractException {
+        return recognize(img, Pass.BLOCK).text();
+    }
+
+    /** OCR avec les réglages de pass, texte et confiance par mot. */
+    public Result recognize(BufferedImage img, Pass pass) throws TesseractException {
+        Engine e = borrow();
+        boolean healthy = false;
+        try {
+            Result result = e.recognize(img, pass);
+            healthy = true;
+            return result;
+        } catch (IOException ex) {
+            healthy = true; // conversion d'image, le moteur reste utilisable
+            throw new TesseractException(ex);
+        } finally {
+            if (healthy) release(e); else e.close();
+        }
+    }
+
+    /** Initialise des moteurs jusqu'à en avoir count libres (hors chemin critique) ; rend le nombre libre. */
+    public int prewarm(int count) {
+        int target = Math.min(count, maxIdle);
+        while (idleCount.get() < target) {
+            release(create());
+        }
+        return idleCount.get();
+    }
+
+    public int idle() {
+        return idleCount.get();
+    }
+
+    private Engine borrow() {
+        Engine e = idle.pollFirst();
+        if (e != null) {
+            idleCount.decrementAndGet();
+            return e;
+        }
+        return create();
+    }
+
+    private void release(Engine e) {
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offerFirst(e);
+        } else {
+            idleCount.decrementAndGet();
+            e.close();
+        }
+    }
+
+    private Engine create() {
+        long t0 = System.nanoTime();
+        Engine e = new Engine(key);
+        ENGINE_INITS.increment();
+        System.out.println("[OCR] Moteur " + key.lang() + " initialisé en "
+                + (System.nanoTime() - t0) / 1_000_000 + " ms");
+        return e;
+    }
+
+    private void closeIdle() {
+        for (Engine e; (e = idle.pollFirst()) != null; ) {
+            idleCount.decrementAndGet();
+            e.close();
+        }
+    }
+}
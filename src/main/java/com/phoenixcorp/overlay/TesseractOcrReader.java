@@ -1,19 +1,68 @@
 package com.phoenixcorp.overlay;
 
-import net.sourceforge.tess4j.Tesseract;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
 import net.sourceforge.tess4j.TesseractException;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Capture de la zone OCR puis cascade de passes Tesseract (si activée) :
+ * - FAST : lignes de texte mises bout à bout et réduites (OcrImages.textLine), PSM 7, liste blanche
+ *   chiffres / '/' / lettres des types de ressource
+ * - FULL : capture brute, PSM 6 (la passe unique d'avant la cascade)
+ * - ALT : capture normalisée et agrandie x2, PSM 6
+ * Une passe est acceptée si chaque mot a au moins minConfidence et que vie et ressource sont lues en entier
+ * (cur <= max, type reconnu) ; sinon la suivante est tentée. ALT n'est tentée que si FULL n'est pas lue en
+ * entier : pire cas FAST + FULL + ALT. Si aucune n'est acceptée, le texte de FULL (ou ALT) est analysé
+ * comme sans cascade. Taux par passe : ocr.tier{tier,result}, cascadeStats().
+ */
 public final class TesseractOcrReader implements OcrReader {
 
+    /** Passe de la cascade, dans l'ordre où elles sont tentées. */
+    public enum Tier {
+        FAST, FULL, ALT;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+        final Counter hit = PipelineMetrics.ocrTier(tag, "hit");
+        final Counter miss = PipelineMetrics.ocrTier(tag, "miss");
+        final Counter fallback = PipelineMetrics.ocrTier(tag, "fallback");
+        final Timer time = PipelineMetrics.ocrTierTime(tag);
+    }
+
+    /** Réglages (config.json ocrCascade*) ; enabled false = passe FULL seule, comme avant la cascade. */
+    public record Cascade(boolean enabled, int minConfidence) {
+        public static Cascade from(Config cfg) {
+            return new Cascade(cfg.ocrCascadeOrDefault(), Math.max(0, Math.min(100, cfg.ocrCascadeMinConfidenceOrDefault())));
+        }
+    }
+
+    /** Passes tentées, acceptées, lectures tolérantes (aucune passe acceptée) et durée moyenne (ms). */
+    public record TierStats(Tier tier, long attempts, long hits, long fallbacks, double avgMs) { }
+
+    // Hauteur max d'une ligne pour la passe rapide : les chiffres restent lisibles, l'image est plus petite
+    static final int FAST_LINE_HEIGHT = 24;
+    static final TesseractEnginePool.Pass FAST_PASS =
+            new TesseractEnginePool.Pass(7, "0123456789/:ACEFGILMNOPQRSTUWYacefgilmnopqrstuwyÉé");
+
     private final Rectangle captureArea;
-    private final Tesseract tess;
+    private final TesseractEnginePool engines;
+    private volatile Cascade cascade = new Cascade(true, 80);
+
+    // Par passe (index = Tier.ordinal()) : tentatives, acceptées, tolérantes, nanos
+    private final AtomicLongArray attempts = new AtomicLongArray(Tier.values().length);
+    private final AtomicLongArray hits = new AtomicLongArray(Tier.values().length);
+    private final AtomicLongArray fallbacks = new AtomicLongArray(Tier.values().length);
+    private final AtomicLongArray nanos = new AtomicLongArray(Tier.values().length);
 
     // HP: n'importe quel "nnnn/nnnn"
     private static final Pattern HP_PATTERN =
@@ -33,74 +82,116 @@ public final class TesseractOcrReader implements OcrReader {
 
     public TesseractOcrReader(Rectangle captureArea, String tessDataPath, String lang) {
         this.captureArea = new Rectangle(captureArea);
-        this.tess = new Tesseract();
-        if (tessDataPath != null && !tessDataPath.isBlank()) {
-            tess.setDatapath(tessDataPath); // Doit pointer sur le dossier "tessdata"
+        // Moteurs partagés par (datapath, langue) : pas d'init Tesseract par frame ni par lecteur
+        this.engines = TesseractEnginePool.of(tessDataPath, lang);
+    }
+
+    /**
+     * Initialise un moteur du pool puis passe OCR sur une image factice : lib native, traineddata et
+     * modèle chargés hors chemin critique, la première vraie frame n'est pas une valeur aberrante.
+     * N'altère pas l'état du parseur.
+     */
+    public boolean warmUp() {
+        BufferedImage img = new BufferedImage(240, 48, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, img.getWidth(), img.getHeight());
+            g.setColor(Color.BLACK);
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 20));
+            g.drawString("100/100 MANA 50/100", 8, 32);
+        } finally {
+            g.dispose();
+        }
+        try {
+            engines.prewarm(1);
+            engines.recognize(img);
+            return true;
+        } catch (Throwable t) {
+            System.err.println("[OCR] warm-up failed: " + t.getMessage());
+            return false;
+        }
+    }
+
+    /** Pool de moteurs utilisé par ce lecteur. */
+    public TesseractEnginePool engines() {
+        return engines;
+    }
+
+    public Cascade cascade() {
+        return cascade;
+    }
+
+    public void setCascade(Cascade cascade) {
+        this.cascade = cascade;
+    }
+
+    public List<TierStats> cascadeStats() {
+        List<TierStats> out = new ArrayList<>();
+        for (Tier t : Tier.values()) {
+            int i = t.ordinal();
+            long n = attempts.get(i);
+            out.add(new TierStats(t, n, hits.get(i), fallbacks.get(i), n == 0 ? 0 : nanos.get(i) / 1e6 / n));
         }
-        tess.setLanguage((lang == null || lang.isBlank()) ? "eng" : lang);
+        return out;
+    }
 
-        // Laisse Tesseract choisir le moteur dispo
-        tess.setOcrEngineMode(3); // OEM_DEFAULT
-        tess.setPageSegMode(6);   // Bloc de texte uniforme
-        try { tess.setTessVariable("debug_file", "NUL"); } catch (Exception ignore) {}
-        try { tess.setConfigs(java.util.Collections.emptyList()); } catch (Exception ignore) {}
+    /** Zone écran lue (vie et ressource). */
+    public Rectangle captureArea() {
+        return new Rectangle(captureArea);
     }
 
     @Override
     public Snapshot read() {
         try {
-            BufferedImage img = new Robot().createScreenCapture(captureArea);
-            String raw = tess.doOCR(img);
-            if (raw == null) return null;
-
-            // Normalisation simple (pour matcher "ÉNERGIE" etc.)
-            String text = stripAccents(raw);
-
-            // ====== HP ======
-            int hpCur = -1, hpMax = -1;
-            Matcher hp = HP_PATTERN.matcher(text);
-            if (hp.find()) {
-                hpCur = parseSafe(hp.group(1));
-                hpMax = parseSafe(hp.group(2));
-                if (hpMax > 0) lastHpMax = hpMax;
+            return read(CapturedFrame.grab(captureArea));
+        } catch (AWTException e) {
+            System.err.println("[OCR] " + e.getMessage());
+            return null;
+        } catch (Throwable t) {
+            System.err.println("[OCR] Unexpected: " + t.getMessage());
+            return null;
+        }
+    }
+
+    /** Vie et ressource lues dans la capture partagée frame (qui contient captureArea) ; null si illisible. */
+    public Snapshot read(CapturedFrame frame) {
+        try {
+            BufferedImage img = frame.crop(captureArea);
+            if (img == null) {
+                PipelineMetrics.DROPPED_UNREADABLE.increment();
+                return null;
+            }
+            long t1 = System.nanoTime();
+            String raw = recognize(img);
+            long t2 = System.nanoTime();
+            PipelineMetrics.OCR.record(t2 - t1, TimeUnit.NANOSECONDS);
+            if (raw == null) {
+                PipelineMetrics.DROPPED_UNREADABLE.increment();
+                return null;
             }
 
-            // ====== RESOURCE (avec token obligatoire) ======
-            int resCur = -1, resMax = -1;
-            ResourceType type = lastType;
-
-            Matcher rm = RES_PATTERN.matcher(text);
-            while (rm.find()) {
-                String token = rm.group(1);
-                int cur = parseSafe(rm.group(2));
-                int max = parseSafe(rm.group(3));
-                ResourceType t = toType(token);
-                if (t != ResourceType.UNKNOWN && max > 0) {
-                    type = t;
-                    resCur = cur;
-                    resMax = max;
-                    break; // on prend la première occurrence valide
+            PipelineEvents.ParseEvent parse = new PipelineEvents.ParseEvent();
+            parse.begin();
+            Snapshot s = parse(raw);
+            parse.end();
+            PipelineMetrics.PARSE.record(System.nanoTime() - t2, TimeUnit.NANOSECONDS);
+            if (parse.shouldCommit()) {
+                parse.success = s != null;
+                if (s != null) {
+                    parse.hpCur = s.hpCur; parse.hpMax = s.hpMax;
+                    parse.resCur = s.resCur; parse.resMax = s.resMax;
+                    parse.resourceType = s.type.name();
                 }
+                parse.commit();
             }
+            if (s == null) {
+                PipelineMetrics.DROPPED_UNREADABLE.increment();
+                return null;
+            }
+            return s.stamped(0L, frame.startNanos(), t2); // n° de frame attribué par OcrRunner
 
-            // Conserve les max connus si non lus cette frame (évite de retomber à 0)
-            if (hpMax <= 0) hpMax = lastHpMax;
-            if (resMax <= 0) resMax = lastResMax;
-
-            // Si on a bien eu une ressource valide, mémorise son max
-            if (resMax > 0) lastResMax = resMax;
-            lastType = type;
-
-            // Sanity + clamp
-            if (hpMax <= 0 || resMax <= 0) return null;
-            if (hpCur < 0) hpCur = 0;
-            if (resCur < 0) resCur = 0;
-            hpCur = Math.min(hpCur, hpMax);
-            resCur = Math.min(resCur, resMax);
-
-            return new Snapshot(hpCur, hpMax, resCur, resMax, type);
-
-        } catch (AWTException | TesseractException e) {
+        } catch (TesseractException e) {
             System.err.println("[OCR] " + e.getMessage());
             return null;
         } catch (Throwable t) {
@@ -109,6 +200,132 @@ public final class TesseractOcrReader implements OcrReader {
         }
     }
 
+    /** Texte OCR de img : cascade de passes, ou passe FULL seule si la cascade est désactivée. */
+    String recognize(BufferedImage img) throws TesseractException {
+        Cascade c = cascade;
+        if (!c.enabled()) return pass(Tier.FULL, img, TesseractEnginePool.Pass.BLOCK).text();
+
+        BufferedImage norm = OcrImages.normalize(img);
+        BufferedImage line = norm == null ? null : OcrImages.textLine(norm, FAST_LINE_HEIGHT);
+        TesseractEnginePool.Result fast = line == null ? null : pass(Tier.FAST, line, FAST_PASS);
+        if (accepted(Tier.FAST, fast, c)) return fast.text();
+        TesseractEnginePool.Result full = pass(Tier.FULL, img, TesseractEnginePool.Pass.BLOCK);
+        if (accepted(Tier.FULL, full, c)) return full.text();
+        // FULL lu en entier mais sous le seuil : ALT n'y changerait rien (police du HUD peu confiante),
+        // on évite la passe x4 pixels à chaque frame et on garde FULL en lecture tolérante
+        boolean fullComplete = full.text() != null && reading(full.text()).complete();
+        TesseractEnginePool.Result alt = fullComplete || norm == null ? null
+                : pass(Tier.ALT, OcrImages.upscale(norm, 2), TesseractEnginePool.Pass.BLOCK);
+        if (accepted(Tier.ALT, alt, c)) return alt.text();
+
+        // Aucune passe sûre : lecture tolérante comme sans cascade (max / type connus repris par parse)
+        Tier used = full.text() == null && alt != null ? Tier.ALT : Tier.FULL;
+        fallbacks.incrementAndGet(used.ordinal());
+        used.fallback.increment();
+        return used == Tier.ALT ? alt.text() : full.text();
+    }
+
+    private TesseractEnginePool.Result pass(Tier tier, BufferedImage img, TesseractEnginePool.Pass settings)
+            throws TesseractException {
+        PipelineEvents.OcrPassEvent pass = new PipelineEvents.OcrPassEvent();
+        pass.begin();
+        long t0 = System.nanoTime();
+        TesseractEnginePool.Result r = engines.recognize(img, settings);
+        long dt = System.nanoTime() - t0;
+        pass.end();
+        attempts.incrementAndGet(tier.ordinal());
+        nanos.addAndGet(tier.ordinal(), dt);
+        tier.time.record(dt, TimeUnit.NANOSECONDS);
+        if (pass.shouldCommit()) {
+            pass.tier = tier.tag;
+            pass.inputPixels = img.getWidth() * img.getHeight();
+            pass.characters = r.text() == null ? 0 : r.text().length();
+            pass.commit();
+        }
+        return r;
+    }
+
+    // Passe sûre : tous les mots au-dessus du seuil et lecture complète (sans reprendre de valeur connue).
+    // Passe non exécutée (r == null : image non normalisable) : ni succès ni échec
+    private boolean accepted(Tier tier, TesseractEnginePool.Result r, Cascade c) {
+        if (r == null) return false;
+        boolean ok = r.text() != null && r.minWordConfidence() >= c.minConfidence()
+                && reading(r.text()).complete();
+        if (ok) {
+            hits.incrementAndGet(tier.ordinal());
+            tier.hit.increment();
+        } else {
+            tier.miss.increment();
+        }
+        return ok;
+    }
+
+    /** Valeurs lues dans un texte OCR (-1 / null si absentes), sans état. */
+    record Reading(int hpCur, int hpMax, int resCur, int resMax, ResourceType type) {
+        /** Vie et ressource lues en entier, cohérentes. */
+        boolean complete() {
+            return hpMax > 0 && resMax > 0 && type != null
+                    && hpCur >= 0 && hpCur <= hpMax && resCur >= 0 && resCur <= resMax;
+        }
+    }
+
+    static Reading reading(String raw) {
+        // Normalisation simple (pour matcher "ÉNERGIE" etc.)
+        String text = stripAccents(raw);
+
+        // ====== HP ======
+        int hpCur = -1, hpMax = -1;
+        Matcher hp = HP_PATTERN.matcher(text);
+        if (hp.find()) {
+            hpCur = parseSafe(hp.group(1));
+            hpMax = parseSafe(hp.group(2));
+        }
+
+        // ====== RESOURCE (avec token obligatoire) ======
+        int resCur = -1, resMax = -1;
+        ResourceType type = null;
+
+        Matcher rm = RES_PATTERN.matcher(text);
+        while (rm.find()) {
+            String token = rm.group(1);
+            int cur = parseSafe(rm.group(2));
+            int max = parseSafe(rm.group(3));
+            ResourceType t = toType(token);
+            if (t != ResourceType.UNKNOWN && max > 0) {
+                type = t;
+                resCur = cur;
+                resMax = max;
+                break; // on prend la première occurrence valide
+            }
+        }
+        return new Reading(hpCur, hpMax, resCur, resMax, type);
+    }
+
+    /** Texte OCR brut → Snapshot (null si inexploitable). Met à jour les derniers max / type connus. */
+    Snapshot parse(String raw) {
+        Reading r = reading(raw);
+        int hpCur = r.hpCur(), hpMax = r.hpMax(), resCur = r.resCur(), resMax = r.resMax();
+        if (hpMax > 0) lastHpMax = hpMax;
+        ResourceType type = r.type() != null ? r.type() : lastType;
+
+        // Conserve les max connus si non lus cette frame (évite de retomber à 0)
+        if (hpMax <= 0) hpMax = lastHpMax;
+        if (resMax <= 0) resMax = lastResMax;
+
+        // Si on a bien eu une ressource valide, mémorise son max
+        if (resMax > 0) lastResMax = resMax;
+        lastType = type;
+
+        // Sanity + clamp
+        if (hpMax <= 0 || resMax <= 0) return null;
+        if (hpCur < 0) hpCur = 0;
+        if (resCur < 0) resCur = 0;
+        hpCur = Math.min(hpCur, hpMax);
+        resCur = Math.min(resCur, resMax);
+
+        return new Snapshot(hpCur, hpMax, resCur, resMax, type);
+    }
+
     private static int parseSafe(String s) {
         try { return Integer.parseInt(s); } catch (Exception e) { return -1; }
     }
@@ -0,0 +1,65 @@
+package com.phoenixcorp.overlay;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stat affichée en texte : "cur/max" (vie de la cible...), ou nombre seul rapporté à max (points de combo).
+ * Passe rapide de la cascade (lignes bout à bout, PSM 7) avec une liste blanche de chiffres ; zone sans texte
+ * (pas de cible) = stat vide, barre éteinte.
+ */
+public final class TextStatExtractor implements StatExtractor {
+
+    static final TesseractEnginePool.Pass DIGITS = new TesseractEnginePool.Pass(7, "0123456789/");
+    static final int MIN_CONFIDENCE = 60;
+
+    private static final Pattern RATIO = Pattern.compile("(\\d{1,7})\\s*/\\s*(\\d{1,7})");
+    private static final Pattern NUMBER = Pattern.compile("\\d{1,7}");
+
+    private final String id;
+    private final Rectangle region;
+    private final long periodMs;
+    private final int max;
+    private final TesseractEnginePool engines;
+
+    /** max : dénominateur d'un nombre seul (0 = "cur/max" obligatoire). */
+    public TextStatExtractor(String id, Rectangle region, long periodMs, int max, TesseractEnginePool engines) {
+        this.id = id;
+        this.region = new Rectangle(region);
+        this.periodMs = periodMs;
+        this.max = max;
+        this.engines = engines;
+    }
+
+    @Override public String id()          { return id; }
+    @Override public Rectangle region()   { return new Rectangle(region); }
+    @Override public long periodMs()      { return periodMs; }
+
+    @Override
+    public OcrReader.Stat extract(BufferedImage crop) throws Exception {
+        BufferedImage norm = OcrImages.normalize(crop);
+        BufferedImage line = norm == null ? null : OcrImages.textLine(norm, TesseractOcrReader.FAST_LINE_HEIGHT);
+        if (line == null) return new OcrReader.Stat(0, 0);
+        TesseractEnginePool.Result r = engines.recognize(line, DIGITS);
+        if (r.text() == null || r.minWordConfidence() < MIN_CONFIDENCE) return null;
+        return parse(r.text());
+    }
+
+    /** Texte → stat ; null si ni "cur/max" ni (avec max) nombre seul, ou cur > max. */
+    OcrReader.Stat parse(String text) {
+        Matcher m = RATIO.matcher(text);
+        int cur, mx;
+        if (m.find()) {
+            cur = Integer.parseInt(m.group(1));
+            mx = Integer.parseInt(m.group(2));
+        } else if (max > 0 && (m = NUMBER.matcher(text)).find()) {
+            cur = Integer.parseInt(m.group());
+            mx = max;
+        } else {
+            return null;
+        }
+        return mx > 0 && cur <= mx ? new OcrReader.Stat(cur, mx) : null;
+    }
+}
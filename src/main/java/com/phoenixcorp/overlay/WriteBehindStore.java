@@ -0,0 +1,201 @@
+package com.phoenixcorp.overlay;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Écriture différée des fichiers JSON (config.json, lighting_overrides.json).
+ * - les mises à jour d'un même fichier sont fusionnées : on écrit DEBOUNCE_MS après la dernière,
+ *   au plus tard MAX_WAIT_MS après la première (un glisser de color picker = une écriture)
+ * - écriture sur un thread dédié : fichier temporaire, fsync, puis move atomique → jamais de fichier tronqué
+ * - flush() à l'arrêt (hook JVM) pour ne rien perdre
+ * - isOwnWrite() : le watcher (ConfigHotReloader) reconnaît nos écritures au contenu, même en retard sur la
+ *   mémoire ; une modification externe l'emporte sur l'écriture en attente
+ */
+public final class WriteBehindStore {
+    private static final WriteBehindStore INSTANCE = new WriteBehindStore();
+    public static WriteBehindStore getInstance() { return INSTANCE; }
+
+    static final long DEBOUNCE_MS = 250;
+    static final long MAX_WAIT_MS = 2000;
+
+    private static final Counter WRITES = Counter.builder("persistence.writes")
+            .description("Fichiers réellement écrits sur disque")
+            .register(PipelineMetrics.REGISTRY);
+    private static final Counter COALESCED = Counter.builder("persistence.coalesced")
+            .description("Mises à jour fusionnées avec une écriture en attente")
+            .register(PipelineMetrics.REGISTRY);
+
+    private static final class Pending {
+        final long firstAt;
+        long lastAt, seq;
+        byte[] data;
+        ScheduledFuture<?> task;
+
+        Pending(long now) { this.firstAt = now; }
+    }
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "write-behind");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<Path, Pending> pending = new HashMap<>();
+    private long seq;                                              // sous le verrou de pending
+    private final Map<Path, Long> writtenSeq = new HashMap<>();    // sous le verrou de l'instance
+    private final Map<Path, byte[]> written = new HashMap<>();     // idem : dernier contenu écrit par fichier
+
+    private WriteBehindStore() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "write-behind-flush"));
+    }
+
+    /** Programme l'écriture de data dans target (remplace une écriture en attente sur le même fichier). */
+    public void write(Path target, byte[] data) {
+        Path key = target.toAbsolutePath().normalize();
+        synchronized (pending) {
+            long now = System.nanoTime();
+            Pending p = pending.get(key);
+            if (p == null) {
+                p = new Pending(now);
+                pending.put(key, p);
+            } else {
+                COALESCED.increment();
+            }
+            p.data = data;
+            p.seq = ++seq;
+            p.lastAt = now;
+            if (p.task == null) {
+                p.task = executor.schedule(() -> tick(key), DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void tick(Path key) {
+        Pending p;
+        synchronized (pending) {
+            p = pending.get(key);
+            if (p == null) return;
+            long due = Math.min(p.lastAt + TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MS),
+                                p.firstAt + TimeUnit.MILLISECONDS.toNanos(MAX_WAIT_MS));
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                p.task = executor.schedule(() -> tick(key), wait, TimeUnit.NANOSECONDS);
+                return;
+            }
+            pending.remove(key);
+        }
+        writeAtomically(key, p.data, p.seq);
+    }
+
+    /** Écrit tout de suite ce qui est en attente (arrêt de l'appli). */
+    public void flush() {
+        List<Map.Entry<Path, Pending>> toWrite = new ArrayList<>();
+        synchronized (pending) {
+            for (Map.Entry<Path, Pending> e : pending.entrySet()) {
+                if (e.getValue().task != null) e.getValue().task.cancel(false);
+                toWrite.add(Map.entry(e.getKey(), e.getValue()));
+            }
+            pending.clear();
+        }
+        for (Map.Entry<Path, Pending> e : toWrite) {
+            writeAtomically(e.getKey(), e.getValue().data, e.getValue().seq);
+        }
+    }
+
+    /** Écrit tout de suite l'éventuelle version en attente de target (avant de le relire). */
+    public void flush(Path target) {
+        Path key = target.toAbsolutePath().normalize();
+        Pending p;
+        synchronized (pending) {
+            p = pending.remove(key);
+            if (p == null) return;
+            if (p.task != null) p.task.cancel(false);
+        }
+        writeAtomically(key, p.data, p.seq);
+    }
+
+    /**
+     * Vrai si un événement du watcher sur target vient de nous : le fichier contient exactement notre dernière
+     * écriture (éventuellement plus ancienne que la mémoire, la version en attente suivra). Sinon le fichier a été
+     * modifié par un autre (script de profil...) : l'écriture en attente est abandonnée pour ne pas l'écraser,
+     * l'appelant recharge le fichier.
+     */
+    public synchronized boolean isOwnWrite(Path target) {
+        Path key = target.toAbsolutePath().normalize();
+        byte[] last = written.get(key);
+        try {
+            if (last != null && Arrays.equals(last, Files.readAllBytes(key))) return true;
+        } catch (IOException e) {
+            return false;
+        }
+        Pending p;
+        synchronized (pending) {
+            p = pending.remove(key);
+            if (p != null && p.task != null) p.task.cancel(false);
+        }
+        if (p != null) {
+            System.err.println("[Persistence] " + key.getFileName() + " modifié hors de l'appli : écriture en attente abandonnée");
+        }
+        return false;
+    }
+
+    // Un seul écrivain à la fois (thread write-behind ou flush) ; une version plus ancienne que celle
+    // déjà écrite (tick en retard sur un flush) est ignorée
+    private synchronized void writeAtomically(Path target, byte[] data, long version) {
+        if (writtenSeq.getOrDefault(target, 0L) >= version) return;
+        Path tmp = null;
+        try {
+            Path dir = target.getParent();
+            if (dir != null) Files.createDirectories(dir);
+            tmp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+            keepPermissions(tmp, target);
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buf = ByteBuffer.wrap(data);
+                while (buf.hasRemaining()) ch.write(buf);
+                ch.force(true);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
+            writtenSeq.put(target, version);
+            written.put(target, data);
+            WRITES.increment();
+        } catch (IOException e) {
+            System.err.println("[Persistence] write error (" + target.getFileName() + "): " + e.getMessage());
+        } finally {
+            if (tmp != null) {
+                try { Files.deleteIfExists(tmp); } catch (IOException ignore) { }
+            }
+        }
+    }
+
+    // createTempFile crée en 600 : on garde les droits du fichier remplacé (644 sinon), hors Windows
+    private static void keepPermissions(Path tmp, Path target) {
+        try {
+            Files.setPosixFilePermissions(tmp, Files.exists(target)
+                    ? Files.getPosixFilePermissions(target)
+                    : PosixFilePermissions.fromString("rw-r--r--"));
+        } catch (UnsupportedOperationException | IOException ignore) { }
+    }
+}
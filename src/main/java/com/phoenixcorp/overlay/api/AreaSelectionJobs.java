@@ -0,0 +1,106 @@
+package com.phoenixcorp.overlay.api;
+
+import com.phoenixcorp.overlay.SelectCaptureArea;
+
+import java.awt.Rectangle;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sélections de zone OCR en tâche de fond : l'API rend un id tout de suite, l'overlay Swing complète
+ * la tâche. Une seule sélection à la fois (un seul overlay à l'écran) : une demande pendant une
+ * sélection en cours renvoie la même tâche.
+ */
+final class AreaSelectionJobs {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+    private static final int MAX_JOBS = 16;
+
+    enum State { PENDING, SELECTED, CANCELLED, TIMED_OUT, FAILED }
+
+    static final class Job {
+        final String id;
+        final Instant createdAt = Instant.now();
+        final CompletableFuture<Job> done = new CompletableFuture<>();
+        volatile State state = State.PENDING;
+        volatile Rectangle area;
+        volatile String error;
+
+        Job(String id) { this.id = id; }
+
+        Map<String, Object> toPayload() {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("jobId", id);
+            payload.put("state", state.name());
+            payload.put("createdAt", createdAt.toString());
+            payload.put("selected", state == State.SELECTED);
+            payload.put("timedOut", state == State.TIMED_OUT);
+            if (area != null) {
+                payload.put("x", area.x);
+                payload.put("y", area.y);
+                payload.put("width", area.width);
+                payload.put("height", area.height);
+            }
+            payload.put("status", switch (state) {
+                case PENDING -> "Sélection OCR en cours";
+                case SELECTED -> "Zone OCR définie";
+                case CANCELLED -> "Sélection OCR annulée";
+                case TIMED_OUT -> "Sélection OCR expirée";
+                case FAILED -> "Sélection OCR impossible" + (error != null ? ": " + error : "");
+            });
+            return payload;
+        }
+    }
+
+    private final LightingRuntime runtime;
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    private Job current;
+
+    AreaSelectionJobs(LightingRuntime runtime) {
+        this.runtime = runtime;
+    }
+
+    /** Démarre une sélection (ou rend celle en cours) ; ne bloque pas. */
+    Job start() {
+        Job job;
+        synchronized (this) {
+            if (current != null && current.state == State.PENDING) return current;
+            job = new Job(UUID.randomUUID().toString().substring(0, 8));
+            current = job;
+            jobs.put(job.id, job);
+            if (jobs.size() > MAX_JOBS) jobs.remove(jobs.keySet().iterator().next());
+        }
+        // Fin de tâche (sauvegarde de la config) hors EDT
+        SelectCaptureArea.selectAsync(TIMEOUT).whenCompleteAsync((result, t) -> finish(job, result, t),
+                r -> Thread.ofVirtual().name("ocr-area-" + job.id).start(r));
+        return job;
+    }
+
+    synchronized Job get(String id) {
+        return jobs.get(id);
+    }
+
+    private void finish(Job job, SelectCaptureArea.SelectionResult result, Throwable t) {
+        if (t != null) {
+            job.error = t.getMessage() != null ? t.getMessage() : t.getClass().getSimpleName();
+            job.state = State.FAILED;
+            System.err.println("[OCR] Sélection de zone impossible: " + job.error);
+        } else if (result.area() != null) {
+            try {
+                runtime.defineOcrArea(result.area());
+                job.area = result.area();
+                job.state = State.SELECTED;
+            } catch (Exception e) {
+                job.error = e.getMessage();
+                job.state = State.FAILED;
+            }
+        } else {
+            job.state = result.timedOut() ? State.TIMED_OUT : State.CANCELLED;
+        }
+        job.done.complete(job);
+    }
+}
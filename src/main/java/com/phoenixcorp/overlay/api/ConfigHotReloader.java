@@ -0,0 +1,122 @@
+package com.phoenixcorp.overlay.api;
+
+import com.phoenixcorp.overlay.ConfigManager;
+import com.phoenixcorp.overlay.LightingOverrides;
+import com.phoenixcorp.overlay.WriteBehindStore;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rechargement à chaud de config.json et lighting_overrides[-session].json (profils poussés par nos scripts).
+ * Un thread WatchService regroupe les événements (éditeurs = plusieurs écritures), relit et parse hors
+ * chemin critique, puis chaque session (LightingSessions) n'applique que ce qui a changé. Nos propres sauvegardes
+ * sont reconnues au contenu et ignorées (WriteBehindStore.isOwnWrite) : une version plus ancienne encore en cours
+ * d'écriture différée ne ramène pas le runtime en arrière, et une modification externe pendant l'attente est
+ * rechargée au lieu d'être écrasée.
+ */
+public final class ConfigHotReloader {
+
+    private static final long SETTLE_MS = 100;
+
+    private final LightingSessions sessions;
+    private final Path configFile;
+    private final Path overridesFile;
+    private WatchService watcher;
+    private Thread thread;
+
+    public ConfigHotReloader(LightingSessions sessions) {
+        this.sessions = sessions;
+        this.configFile = ConfigManager.getInstance().configPath().toAbsolutePath();
+        this.overridesFile = LightingOverrides.path();
+    }
+
+    public synchronized void start() {
+        if (thread != null) return;
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+            Set<Path> dirs = new HashSet<>();
+            dirs.add(configFile.getParent());
+            dirs.add(overridesFile.getParent());
+            for (Path dir : dirs) {
+                dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        } catch (IOException e) {
+            System.err.println("[Config] hot reload indisponible: " + e.getMessage());
+            return;
+        }
+        thread = Thread.ofPlatform().daemon().name("config-watch").start(this::loop);
+    }
+
+    private void loop() {
+        try {
+            while (true) {
+                Set<Path> changed = new HashSet<>();
+                collect(watcher.take(), changed);
+                // Laisse l'écriture se terminer puis regroupe les événements suivants
+                WatchKey more;
+                while ((more = watcher.poll(SETTLE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    collect(more, changed);
+                }
+                WriteBehindStore store = WriteBehindStore.getInstance();
+                if (changed.contains(configFile) && !store.isOwnWrite(configFile)) reloadConfig();
+                for (LightingSessions.Session s : sessions.list()) {
+                    Path file = LightingOverrides.path(s.runtime().scope().id());
+                    if (changed.contains(file) && !store.isOwnWrite(file)) reloadOverrides(s.runtime(), file);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // arrêt
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) {
+        Path dir = (Path) key.watchable();
+        for (WatchEvent<?> ev : key.pollEvents()) {
+            if (ev.context() instanceof Path name) changed.add(dir.resolve(name).toAbsolutePath());
+        }
+        key.reset();
+    }
+
+    private void reloadConfig() {
+        long t0 = System.nanoTime();
+        ConfigManager.getInstance().reload().ifPresent(change -> {
+            try {
+                sessions.applyConfigChange(change.previous(), change.current());
+                System.out.println("[Config] config.json rechargé en "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) + " ms");
+            } catch (Exception e) {
+                System.err.println("[Config] application de config.json impossible: " + e.getMessage());
+            }
+        });
+    }
+
+    private void reloadOverrides(LightingRuntime runtime, Path file) {
+        long t0 = System.nanoTime();
+        LightingOverrides fresh = LightingOverrides.readFile(file);
+        try {
+            if (runtime.applyOverridesChange(fresh)) {
+                System.out.println("[Overrides] " + file.getFileName() + " rechargé en "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) + " ms");
+            }
+        } catch (Exception e) {
+            System.err.println("[Overrides] application du fichier impossible: " + e.getMessage());
+        }
+    }
+
+    public synchronized void shutdown() {
+        if (watcher == null) return;
+        try { watcher.close(); } catch (IOException ignore) { }
+        watcher = null;
+        thread = null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.phoenixcorp.overlay.api;
+
+import com.phoenixcorp.overlay.PipelineEvents;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enregistrement JFR à la demande : les utilisateurs peuvent nous renvoyer un .jfr d'une session.
+ * Événements JVM "default" + événements pipeline (seuils des annotations, ou tous si all=true).
+ */
+@RestController
+@RequestMapping("/api/jfr")
+public class FlightRecorderController {
+
+    private static final List<Class<? extends Event>> PIPELINE_EVENTS = List.of(
+            PipelineEvents.CaptureEvent.class,
+            PipelineEvents.OcrPassEvent.class,
+            PipelineEvents.ParseEvent.class,
+            PipelineEvents.OcrTickEvent.class,
+            PipelineEvents.FrameRenderEvent.class,
+            PipelineEvents.FrameSendEvent.class,
+            PipelineEvents.SessionReconnectEvent.class
+    );
+
+    private Recording recording;
+
+    @PostMapping("/start")
+    public synchronized Map<String, Object> start(@RequestParam(defaultValue = "600") long maxAgeSeconds,
+                                                  @RequestParam(defaultValue = "false") boolean all) {
+        Map<String, Object> payload = new HashMap<>();
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            payload.put("started", false);
+            payload.put("status", "Enregistrement JFR déjà actif");
+            return payload;
+        }
+        try {
+            if (recording != null) recording.close();
+            Recording r = new Recording(Configuration.getConfiguration("default"));
+            r.setName("lightingdesigner");
+            r.setToDisk(true);
+            r.setMaxAge(Duration.ofSeconds(Math.max(10, maxAgeSeconds)));
+            for (Class<? extends Event> type : PIPELINE_EVENTS) {
+                if (all) r.enable(type).withThreshold(Duration.ZERO);
+                else r.enable(type);
+            }
+            r.start();
+            recording = r;
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "JFR indisponible: " + e.getMessage(), e);
+        }
+        payload.put("started", true);
+        payload.put("maxAgeSeconds", recording.getMaxAge().toSeconds());
+        payload.put("status", "Enregistrement JFR démarré");
+        return payload;
+    }
+
+    /** Vide l'enregistrement courant dans un fichier .jfr (l'enregistrement continue). */
+    @GetMapping("/dump")
+    public synchronized ResponseEntity<byte[]> dump() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Aucun enregistrement JFR actif");
+        }
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile("lightingdesigner-", ".jfr");
+            recording.dump(tmp);
+            byte[] data = Files.readAllBytes(tmp);
+            String name = "lightingdesigner-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".jfr";
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"")
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .body(data);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Dump JFR impossible: " + e.getMessage(), e);
+        } finally {
+            if (tmp != null) {
+                try { Files.deleteIfExists(tmp); } catch (Exception ignore) { }
+            }
+        }
+    }
+
+    @PostMapping("/stop")
+    public synchronized Map<String, Object> stop() {
+        Map<String, Object> payload = new HashMap<>();
+        boolean stopped = recording != null && recording.getState() == RecordingState.RUNNING;
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        payload.put("stopped", stopped);
+        payload.put("status", stopped ? "Enregistrement JFR arrêté" : "Aucun enregistrement JFR actif");
+        return payload;
+    }
+}
@@ -1,32 +1,229 @@
 package com.phoenixcorp.overlay.api;
 
 import com.phoenixcorp.overlay.*;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 
 import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
 
 /**
- * Service runtime centralisant les interactions OCR ↔ Chroma.
+ * Service runtime centralisant les interactions OCR ↔ sorties LEDs (Chroma, OpenRGB... cf. OutputSink).
  */
 public class LightingRuntime {
 
-    private final ChromaSessionManager chroma = new ChromaSessionManager();
+    /** Notifié à chaque frame rendue (thread OCR, sous verrou runtime) : doit rester non bloquant. */
+    public interface FrameListener {
+        void onFrame(int[][] matrix, OcrReader.Snapshot snapshot);
+    }
+
+    /**
+     * Portée d'une session : id (null = session principale) et périphériques ciblés (null = tous).
+     * Zone OCR dans config.json (sessions[id]), overrides dans lighting_overrides-<id>.json.
+     * Les sessions nommées partagent le Chroma de la principale : leur shutdown() ne le ferme pas.
+     * Les sorties ajoutées par addSink() appartiennent au runtime (fermées par son shutdown()).
+     */
+    public record Scope(String id, Set<DeviceLayout.Device> devices) {
+        public static final Scope PRIMARY = new Scope(null, null);
+
+        public boolean primary() {
+            return id == null;
+        }
+
+        public boolean targets(DeviceLayout.Device d) {
+            return devices == null || devices.contains(d);
+        }
+
+        /** Noms de périphériques de config.json (null ou vide = tous ; inconnus ignorés). */
+        public static Scope of(String id, List<String> deviceNames) {
+            if (deviceNames == null || deviceNames.isEmpty()) return new Scope(id, null);
+            Set<DeviceLayout.Device> devices = EnumSet.noneOf(DeviceLayout.Device.class);
+            for (String name : deviceNames) {
+                DeviceLayout.Device d = DeviceLayout.Device.fromName(name);
+                if (d == null) System.err.println("[Sessions] périphérique inconnu ignoré: " + name);
+                else devices.add(d);
+            }
+            return new Scope(id, devices.isEmpty() ? null : Collections.unmodifiableSet(devices));
+        }
+    }
+
+    private final Scope scope;
+    private final ChromaSessionManager chroma;   // null si Chroma n'est pas une sortie (config.json outputs)
+    private final List<OutputSink> sinks = new CopyOnWriteArrayList<>();
     private final ColorMatrixBuilder builder  = new ColorMatrixBuilder();
 
     private LightingOverrides overrides;
     private SnapshotToMatrix snapshotToMatrix;
     private OcrRunner ocrRunner;
+    private OcrRunner outputRunner;        // cadence de sortie quand l'interpolation est active
+    private volatile SnapshotInterpolator interpolator;
+
+    // OCR → abonnés (sortie, métriques...) : le thread OCR ne fait que publier
+    private final SnapshotBus bus;
+    private boolean subscribed;   // abonnés du runtime posés au premier start() (rien n'est publié avant)
+    // Abonné "output" : lectures bruitées et oscillations autour d'une LED retenues avant le rendu
+    private final SnapshotFilter filter;
+    private volatile TesseractOcrReader ocrReader;   // dernier lecteur démarré (cascade, taux par passe)
+    private volatile FrameReader frameReader;        // idem avec extracteurs de stats (null sans extracteur)
+    private final double[] lastFills = {Double.NaN, Double.NaN};   // HP, ressource (abonné "metrics")
 
     private volatile OcrReader.Snapshot lastSnapshot;
     private volatile int[][] lastMatrix;
+    // Dernière frame clavier prise par chaque sortie : une sortie qui refuse (occupée, en reconnexion, frame trop
+    // vieille) la reçoit aux ticks suivants, même si les autres l'ont déjà
+    private final Map<OutputSink, int[][]> delivered = new IdentityHashMap<>();
+    private boolean sinksBehind;   // une sortie n'a pas la dernière frame : pas de saut au delta
     private double lastHpPct  = -1.0;
     private double lastResPct = -1.0;
+    private Map<String, OcrReader.Stat> lastStats = Map.of();   // stats d'extracteurs de la dernière frame envoyée
 
     private final double minDeltaPct = 0.01; // 1%
 
+    private final List<FrameListener> frameListeners = new CopyOnWriteArrayList<>();
+
+    // Journal binaire de chaque snapshot (valeurs, devenir de la frame, latence d'envoi) ; /api/recorder
+    private final SessionRecorder recorder;
+
+    /** Aperçu figé pour une version donnée (matrice à ne pas modifier). */
+    public record PreviewFrame(long version, int[][] matrix, OcrReader.Snapshot snapshot) { }
+
+    // Version de l'aperçu : +1 quand le snapshot (valeurs) ou les overrides changent
+    private final AtomicLong frameVersion = new AtomicLong(1);
+    private volatile PreviewFrame previewCache;
+
+    // Rendus "what-if" (/api/render, aperçu JavaFX) : version des overrides + LRU
+    private long overridesVersion = 1;
+    private final RenderCache renderCache = new RenderCache();
+
+    // Lecteur OCR préparé en tâche de fond (tessdata + moteur chauffé), repris par start() si les réglages n'ont pas bougé
+    private record OcrSettings(Rectangle area, String tessDataPath, String lang) { }
+    private record PreparedReader(OcrSettings settings, TesseractOcrReader reader) { }
+    private CompletableFuture<PreparedReader> preparedReader;
+    private final Object tessdataLock = new Object(); // warm-up et start() peuvent résoudre tessdata en même temps
+
     public LightingRuntime(LightingOverrides overrides) {
-        this.overrides = overrides == null ? LightingOverrides.loadOrDefaults() : overrides;
+        this(overrides, new ChromaSessionManager());
+    }
+
+    /** Designer JavaFX : journal "designer", distinct de celui du serveur (chacun ne purge que ses segments). */
+    public LightingRuntime(LightingOverrides overrides, ChromaSessionManager chroma) {
+        this(overrides, chroma, new SessionRecorder(SessionRecorder.defaultDir(), "designer"));
+    }
+
+    /** Enregistreur fourni : replay et benchmarks écrivent ailleurs que dans le journal de l'utilisateur. */
+    public LightingRuntime(LightingOverrides overrides, ChromaSessionManager chroma, SessionRecorder recorder) {
+        this(Scope.PRIMARY, overrides, chroma, recorder);
+    }
+
+    /** Session nommée (LightingSessions) : chroma est celui de la session principale (null = pas de Chroma). */
+    public LightingRuntime(Scope scope, LightingOverrides overrides, ChromaSessionManager chroma, SessionRecorder recorder) {
+        this.scope = scope;
+        this.chroma = chroma;
+        if (chroma != null) sinks.add(chroma);
+        this.recorder = recorder;
+        this.overrides = overrides == null ? LightingOverrides.loadOrDefaults(LightingOverrides.path(scope.id())) : overrides;
         this.snapshotToMatrix = new SnapshotToMatrix(builder, this.overrides);
+        this.filter = new SnapshotFilter(SnapshotFilter.Settings.from(ConfigManager.getInstance().getConfig()));
+        setFilterBarWidths();
+        this.bus = new SnapshotBus(scope.primary() ? "default" : scope.id());
+        for (int i = 0; i < lastFills.length; i++) {
+            int bar = i;
+            Gauge.builder("lighting.snapshot.fill", lastFills, f -> f[bar])
+                    .tags("bus", bus.name(), "bar", bar == 0 ? "hp" : "resource")
+                    .description("Remplissage lu par l'OCR (0..1)").register(PipelineMetrics.REGISTRY);
+        }
+        registerFilterCounter("implausible", SnapshotFilter.Stats::savedImplausible);
+        registerFilterCounter("median", SnapshotFilter.Stats::savedMedian);
+        registerFilterCounter("hysteresis", SnapshotFilter.Stats::savedHysteresis);
+    }
+
+    private void registerFilterCounter(String stage, ToLongFunction<SnapshotFilter.Stats> saved) {
+        FunctionCounter.builder("lighting.filter.saved", filter, f -> saved.applyAsLong(f.stats()))
+                .tags("bus", bus.name(), "stage", stage)
+                .description("Écritures LEDs évitées par le filtre OCR").register(PipelineMetrics.REGISTRY);
+    }
+
+    /** Sortie de plus (OpenRGB...), fermée avec le runtime ; connectée par warmUpAsync ou dès sa première frame. */
+    public synchronized void addSink(OutputSink sink) {
+        if (sink == null) return;
+        sink.overridesChanged(overrides);
+        sinks.add(sink);
+    }
+
+    public List<OutputSink> sinks() {
+        return List.copyOf(sinks);
+    }
+
+    /**
+     * Démarrage rapide, sans bloquer l'appelant : sorties connectées (puis fond sur les LEDs) et moteur OCR
+     * préparés en parallèle. start() reprend le lecteur préparé.
+     */
+    public void warmUpAsync() {
+        for (OutputSink sink : sinks) {
+            sink.connectAsync().thenAccept(ok -> {
+                if (!ok) return;
+                if (sink == chroma) StartupTimeline.mark("chroma_session");
+                applyBackgroundToDevices();
+                repaintImmediate();
+            });
+        }
+        synchronized (this) {
+            if (preparedReader != null) return;
+            preparedReader = CompletableFuture.supplyAsync(() -> {
+                OcrSettings settings = resolveOcrSettings();
+                TesseractOcrReader reader = new TesseractOcrReader(settings.area(), settings.tessDataPath(), settings.lang());
+                if (reader.warmUp()) StartupTimeline.mark("ocr_warm");
+                return new PreparedReader(settings, reader);
+            }, r -> Thread.ofVirtual().name("ocr-warmup").start(r));
+        }
+    }
+
+    public Scope scope() {
+        return scope;
+    }
+
+    /** Snapshots OCR de cette session : s'y abonner plutôt que d'ajouter du travail au thread OCR. */
+    public SnapshotBus bus() {
+        return bus;
+    }
+
+    /** Filtre OCR → rendu de cette session (réglages config.json filter*, écritures évitées). */
+    public SnapshotFilter filter() {
+        return filter;
+    }
+
+    /** Lecteur OCR du dernier start() (cascade et taux par passe) ; null si jamais démarré. */
+    public TesseractOcrReader ocrReader() {
+        return ocrReader;
+    }
+
+    /** Lecteur à capture partagée du dernier start() (extracteurs de stats) ; null sans extracteur configuré. */
+    public FrameReader frameReader() {
+        return frameReader;
+    }
+
+    public synchronized boolean isRunning() {
+        return ocrRunner != null && ocrRunner.isRunning();
+    }
+
+    public void addFrameListener(FrameListener listener) {
+        if (listener != null) frameListeners.add(listener);
+    }
+
+    public void removeFrameListener(FrameListener listener) {
+        frameListeners.remove(listener);
     }
 
     public synchronized LightingOverrides getOverrides() {
@@ -37,6 +234,44 @@ public class LightingRuntime {
         return Optional.ofNullable(lastSnapshot);
     }
 
+    public long frameVersion() {
+        return frameVersion.get();
+    }
+
+    /** Aperçu de la version courante, rendu une seule fois par version. */
+    public PreviewFrame currentPreview() {
+        PreviewFrame p = previewCache;
+        if (p != null && p.version() == frameVersion.get()) return p;
+        synchronized (this) {
+            p = previewCache;
+            long v = frameVersion.get();
+            if (p == null || p.version() != v) {
+                p = new PreviewFrame(v, currentPreviewMatrix(), lastSnapshot);
+                previewCache = p;
+            }
+            return p;
+        }
+    }
+
+    /**
+     * Frame clavier exacte que produirait SnapshotToMatrix pour ces valeurs, sans toucher aux LEDs
+     * ni au snapshot courant. Mémoïsée par (version overrides, remplissages, type).
+     */
+    public synchronized RenderCache.Entry render(OcrReader.Snapshot s) {
+        if (snapshotToMatrix == null) {
+            snapshotToMatrix = new SnapshotToMatrix(builder, overrides);
+        }
+        // Snapshot : type jamais null (UNKNOWN par défaut)
+        int[] fills = snapshotToMatrix.keyboardFills(s);
+        SnapshotToMatrix renderer = snapshotToMatrix;
+        return renderCache.get(new RenderCache.Key(overridesVersion, fills[0], fills[1], s.type),
+                () -> renderer.toKeyboard(s));
+    }
+
+    public synchronized long overridesVersion() {
+        return overridesVersion;
+    }
+
     public synchronized int[][] currentPreviewMatrix() {
         if (lastSnapshot != null) {
             try {
@@ -55,36 +290,163 @@ public class LightingRuntime {
         }
 
         applyBackgroundToDevices();
+        subscribeBus();
 
         OcrReader reader = buildOcrReaderFromConfigOrDefault();
         lastHpPct = -1.0;
         lastResPct = -1.0;
+        lastStats = Map.of();
         lastMatrix = null;
+        delivered.clear();
+        sinksBehind = false;
+
+        Config cfg = ConfigManager.getInstance().getConfig();
+        filter.configure(SnapshotFilter.Settings.from(cfg));
+        filter.reset();
+        for (OutputSink sink : sinks) sink.setLatencyBudgetMs(cfg.latencyBudgetMsOrDefault());
+        SnapshotInterpolator.Mode mode = cfg.interpolationModeOrDefault();
+        // Toutes les sessions tournent sur les mêmes threads (un scheduler, workers OCR bornés)
+        OcrScheduler threads = OcrScheduler.shared();
+        String suffix = scope.primary() ? "" : ":" + scope.id();
+        ocrRunner = new OcrRunner(reader, bus, cfg.ocrPeriodMsOrDefault(), "ocr-runner" + suffix, threads);
+        if (mode == SnapshotInterpolator.Mode.OFF) {
+            interpolator = null;
+        } else {
+            // OCR à basse fréquence → bus → interpolateur → rendu à la fréquence de sortie
+            interpolator = new SnapshotInterpolator(mode, cfg.interpolationWindowMsOrDefault(),
+                    cfg.interpolationSnapPctOrDefault());
+            SnapshotInterpolator interp = interpolator;
+            // Déclenchée par le scheduler commun, exécutée hors des workers OCR (rendu + envoi LEDs bloquant)
+            outputRunner = new OcrRunner(interp.asReader(), this::onSnapshot,
+                    cfg.outputPeriodMsOrDefault(), "lighting-output" + suffix, threads, threads.outputs());
+            outputRunner.start();
+            System.out.println("[Interp] mode=" + mode + " ocr=" + cfg.ocrPeriodMsOrDefault()
+                    + "ms sortie=" + cfg.outputPeriodMsOrDefault() + "ms");
+        }
+
+        ocrRunner.start();
+        return true;
+    }
 
-        ocrRunner = new OcrRunner(reader, snapshot -> {
-            synchronized (LightingRuntime.this) {
-                lastSnapshot = snapshot;
+    private void subscribeBus() {
+        if (subscribed) return;
+        subscribed = true;
+        // Sortie : seul le dernier snapshot compte (une frame en retard est remplacée, pas mise en file).
+        // Thread plateforme : rendu et envoi LEDs bloquent sous synchronized (épinglage d'un thread virtuel)
+        bus.subscribe("output", SnapshotBus.Overflow.LATEST_ONLY, 1, SnapshotBus.Drain.PLATFORM, this::onOcrSnapshot);
+        bus.subscribe("metrics", SnapshotBus.Overflow.DROP_OLDEST, 64, this::recordFills);
+    }
 
-                double hpPct = pct(snapshot.hpCur, snapshot.hpMax);
-                double resPct = pct(snapshot.resCur, snapshot.resMax);
+    /** Abonné "output" : filtre, puis interpolateur (cadencé par outputRunner) ou rendu direct. */
+    private void onOcrSnapshot(OcrReader.Snapshot raw) {
+        OcrReader.Snapshot snapshot = filter.apply(raw);
+        SnapshotInterpolator interp = interpolator;
+        if (interp != null) interp.push(snapshot, System.nanoTime());
+        else if (ocrRunner != null) onSnapshot(snapshot);   // arrêté entre publication et livraison : ignoré
+    }
 
-                if (lastHpPct >= 0 && Math.abs(hpPct - lastHpPct) < minDeltaPct
-                        && lastResPct >= 0 && Math.abs(resPct - lastResPct) < minDeltaPct) {
-                    return;
-                }
+    /** Abonné "metrics" : derniers remplissages lus (lighting.snapshot.fill). */
+    private void recordFills(OcrReader.Snapshot s) {
+        lastFills[0] = pct(s.hpCur, s.hpMax);
+        lastFills[1] = pct(s.resCur, s.resMax);
+    }
 
-                int[][] matrix = snapshotToMatrix.toKeyboard(snapshot);
-                if (!deepEquals(lastMatrix, matrix)) {
-                    chroma.keyboardCustom(matrix);
-                    lastMatrix = copyMatrix(matrix);
-                    lastHpPct = hpPct;
-                    lastResPct = resPct;
-                }
+    synchronized void onSnapshot(OcrReader.Snapshot snapshot) {
+        double hpPct = pct(snapshot.hpCur, snapshot.hpMax);
+        double resPct = pct(snapshot.resCur, snapshot.resMax);
+
+        if (lastHpPct >= 0 && Math.abs(hpPct - lastHpPct) < minDeltaPct
+                && lastResPct >= 0 && Math.abs(resPct - lastResPct) < minDeltaPct
+                && snapshot.stats.equals(lastStats) && !sinksBehind) {
+            PipelineMetrics.SKIPPED_DELTA.increment();
+            recorder.record(snapshot, SessionLog.SKIPPED_DELTA, 0, 0L, 0L);
+            return;
+        }
+        // Après le seuil : /api/preview (version) et le flux SSE (publishFrame) suivent les mêmes frames que les LEDs
+        if (!sameValues(lastSnapshot, snapshot)) frameVersion.incrementAndGet();
+        lastSnapshot = snapshot;
+
+        PipelineEvents.FrameRenderEvent render = new PipelineEvents.FrameRenderEvent();
+        render.begin();
+        long t0 = System.nanoTime();
+        int[][] matrix = snapshotToMatrix.toKeyboard(snapshot);
+        int[][] deviceFrames = targeted(snapshotToMatrix.toDevices(snapshot));
+        long rendered = System.nanoTime();
+        render.end();
+        PipelineMetrics.RENDER.record(rendered - t0, TimeUnit.NANOSECONDS);
+        if (render.shouldCommit()) {
+            render.seq = snapshot.seq;
+            render.changed = !deepEquals(lastMatrix, matrix);
+            render.commit();
+        }
+
+        int outcome;
+        long sendNanos = 0L, endToEndNanos = 0L;
+        int[][] frame = copyMatrix(matrix);
+        int taken = sendKeyboard(frame, snapshot, rendered);
+        // Autres périphériques : ChromaSessionManager ignore ceux dont la frame n'a pas bougé
+        boolean devicesTaken = true;
+        for (OutputSink sink : sinks) devicesTaken &= sink.devices(deviceFrames, snapshot);
+        sinksBehind |= !devicesTaken;
+        boolean changed = !deepEquals(lastMatrix, matrix);
+        if (taken > 0 || (taken == 0 && changed)) {
+            long ack = System.nanoTime();
+            outcome = SessionLog.SENT;
+            sendNanos = ack - rendered;
+            endToEndNanos = snapshot.captureNanos == 0L ? 0L : ack - snapshot.captureNanos;
+            lastMatrix = frame;
+            lastHpPct = hpPct;
+            lastResPct = resPct;
+            lastStats = snapshot.stats;
+        } else if (taken == 0 || deepEquals(lastMatrix, matrix)) {
+            // Déjà chez toutes les sorties, ou chez certaines pendant qu'une autre la refuse encore
+            PipelineMetrics.SKIPPED_UNCHANGED.increment();
+            outcome = SessionLog.SKIPPED_UNCHANGED;
+        } else {
+            // Refusée par toutes les sorties (trop vieille, injoignables...) : lastMatrix inchangée → la suivante passera
+            outcome = SessionLog.STALE;
+        }
+        recorder.record(snapshot, outcome, SessionRecorder.hash(matrix), sendNanos, endToEndNanos);
+        publishFrame(matrix, snapshot);
+    }
+
+    /**
+     * Clavier vers chaque sortie qui ne l'a pas encore ; frame = copie gardée par les sorties qui la prennent.
+     * Rend le nombre de sorties qui l'ont prise, 0 si aucune n'en avait besoin (ou session sans clavier / sortie),
+     * -1 si toutes celles qui en avaient besoin l'ont refusée. sinksBehind = une sortie l'attend encore.
+     */
+    private int sendKeyboard(int[][] frame, OcrReader.Snapshot snapshot, long rendered) {
+        sinksBehind = false;
+        if (!scope.targets(DeviceLayout.Device.KEYBOARD)) return 0;
+        int needed = 0, taken = 0;
+        for (OutputSink sink : sinks) {
+            if (deepEquals(delivered.get(sink), frame)) continue;
+            needed++;
+            if (sink.keyboard(frame, snapshot, rendered)) {
+                delivered.put(sink, frame);
+                taken++;
             }
-        }, 100);
+        }
+        sinksBehind = taken < needed;
+        return needed > 0 && taken == 0 ? -1 : taken;
+    }
 
-        ocrRunner.start();
-        return true;
+    public SessionRecorder recorder() {
+        return recorder;
+    }
+
+    ChromaSessionManager chroma() {
+        return chroma;
+    }
+
+    private void publishFrame(int[][] matrix, OcrReader.Snapshot snapshot) {
+        for (FrameListener l : frameListeners) {
+            try {
+                l.onFrame(matrix, snapshot);
+            } catch (Exception e) {
+                System.err.println("[Runtime] frame listener failed: " + e.getMessage());
+            }
+        }
     }
 
     public synchronized boolean stop() {
@@ -93,37 +455,78 @@ public class LightingRuntime {
         }
         ocrRunner.stop();
         ocrRunner = null;
+        if (outputRunner != null) {
+            outputRunner.shutdown();
+            outputRunner = null;
+        }
+        interpolator = null;
         return true;
     }
 
     public synchronized void refreshOverrides(boolean persist) {
         snapshotToMatrix = new SnapshotToMatrix(builder, overrides);
-        applyBackgroundToDevices();
+        frameVersion.incrementAndGet();
+        overridesVersion++;
+        renderCache.clear();
+        setFilterBarWidths();
+        for (OutputSink sink : sinks) sink.overridesChanged(overrides);
+        // Pas de setStaticAllDevices ici : repaintImmediate envoie déjà les frames (ou le fond) à tous les périphériques
         if (persist) {
-            LightingOverrides.save(overrides);
+            LightingOverrides.save(overrides, LightingOverrides.path(scope.id()));
         }
         repaintImmediate();
     }
 
     public synchronized void updateOverrides(LightingOverrides newOverrides, boolean persist) {
-        this.overrides = newOverrides == null ? LightingOverrides.loadOrDefaults() : newOverrides;
+        this.overrides = newOverrides == null ? LightingOverrides.loadOrDefaults(LightingOverrides.path(scope.id())) : newOverrides;
         refreshOverrides(persist);
     }
 
+    /**
+     * Config rechargée à chaud : n'applique que ce qui a changé. Budget de latence = simple setter,
+     * réglages OCR = redémarrage des runners (si actifs). La session Chroma n'est jamais ré-enregistrée.
+     */
+    public synchronized void applyConfigChange(Config previous, Config current) {
+        for (OutputSink sink : sinks) sink.setLatencyBudgetMs(current.latencyBudgetMsOrDefault());
+        filter.configure(SnapshotFilter.Settings.from(current));
+        if (ocrRunner != null && !current.sameOcrSettings(previous, scope.id())) {
+            stop();
+            start();
+            System.out.println("[Config] réglages OCR modifiés : pipeline OCR redémarré");
+        }
+    }
+
+    /** Overrides rechargés à chaud : rendu et LEDs seulement (pas d'OCR) ; false si rien n'a changé. */
+    public synchronized boolean applyOverridesChange(LightingOverrides fresh) {
+        if (fresh == null) return false;
+        if (LightingOverrides.toJsonMap(fresh).equals(LightingOverrides.toJsonMap(overrides))) return false;
+        updateOverrides(fresh, false);
+        return true;
+    }
+
     public synchronized void defineOcrArea(Rectangle area) {
         if (area == null) {
             return;
         }
         ConfigManager cm = ConfigManager.getInstance();
         Config cfg = cm.getConfig();
-        cfg.setOcrCaptureArea(area);
+        if (scope.primary()) {
+            cfg.setOcrCaptureArea(area);
+        } else {
+            Config.Session s = cfg.session(scope.id());
+            if (s == null) {
+                System.err.println("[Sessions] session absente de config.json: " + scope.id());
+                return;
+            }
+            s.setOcrCaptureArea(area);
+        }
         cm.save(cfg);
     }
 
     public Optional<Rectangle> loadOcrAreaFromConfig() {
         try {
             Config cfg = ConfigManager.getInstance().getConfig();
-            return Optional.ofNullable(cfg.getOcrCaptureArea());
+            return Optional.ofNullable(cfg.captureArea(scope.id()));
         } catch (Throwable t) {
             return Optional.empty();
         }
@@ -135,15 +538,71 @@ public class LightingRuntime {
                 ocrRunner.shutdown();
                 ocrRunner = null;
             }
+            if (outputRunner != null) {
+                outputRunner.shutdown();
+                outputRunner = null;
+            }
         } catch (Exception ignore) { }
-        try {
-            chroma.close();
-        } catch (Exception ignore) { }
+        bus.close();
+        PipelineMetrics.REGISTRY.find("lighting.snapshot.fill").tag("bus", bus.name()).meters()
+                .forEach(PipelineMetrics.REGISTRY::remove);
+        PipelineMetrics.REGISTRY.find("lighting.filter.saved").tag("bus", bus.name()).meters()
+                .forEach(PipelineMetrics.REGISTRY::remove);
+        for (OutputSink sink : sinks) {
+            if (sink == chroma && !scope.primary()) continue;
+            try {
+                sink.close();
+            } catch (Exception ignore) { }
+        }
+        recorder.close();
+    }
+
+    private void setFilterBarWidths() {
+        filter.setBarWidths(ColorMatrixBuilder.barWidth(overrides.hpFirstCol(), overrides.hpLastCol()),
+                ColorMatrixBuilder.barWidth(overrides.resourceFirstCol(), overrides.resourceLastCol()));
     }
 
     private void applyBackgroundToDevices() {
         if (overrides != null && overrides.hasBackground()) {
-            chroma.setStaticAllDevices(overrides.backgroundBgr());
+            setBackground(overrides.backgroundBgr());
+        }
+    }
+
+    /** Fond statique ; session ciblée : ses périphériques seulement (STATIC effacerait ceux des autres). */
+    private void setBackground(int bgr) {
+        if (scope.devices() == null) {
+            for (OutputSink sink : sinks) sink.background(bgr);
+            return;
+        }
+        int[][] frames = new int[DeviceLayout.Device.values().length][];
+        for (DeviceLayout.Device d : scope.devices()) {
+            if (d == DeviceLayout.Device.KEYBOARD) continue;
+            frames[d.ordinal()] = new int[d.size()];
+            Arrays.fill(frames[d.ordinal()], bgr);
+        }
+        for (OutputSink sink : sinks) sink.devices(frames, null);
+    }
+
+    /** Frames des périphériques de la session seulement (null = non envoyé). */
+    private int[][] targeted(int[][] frames) {
+        if (scope.devices() == null || frames == null) return frames;
+        for (DeviceLayout.Device d : DeviceLayout.Device.values()) {
+            if (!scope.devices().contains(d) && d.ordinal() < frames.length) frames[d.ordinal()] = null;
+        }
+        return frames;
+    }
+
+    private void keyboard(int[][] matrix) {
+        if (scope.targets(DeviceLayout.Device.KEYBOARD)) {
+            int[][] frame = copyMatrix(matrix);
+            for (OutputSink sink : sinks) {
+                if (sink.keyboard(frame, null, 0L)) {
+                    delivered.put(sink, frame);
+                } else {
+                    delivered.remove(sink);
+                    sinksBehind = true;
+                }
+            }
         }
     }
 
@@ -154,42 +613,89 @@ public class LightingRuntime {
         if (lastSnapshot != null) {
             try {
                 int[][] matrix = snapshotToMatrix.toKeyboard(lastSnapshot);
-                chroma.keyboardCustom(matrix);
+                keyboard(matrix);
+                int[][] deviceFrames = targeted(snapshotToMatrix.toDevices(lastSnapshot));
+                for (OutputSink sink : sinks) sinksBehind |= !sink.devices(deviceFrames, null);
                 lastMatrix = copyMatrix(matrix);
+                publishFrame(matrix, lastSnapshot);
                 return;
             } catch (Exception ignore) { }
         }
 
-        if (overrides != null && overrides.hasBackground()) {
-            chroma.setStaticAllDevices(overrides.backgroundBgr());
-        }
+        applyBackgroundToDevices();
         int[][] matrix = builder.full(overrides != null ? overrides.backgroundBgr() : 0);
-        chroma.keyboardCustom(matrix);
+        keyboard(matrix);
         lastMatrix = copyMatrix(matrix);
+        publishFrame(matrix, null);
     }
 
     private OcrReader buildOcrReaderFromConfigOrDefault() {
-        Rectangle area = loadOcrAreaFromConfig().orElse(new Rectangle(100, 100, 400, 120));
-        ConfigManager cm = ConfigManager.getInstance();
-        Config cfg = cm.getConfig();
-        String lang = java.util.Optional.ofNullable(cfg.getTessLang()).orElse("eng");
-        String tessDataPath = cfg.getTessDataPath();
-
-        if (tessDataPath == null || tessDataPath.isBlank()) {
-            java.nio.file.Path tessDir = TessdataBootstrapper.ensureLocalTessdata(lang);
-            tessDataPath = tessDir.toString();
-            cfg.tessDataPath = tessDataPath;
-            if (cfg.tessLang == null || cfg.tessLang.isBlank()) {
-                cfg.tessLang = lang;
-            }
-            cm.save(cfg);
-            System.out.println("[Tessdata] datapath=" + tessDataPath + " (lang=" + lang + ")");
+        PreparedReader prepared = takePreparedReader();
+        OcrSettings settings = resolveOcrSettings();
+        TesseractOcrReader reader = prepared != null && prepared.settings().equals(settings)
+                ? prepared.reader()
+                : new TesseractOcrReader(settings.area(), settings.tessDataPath(), settings.lang());
+        reader.setCascade(TesseractOcrReader.Cascade.from(ConfigManager.getInstance().getConfig()));
+        ocrReader = reader;
+        // Moteur prêt avant la première frame (nouvelle langue : init ici, pas dans la boucle OCR)
+        try {
+            reader.engines().prewarm(1);
+        } catch (Throwable t) {
+            System.err.println("[OCR] moteur indisponible: " + t.getMessage());
+        }
+        TesseractEnginePool.trimExcept(reader.engines());
+        // Stats en plus (cible, combo...) : même capture, extracteurs en parallèle sur leur pool borné
+        Config cfg = ConfigManager.getInstance().getConfig();
+        List<StatExtractor> extractors = StatExtractor.fromConfig(cfg, scope.id(), reader.engines());
+        if (extractors.isEmpty()) {
+            frameReader = null;
+            return reader;
+        }
+        frameReader = new FrameReader(reader, extractors, OcrScheduler.shared().extractors(), cfg.ocrPeriodMsOrDefault());
+        System.out.println("[Extract] " + extractors.size() + " extracteur(s) sur la capture partagée");
+        return frameReader;
+    }
+
+    /** Lecteur chauffé par warmUpAsync (attend la fin du warm-up s'il est en cours), consommé une seule fois. */
+    private PreparedReader takePreparedReader() {
+        CompletableFuture<PreparedReader> f = preparedReader;
+        if (f == null) return null;
+        preparedReader = CompletableFuture.completedFuture(null);
+        try {
+            return f.get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("[OCR] warm-up indisponible: " + e.getMessage());
+            return null;
         }
+    }
 
-        return new TesseractOcrReader(area, tessDataPath, lang);
+    private OcrSettings resolveOcrSettings() {
+        synchronized (tessdataLock) {
+            Rectangle area = loadOcrAreaFromConfig().orElse(new Rectangle(100, 100, 400, 120));
+            ConfigManager cm = ConfigManager.getInstance();
+            Config cfg = cm.getConfig();
+            String lang = java.util.Optional.ofNullable(cfg.getTessLang()).orElse("eng");
+            String tessDataPath = cfg.getTessDataPath();
+
+            if (tessDataPath == null || tessDataPath.isBlank()) {
+                java.nio.file.Path tessDir = TessdataBootstrapper.ensureLocalTessdata(lang);
+                tessDataPath = tessDir.toString();
+                cfg.tessDataPath = tessDataPath;
+                if (cfg.tessLang == null || cfg.tessLang.isBlank()) {
+                    cfg.tessLang = lang;
+                }
+                cm.save(cfg);
+                System.out.println("[Tessdata] datapath=" + tessDataPath + " (lang=" + lang + ")");
+            } else if (TessdataBootstrapper.isLocalDir(tessDataPath)) {
+                // Dossier géré par l'appli : re-vérifié (checksums mémorisés tant que le fichier ne change pas)
+                TessdataBootstrapper.ensureLocalTessdata(lang);
+            }
+
+            return new OcrSettings(area, tessDataPath, lang);
+        }
     }
 
-    private static boolean deepEquals(int[][] a, int[][] b) {
+    static boolean deepEquals(int[][] a, int[][] b) {
         if (a == b) return true;
         if (a == null || b == null) return false;
         if (a.length != b.length) return false;
@@ -201,7 +707,7 @@ public class LightingRuntime {
         return true;
     }
 
-    private static int[][] copyMatrix(int[][] matrix) {
+    static int[][] copyMatrix(int[][] matrix) {
         if (matrix == null) {
             return null;
         }
@@ -212,6 +718,14 @@ public class LightingRuntime {
         return copy;
     }
 
+    static boolean sameValues(OcrReader.Snapshot a, OcrReader.Snapshot b) {
+        if (a == b) return true;
+        if (a == null || b == null) return false;
+        return a.hpCur == b.hpCur && a.hpMax == b.hpMax
+                && a.resCur == b.resCur && a.resMax == b.resMax && a.type == b.type
+                && a.stats.equals(b.stats);   // zones de stats des overrides : l'aperçu change aussi
+    }
+
     private static double pct(int cur, int max) {
         if (max <= 0) {
             return 0;
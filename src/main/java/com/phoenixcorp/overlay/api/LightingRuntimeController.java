@@ -1,30 +1,71 @@
 package com.phoenixcorp.overlay.api;
 
+import com.phoenixcorp.overlay.AwtSupport;
+import com.phoenixcorp.overlay.ConfigManager;
+import com.phoenixcorp.overlay.FrameReader;
 import com.phoenixcorp.overlay.LightingOverrides;
-import com.phoenixcorp.overlay.SelectCaptureArea;
+import com.phoenixcorp.overlay.OcrReader;
+import com.phoenixcorp.overlay.SnapshotBus;
+import com.phoenixcorp.overlay.SnapshotFilter;
+import com.phoenixcorp.overlay.TesseractOcrReader;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.awt.Rectangle;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Pilotage d'une session : /api/... = session principale, /api/sessions/{session}/... = session nommée
+ * (LightingSessions) ; mêmes routes et mêmes réponses.
+ */
 @RestController
-@RequestMapping("/api")
+@RequestMapping({"/api", "/api/sessions/{session}"})
 public class LightingRuntimeController {
 
-    private final LightingRuntime runtime;
+    private final LightingSessions sessions;
 
-    public LightingRuntimeController(LightingRuntime runtime) {
-        this.runtime = runtime;
+    public LightingRuntimeController(LightingSessions sessions) {
+        this.sessions = sessions;
+    }
+
+    private LightingSessions.Session session(String id) {
+        LightingSessions.Session s = sessions.get(id);
+        if (s == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Session inconnue: " + id);
+        }
+        return s;
     }
 
     @PostMapping({"/runtime/start", "/start"})
-    public Map<String, Object> startRuntime() {
+    public Map<String, Object> startRuntime(@PathVariable(required = false) String session) {
+        LightingRuntime runtime = session(session).runtime;
+        String awt = AwtSupport.reason();
+        if (awt != null) {
+            // Headless / exécutable natif : pas de capture écran, le reste de l'API fonctionne
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("running", false);
+            payload.put("started", false);
+            payload.put("status", "Capture écran indisponible (" + awt + ")");
+            return payload;
+        }
         boolean started = runtime.start();
         Map<String, Object> payload = new HashMap<>();
         payload.put("running", true);
@@ -34,8 +75,8 @@ public class LightingRuntimeController {
     }
 
     @PostMapping({"/runtime/stop", "/stop"})
-    public Map<String, Object> stopRuntime() {
-        boolean stopped = runtime.stop();
+    public Map<String, Object> stopRuntime(@PathVariable(required = false) String session) {
+        boolean stopped = session(session).runtime.stop();
         Map<String, Object> payload = new HashMap<>();
         payload.put("running", false);
         payload.put("stopped", stopped);
@@ -43,46 +84,160 @@ public class LightingRuntimeController {
         return payload;
     }
 
+    /** Abonnés du bus de snapshots : publiés, livrés, perdus, en attente, retard (ms). */
+    @GetMapping("/bus")
+    public Map<String, Object> busStats(@PathVariable(required = false) String session) {
+        SnapshotBus bus = session(session).runtime.bus();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("bus", bus.name());
+        payload.put("subscribers", bus.stats());
+        return payload;
+    }
+
+    /** Filtre OCR → rendu : réglages et écritures LEDs évitées (par étape). */
+    @GetMapping("/filter")
+    public Map<String, Object> filterStats(@PathVariable(required = false) String session) {
+        SnapshotFilter filter = session(session).runtime.filter();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("settings", filter.settings());
+        payload.put("stats", filter.stats());
+        return payload;
+    }
+
+    /** Cascade OCR : réglages et taux par passe (vide tant que l'OCR n'a pas démarré). */
+    @GetMapping("/ocr/cascade")
+    public Map<String, Object> ocrCascadeStats(@PathVariable(required = false) String session) {
+        TesseractOcrReader reader = session(session).runtime.ocrReader();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("settings", reader == null
+                ? TesseractOcrReader.Cascade.from(ConfigManager.getInstance().getConfig()) : reader.cascade());
+        payload.put("tiers", reader == null ? List.of() : reader.cascadeStats());
+        return payload;
+    }
+
+    /** Extracteurs de stats : cadence, lectures, durée moyenne et dernière valeur (vide sans extracteur). */
+    @GetMapping("/ocr/extractors")
+    public List<FrameReader.ExtractorStats> ocrExtractorStats(@PathVariable(required = false) String session) {
+        FrameReader reader = session(session).runtime.frameReader();
+        return reader == null ? List.of() : reader.stats();
+    }
+
     @PutMapping("/overrides")
-    public LightingOverrides updateOverrides(@RequestBody LightingOverrides overrides) {
+    public LightingOverrides updateOverrides(@PathVariable(required = false) String session, @RequestBody LightingOverrides overrides) {
+        LightingRuntime runtime = session(session).runtime;
         runtime.updateOverrides(overrides, true);
         return runtime.getOverrides();
     }
 
     @GetMapping("/overrides")
-    public LightingOverrides getOverrides() {
-        return runtime.getOverrides();
+    public LightingOverrides getOverrides(@PathVariable(required = false) String session) {
+        return session(session).runtime.getOverrides();
     }
 
-    @GetMapping("/preview")
-    public Map<String, Object> getPreview() {
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("matrix", runtime.currentPreviewMatrix());
-        runtime.getLastSnapshot().ifPresent(snapshot -> payload.put("snapshot", Map.of(
-                "hp", Map.of("cur", snapshot.hpCur, "max", snapshot.hpMax),
-                "resource", Map.of("cur", snapshot.resCur, "max", snapshot.resMax)
-        )));
-        return payload;
+    /** Aperçu JSON ; ETag = version de frame + encodage, 304 si If-None-Match correspond. */
+    @GetMapping(value = "/preview", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getPreview(
+            @PathVariable(required = false) String session,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        PreviewPayloads.Entry e = session(session).previews.current();
+        return cachedByAccept(e.etag(PreviewPayloads.Entry.JSON), ifNoneMatch, e.json());
+    }
+
+    /** Aperçu compact : 396 octets BGR bruts (6 lignes x 22 colonnes x B,G,R). */
+    @GetMapping(value = "/preview", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getPreviewBinary(
+            @PathVariable(required = false) String session,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        PreviewPayloads.Entry e = session(session).previews.current();
+        return cachedByAccept(e.etag(PreviewPayloads.Entry.BINARY), ifNoneMatch, e.bgr());
     }
 
+    /** Mêmes 396 octets, en base64 dans du JSON (?encoding=base64). */
+    @GetMapping(value = "/preview", params = "encoding=base64", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getPreviewBase64(
+            @PathVariable(required = false) String session,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        PreviewPayloads.Entry e = session(session).previews.current();
+        return cachedByAccept(e.etag(PreviewPayloads.Entry.BASE64), ifNoneMatch, e.base64Json());
+    }
+
+    /**
+     * Rendu "what-if" : frame clavier exacte pour hp/hpMax, res/resMax et type (hpMax/resMax = 100
+     * par défaut, hp et res sont alors des pourcentages). Sert l'aperçu de l'UI, sans toucher aux LEDs.
+     */
+    @GetMapping("/render")
+    public ResponseEntity<Map<String, Object>> render(@PathVariable(required = false) String session,
+                                                     @RequestParam int hp,
+                                                     @RequestParam int res,
+                                                     @RequestParam(defaultValue = "100") int hpMax,
+                                                     @RequestParam(defaultValue = "100") int resMax,
+                                                     @RequestParam(defaultValue = "UNKNOWN") String type,
+                                                     @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        OcrReader.ResourceType resourceType;
+        try {
+            resourceType = OcrReader.ResourceType.valueOf(type.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Type de ressource inconnu: " + type);
+        }
+        RenderCache.Entry e = session(session).runtime.render(new OcrReader.Snapshot(hp, hpMax, res, resMax, resourceType));
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("overridesVersion", e.key().overridesVersion());
+        payload.put("hpFill", e.key().hpFill());
+        payload.put("resFill", e.key().resFill());
+        payload.put("type", e.key().type().name());
+        payload.put("matrix", e.matrix());
+        return cached(PreviewPayloads.etag(e.key().tag()), ifNoneMatch, payload);
+    }
+
+    static <T> ResponseEntity<T> cached(String etag, String ifNoneMatch, T body) {
+        return cached(etag, ifNoneMatch, body, false);
+    }
+
+    /** Comme cached, pour /preview : JSON et binaire sur la même URL, choisis par Accept (Vary: Accept). */
+    static <T> ResponseEntity<T> cachedByAccept(String etag, String ifNoneMatch, T body) {
+        return cached(etag, ifNoneMatch, body, true);
+    }
+
+    private static <T> ResponseEntity<T> cached(String etag, String ifNoneMatch, T body, boolean varyAccept) {
+        String[] vary = varyAccept ? new String[] {HttpHeaders.ACCEPT} : new String[0];
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag).cacheControl(CacheControl.noCache()).varyBy(vary).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).varyBy(vary).body(body);
+    }
+
+    /** Flux SSE des frames (événements "keyframe" puis "delta", id = n° de frame). */
+    @GetMapping(value = "/preview/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPreview(@PathVariable(required = false) String session) {
+        return session(session).stream.subscribe();
+    }
+
+    /**
+     * Sélection de zone OCR : même réponse qu'avant, mais la requête est asynchrone
+     * (le thread Tomcat est rendu pendant que l'utilisateur dessine la zone).
+     */
     @PostMapping({"/ocr/area", "/define-area"})
-    public Map<String, Object> selectOcrArea() {
-        SelectCaptureArea.SelectionResult selection = SelectCaptureArea.selectInteractiveForApi();
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("timedOut", selection.timedOut());
-        Rectangle area = selection.area();
-        if (area != null) {
-            runtime.defineOcrArea(area);
-            payload.put("selected", true);
-            payload.put("x", area.x);
-            payload.put("y", area.y);
-            payload.put("width", area.width);
-            payload.put("height", area.height);
-            payload.put("status", "Zone OCR définie");
-        } else {
-            payload.put("selected", false);
-            payload.put("status", selection.timedOut() ? "Sélection OCR expirée" : "Sélection OCR annulée");
+    public CompletableFuture<Map<String, Object>> selectOcrArea(@PathVariable(required = false) String session) {
+        return session(session).areas.start().done.thenApply(AreaSelectionJobs.Job::toPayload);
+    }
+
+    /** Démarre une sélection et rend tout de suite son id (202) ; suivi via GET /ocr/area/jobs/{id}. */
+    @PostMapping("/ocr/area/jobs")
+    public ResponseEntity<Map<String, Object>> startOcrAreaJob(@PathVariable(required = false) String session) {
+        AreaSelectionJobs.Job job = session(session).areas.start();
+        String base = session == null ? "/api" : "/api/sessions/" + session;
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, base + "/ocr/area/jobs/" + job.id)
+                .body(job.toPayload());
+    }
+
+    @GetMapping("/ocr/area/jobs/{id}")
+    public Map<String, Object> getOcrAreaJob(@PathVariable(required = false) String session, @PathVariable String id) {
+        AreaSelectionJobs.Job job = session(session).areas.get(id);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Sélection OCR inconnue: " + id);
         }
-        return payload;
+        return job.toPayload();
     }
 }
@@ -0,0 +1,202 @@
+package com.phoenixcorp.overlay.api;
+
+import com.phoenixcorp.overlay.Config;
+import com.phoenixcorp.overlay.ConfigManager;
+import com.phoenixcorp.overlay.DeviceLayout;
+import com.phoenixcorp.overlay.LightingOverrides;
+import com.phoenixcorp.overlay.SessionRecorder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Sessions d'éclairage nommées (client principal + alt, deux écrans...) autour de la session principale.
+ * Chacune a sa zone OCR, ses overrides, ses périphériques ciblés, son journal et son aperçu ; toutes
+ * partagent la session Chroma, le scheduler et les workers OCR (OcrScheduler) et les moteurs Tesseract :
+ * une session de plus = quelques objets, aucun thread. Les autres sorties (OpenRGB, bandeaux) restent à la
+ * session principale : sans Chroma, une session nommée n'allume rien (signalé à l'ouverture).
+ * Déclarées dans config.json (sessions), créées / supprimées par /api/sessions.
+ */
+public final class LightingSessions {
+
+    public static final String PRIMARY = "default";
+    static final int MAX_SESSIONS = 8;
+    private static final Pattern ID = Pattern.compile("[a-z0-9][a-z0-9_-]{0,31}");
+
+    /** Une session et ses vues REST (aperçu, flux SSE, sélection de zone). */
+    public static final class Session {
+        final String id;
+        final LightingRuntime runtime;
+        final PreviewStreamHub stream;
+        final PreviewPayloads previews;
+        final AreaSelectionJobs areas;
+
+        Session(String id, LightingRuntime runtime, PreviewStreamHub stream) {
+            this.id = id;
+            this.runtime = runtime;
+            this.stream = stream;
+            this.previews = new PreviewPayloads(runtime);
+            this.areas = new AreaSelectionJobs(runtime);
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public LightingRuntime runtime() {
+            return runtime;
+        }
+
+        Map<String, Object> toPayload() {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("id", id);
+            payload.put("running", runtime.isRunning());
+            Set<DeviceLayout.Device> devices = runtime.scope().devices();
+            payload.put("devices", devices == null ? "all" : devices.stream().map(d -> d.endpoint).toList());
+            runtime.loadOcrAreaFromConfig().ifPresent(a -> payload.put("area",
+                    Map.of("x", a.x, "y", a.y, "width", a.width, "height", a.height)));
+            payload.put("frameVersion", runtime.frameVersion());
+            payload.put("previewClients", stream.clientCount());
+            return payload;
+        }
+    }
+
+    private final Session primary;
+    private final Map<String, Session> named = new LinkedHashMap<>();
+
+    public LightingSessions(LightingRuntime primaryRuntime, PreviewStreamHub primaryStream) {
+        this.primary = new Session(PRIMARY, primaryRuntime, primaryStream);
+    }
+
+    public Session primary() {
+        return primary;
+    }
+
+    /** Session id (null ou "default" = principale) ; null si inconnue. */
+    public synchronized Session get(String id) {
+        if (id == null || PRIMARY.equals(id)) return primary;
+        return named.get(id);
+    }
+
+    public synchronized List<Session> list() {
+        List<Session> out = new ArrayList<>(named.size() + 1);
+        out.add(primary);
+        out.addAll(named.values());
+        return out;
+    }
+
+    /** Ouvre les sessions déclarées dans config.json (démarrage). */
+    public synchronized void openFromConfig() {
+        Config cfg = ConfigManager.getInstance().getConfig();
+        if (cfg.sessions == null) return;
+        for (Config.Session s : cfg.sessions) {
+            if (s.id == null || !ID.matcher(s.id).matches() || PRIMARY.equals(s.id)) {
+                System.err.println("[Sessions] id invalide ignoré: " + s.id);
+            } else if (!named.containsKey(s.id) && named.size() < MAX_SESSIONS) {
+                open(s);
+            }
+        }
+    }
+
+    /**
+     * Nouvelle session, enregistrée dans config.json. devices = noms DeviceLayout (vide = tous).
+     * IllegalArgumentException : id ou périphérique invalide, trop de sessions ; IllegalStateException : id pris.
+     */
+    public synchronized Session create(String id, List<String> devices) {
+        if (id == null || !ID.matcher(id).matches() || PRIMARY.equals(id)) {
+            throw new IllegalArgumentException("Id de session invalide: " + id + " (a-z, 0-9, _ et -, 32 max)");
+        }
+        if (named.containsKey(id)) throw new IllegalStateException("Session déjà ouverte: " + id);
+        if (named.size() >= MAX_SESSIONS) throw new IllegalArgumentException("Trop de sessions (max " + MAX_SESSIONS + ")");
+        if (devices != null) {
+            for (String d : devices) {
+                if (DeviceLayout.Device.fromName(d) == null) throw new IllegalArgumentException("Périphérique inconnu: " + d);
+            }
+        }
+        ConfigManager cm = ConfigManager.getInstance();
+        Config cfg = cm.getConfig();
+        Config.Session s = cfg.session(id);
+        if (s == null) {
+            s = new Config.Session();
+            s.id = id;
+            if (cfg.sessions == null) cfg.sessions = new ArrayList<>();
+            cfg.sessions.add(s);
+        }
+        s.devices = devices == null || devices.isEmpty() ? null : List.copyOf(devices);
+        cm.save(cfg);
+        Session session = open(s);
+        session.runtime.warmUpAsync();
+        return session;
+    }
+
+    /** Arrête et retire la session (et sa déclaration dans config.json) ; false si inconnue. */
+    public synchronized boolean remove(String id) {
+        if (PRIMARY.equals(id)) throw new IllegalArgumentException("La session principale ne peut pas être supprimée");
+        Session s = named.remove(id);
+        if (s == null) return false;
+        close(s);
+        ConfigManager cm = ConfigManager.getInstance();
+        Config cfg = cm.getConfig();
+        if (cfg.sessions != null && cfg.sessions.removeIf(c -> id.equals(c.id))) cm.save(cfg);
+        return true;
+    }
+
+    /** Session Chroma et lecteurs OCR des sessions nommées préparés en tâche de fond. */
+    public synchronized void warmUpAsync() {
+        for (Session s : named.values()) s.runtime.warmUpAsync();
+    }
+
+    /** config.json rechargé : réglages appliqués à chaque session, sessions ajoutées / retirées du fichier suivies. */
+    public synchronized void applyConfigChange(Config previous, Config current) {
+        primary.runtime.applyConfigChange(previous, current);
+        for (Session s : List.copyOf(named.values())) {
+            if (current.session(s.id) == null) {
+                named.remove(s.id);
+                close(s);
+                System.out.println("[Sessions] session fermée (config.json): " + s.id);
+            } else {
+                s.runtime.applyConfigChange(previous, current);
+            }
+        }
+        if (current.sessions == null) return;
+        for (Config.Session c : current.sessions) {
+            if (c.id != null && ID.matcher(c.id).matches() && !PRIMARY.equals(c.id)
+                    && !named.containsKey(c.id) && named.size() < MAX_SESSIONS) {
+                open(c).runtime.warmUpAsync();
+                System.out.println("[Sessions] session ouverte (config.json): " + c.id);
+            }
+        }
+    }
+
+    /** Ferme les sessions nommées ; la principale est fermée par son propre hook. */
+    public synchronized void shutdown() {
+        for (Session s : named.values()) close(s);
+        named.clear();
+    }
+
+    private Session open(Config.Session c) {
+        LightingRuntime.Scope scope = LightingRuntime.Scope.of(c.id, c.devices);
+        LightingRuntime runtime = new LightingRuntime(scope,
+                LightingOverrides.loadOrDefaults(LightingOverrides.path(c.id)),
+                primary.runtime.chroma(),
+                new SessionRecorder(SessionRecorder.defaultDir().resolve(c.id), "server"));
+        if (runtime.sinks().isEmpty()) {
+            System.err.println("[Sessions] " + c.id + " : aucune sortie LEDs (Chroma absent de outputs ;"
+                    + " OpenRGB et bandeaux ne suivent que la session principale)");
+        }
+        PreviewStreamHub stream = new PreviewStreamHub();
+        runtime.addFrameListener(stream);
+        Session session = new Session(c.id, runtime, stream);
+        named.put(c.id, session);
+        return session;
+    }
+
+    private static void close(Session s) {
+        s.stream.shutdown();
+        s.runtime.shutdown();
+    }
+}
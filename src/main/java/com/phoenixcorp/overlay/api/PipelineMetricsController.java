@@ -0,0 +1,116 @@
+package com.phoenixcorp.overlay.api;
+
+import com.phoenixcorp.overlay.ConfigManager;
+import com.phoenixcorp.overlay.StartupTimeline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Résumé compact des métriques du pipeline pour l'UI (le détail complet reste sur /actuator/metrics).
+ */
+@RestController
+@RequestMapping("/api")
+public class PipelineMetricsController {
+
+    private final MeterRegistry registry;
+
+    public PipelineMetricsController(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @GetMapping("/metrics")
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> stages = new TreeMap<>();
+        for (Timer t : registry.find("lighting.stage").timers()) {
+            stages.put(t.getId().getTag("stage"), summarize(t));
+        }
+
+        Map<String, Object> chroma = new TreeMap<>();
+        for (Timer t : registry.find("chroma.put").timers()) {
+            chroma.put(t.getId().getTag("endpoint") + ":" + t.getId().getTag("status"), summarize(t));
+        }
+
+        Map<String, Object> counters = new TreeMap<>();
+        for (Counter c : registry.find("lighting.frames.skipped").counters()) {
+            counters.put("skipped." + c.getId().getTag("reason"), (long) c.count());
+        }
+        for (Counter c : registry.find("lighting.frames.dropped").counters()) {
+            counters.put("dropped." + c.getId().getTag("reason"), (long) c.count());
+        }
+        Counter reconnects = registry.find("chroma.reconnects").counter();
+        if (reconnects != null) counters.put("chroma.reconnects", (long) reconnects.count());
+        Counter heartbeat = registry.find("chroma.heartbeat.failures").counter();
+        if (heartbeat != null) counters.put("chroma.heartbeatFailures", (long) heartbeat.count());
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("stages", stages);
+        payload.put("chroma", chroma);
+        payload.put("counters", counters);
+        payload.put("startupMs", StartupTimeline.snapshot());
+        long rss = residentSetKb();
+        if (rss > 0) payload.put("rssKb", rss);
+        return payload;
+    }
+
+    // Linux uniquement (comparaison JVM / exécutable natif) ; -1 ailleurs
+    private static long residentSetKb() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D+", ""));
+                }
+            }
+        } catch (Exception ignore) { }
+        return -1;
+    }
+
+    @GetMapping("/latency")
+    public Map<String, Object> getLatency() {
+        Map<String, Object> spans = new TreeMap<>();
+        for (Timer t : registry.find("lighting.latency").timers()) {
+            spans.put(t.getId().getTag("span"), summarize(t));
+        }
+        long ok = 0, violations = 0;
+        for (Counter c : registry.find("lighting.latency.budget").counters()) {
+            if ("violation".equals(c.getId().getTag("result"))) violations += (long) c.count();
+            else ok += (long) c.count();
+        }
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("budgetMs", ConfigManager.getInstance().getConfig().latencyBudgetMsOrDefault());
+        payload.put("frames", ok + violations);
+        payload.put("violations", violations);
+        payload.put("violationRate", ok + violations == 0 ? 0.0 : round((double) violations / (ok + violations)));
+        payload.put("spans", spans);
+        return payload;
+    }
+
+    private static Map<String, Object> summarize(Timer t) {
+        HistogramSnapshot snap = t.takeSnapshot();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("count", snap.count());
+        m.put("meanMs", round(snap.mean(TimeUnit.MILLISECONDS)));
+        m.put("maxMs", round(snap.max(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile v : snap.percentileValues()) {
+            m.put("p" + Math.round(v.percentile() * 100) + "Ms", round(v.value(TimeUnit.MILLISECONDS)));
+        }
+        return m;
+    }
+
+    private static double round(double ms) {
+        return Math.round(ms * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,99 @@
+package com.phoenixcorp.overlay.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phoenixcorp.overlay.OcrReader;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodages de /api/preview mis en cache par version de frame, corps déjà sérialisés (octets) :
+ * tant que la version ne change pas, aucune lecture ne re-rend ni ne re-sérialise la matrice.
+ */
+final class PreviewPayloads {
+
+    // Les versions repartent à 1 au redémarrage : l'ETag inclut un identifiant de démarrage
+    private static final String BOOT_ID = Long.toString(System.currentTimeMillis(), 36);
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    /**
+     * Encodages d'une version, prêts à écrire : json et base64Json = corps JSON UTF-8,
+     * bgr = lignes à la suite, 3 octets B,G,R par touche (6x22x3 = 396).
+     */
+    record Entry(long version, byte[] json, byte[] bgr, byte[] base64Json) {
+        static final String JSON = "json", BINARY = "bin", BASE64 = "b64";
+
+        /** ETag propre à l'encodage : un 304 ou un cache ne sert jamais le corps d'un autre encodage. */
+        String etag(String encoding) {
+            return PreviewPayloads.etag(version + "-" + encoding);
+        }
+    }
+
+    private final LightingRuntime runtime;
+    private volatile Entry cached;
+
+    PreviewPayloads(LightingRuntime runtime) {
+        this.runtime = runtime;
+    }
+
+    static String etag(Object tag) {
+        return "\"" + BOOT_ID + "-" + tag + "\"";
+    }
+
+    Entry current() {
+        Entry e = cached;
+        if (e != null && e.version() == runtime.frameVersion()) return e;
+        LightingRuntime.PreviewFrame frame = runtime.currentPreview();
+        e = cached;
+        if (e != null && e.version() == frame.version()) return e;
+        e = encode(frame);
+        cached = e;
+        return e;
+    }
+
+    private static Entry encode(LightingRuntime.PreviewFrame frame) {
+        int[][] matrix = frame.matrix();
+        int rows = matrix.length;
+        int cols = rows == 0 ? 0 : matrix[0].length;
+        byte[] bgr = new byte[rows * cols * 3];
+        int i = 0;
+        for (int[] row : matrix) {
+            for (int c = 0; c < cols; c++) {
+                int v = row[c];
+                bgr[i++] = (byte) (v >>> 16);
+                bgr[i++] = (byte) (v >>> 8);
+                bgr[i++] = (byte) v;
+            }
+        }
+
+        Map<String, Object> snapshot = snapshotJson(frame.snapshot());
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("version", frame.version());
+        json.put("matrix", matrix);
+        if (snapshot != null) json.put("snapshot", snapshot);
+
+        Map<String, Object> base64 = new LinkedHashMap<>();
+        base64.put("version", frame.version());
+        base64.put("rows", rows);
+        base64.put("cols", cols);
+        base64.put("bgr", Base64.getEncoder().encodeToString(bgr));
+        if (snapshot != null) base64.put("snapshot", snapshot);
+
+        try {
+            return new Entry(frame.version(), OM.writeValueAsBytes(json), bgr, OM.writeValueAsBytes(base64));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Aperçu non sérialisable: " + e.getMessage(), e);
+        }
+    }
+
+    private static Map<String, Object> snapshotJson(OcrReader.Snapshot s) {
+        if (s == null) return null;
+        return Map.of(
+                "hp", Map.of("cur", s.hpCur, "max", s.hpMax),
+                "resource", Map.of("cur", s.resCur, "max", s.resMax)
+        );
+    }
+}
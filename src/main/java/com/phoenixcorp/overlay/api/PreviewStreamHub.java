@@ -0,0 +1,190 @@
+package com.phoenixcorp.overlay.api;
+
+import com.phoenixcorp.overlay.OcrReader;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Diffusion SSE des frames de LightingRuntime (remplace le polling de /api/preview).
+ * - une seule sérialisation par frame, partagée par tous les clients
+ * - "delta" : masque des lignes modifiées + valeurs de ces lignes, par rapport à la frame base
+ * - "keyframe" : matrice complète, envoyée à la connexion et à tout client qui a sauté une frame
+ * - par client, seule la dernière frame en attente est gardée (latest-wins) : un client lent
+ *   ne freine ni le runtime ni les autres
+ */
+public final class PreviewStreamHub implements LightingRuntime.FrameListener {
+
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+    private final ExecutorService sender = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("preview-stream-", 0).factory());
+
+    private final Object lock = new Object();
+    private long seq;
+    private int[][] prevMatrix;
+    private OcrReader.Snapshot prevSnapshot;
+    private volatile Frame latest;
+
+    /** Frame publiée : encodages calculés au plus une fois, à la demande. */
+    static final class Frame {
+        final long seq, base;
+        final int mask;                 // bit r = ligne r modifiée depuis base
+        final int[][] matrix;
+        final OcrReader.Snapshot snapshot;
+        final boolean snapshotChanged;
+        private volatile String delta, keyframe;
+
+        Frame(long seq, long base, int mask, int[][] matrix, OcrReader.Snapshot snapshot, boolean snapshotChanged) {
+            this.seq = seq; this.base = base; this.mask = mask;
+            this.matrix = matrix; this.snapshot = snapshot; this.snapshotChanged = snapshotChanged;
+        }
+
+        String delta() {
+            String d = delta;
+            if (d == null) {
+                StringBuilder sb = new StringBuilder(64 + Integer.bitCount(mask) * 200);
+                sb.append("{\"seq\":").append(seq).append(",\"base\":").append(base).append(",\"mask\":").append(mask);
+                sb.append(",\"rows\":[");
+                boolean first = true;
+                for (int r = 0; r < matrix.length; r++) {
+                    if ((mask & (1 << r)) == 0) continue;
+                    if (!first) sb.append(',');
+                    appendRow(sb, matrix[r]);
+                    first = false;
+                }
+                sb.append(']');
+                if (snapshotChanged) appendSnapshot(sb, snapshot);
+                delta = d = sb.append('}').toString();
+            }
+            return d;
+        }
+
+        String keyframe() {
+            String k = keyframe;
+            if (k == null) {
+                StringBuilder sb = new StringBuilder(64 + matrix.length * 200);
+                sb.append("{\"seq\":").append(seq).append(",\"matrix\":[");
+                for (int r = 0; r < matrix.length; r++) {
+                    if (r > 0) sb.append(',');
+                    appendRow(sb, matrix[r]);
+                }
+                sb.append(']');
+                appendSnapshot(sb, snapshot);
+                keyframe = k = sb.append('}').toString();
+            }
+            return k;
+        }
+
+        private static void appendRow(StringBuilder sb, int[] row) {
+            sb.append('[');
+            for (int c = 0; c < row.length; c++) {
+                if (c > 0) sb.append(',');
+                sb.append(row[c]);
+            }
+            sb.append(']');
+        }
+
+        private static void appendSnapshot(StringBuilder sb, OcrReader.Snapshot s) {
+            if (s == null) return;
+            sb.append(",\"snapshot\":{\"hp\":{\"cur\":").append(s.hpCur).append(",\"max\":").append(s.hpMax)
+              .append("},\"resource\":{\"cur\":").append(s.resCur).append(",\"max\":").append(s.resMax)
+              .append(",\"type\":\"").append(s.type.name()).append("\"}}");
+        }
+    }
+
+    private final class Client {
+        final SseEmitter emitter;
+        final AtomicReference<Frame> pending = new AtomicReference<>();
+        final AtomicBoolean draining = new AtomicBoolean();
+        long lastSentSeq = -1;          // modifié uniquement par le drain en cours
+
+        Client(SseEmitter emitter) { this.emitter = emitter; }
+
+        void offer(Frame f) {
+            pending.set(f);
+            if (draining.compareAndSet(false, true)) sender.execute(this::drain);
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    Frame f = pending.getAndSet(null);
+                    if (f == null) {
+                        draining.set(false);
+                        // offre arrivée entre getAndSet et set(false) : on reprend la main si personne ne l'a fait
+                        if (pending.get() != null && draining.compareAndSet(false, true)) continue;
+                        return;
+                    }
+                    if (f.seq <= lastSentSeq) continue;   // déjà reçue (abonnement pendant une publication)
+                    boolean inSequence = f.base == lastSentSeq;
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(f.seq))
+                            .name(inSequence ? "delta" : "keyframe")
+                            .data(inSequence ? f.delta() : f.keyframe(), MediaType.APPLICATION_JSON));
+                    lastSentSeq = f.seq;
+                }
+            } catch (Exception e) {
+                clients.remove(this);
+                draining.set(false);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    /** Nouveau client SSE : reçoit tout de suite la frame courante en keyframe. */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L);
+        Client c = new Client(emitter);
+        emitter.onCompletion(() -> clients.remove(c));
+        emitter.onTimeout(() -> clients.remove(c));
+        emitter.onError(t -> clients.remove(c));
+        clients.add(c);
+        Frame f = latest;
+        if (f != null) c.offer(f);
+        return emitter;
+    }
+
+    public int clientCount() {
+        return clients.size();
+    }
+
+    @Override
+    public void onFrame(int[][] matrix, OcrReader.Snapshot snapshot) {
+        if (matrix == null) return;
+        Frame f;
+        synchronized (lock) {
+            int mask = 0;
+            if (prevMatrix == null || prevMatrix.length != matrix.length) {
+                mask = (1 << matrix.length) - 1;
+            } else {
+                for (int r = 0; r < matrix.length; r++) {
+                    if (!Arrays.equals(prevMatrix[r], matrix[r])) mask |= 1 << r;
+                }
+            }
+            boolean snapshotChanged = !LightingRuntime.sameValues(prevSnapshot, snapshot);
+            if (mask == 0 && !snapshotChanged) return;
+
+            f = new Frame(seq + 1, seq, mask, LightingRuntime.copyMatrix(matrix), snapshot, snapshotChanged);
+            seq = f.seq;
+            prevMatrix = f.matrix;
+            prevSnapshot = snapshot;
+            latest = f;
+        }
+        for (Client c : clients) c.offer(f);
+    }
+
+    public void shutdown() {
+        for (Client c : clients) {
+            try { c.emitter.complete(); } catch (Exception ignore) { }
+        }
+        clients.clear();
+        sender.shutdownNow();
+    }
+}
@@ -0,0 +1,60 @@
+package com.phoenixcorp.overlay.api;
+
+import com.phoenixcorp.overlay.OcrReader;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Petit cache LRU des rendus "what-if" (sliders de l'UI).
+ * Clé = (version des overrides, LEDs allumées HP/ressource, type) : tout ce dont dépend la frame clavier.
+ */
+public final class RenderCache {
+
+    private static final int MAX_ENTRIES = 256;
+
+    public record Key(long overridesVersion, int hpFill, int resFill, OcrReader.ResourceType type) {
+        /** Identifiant stable de la frame (ETag). */
+        public String tag() {
+            return "r" + overridesVersion + "-" + hpFill + "-" + resFill + "-" + type.name();
+        }
+    }
+
+    /** Frame mémoïsée : la matrice est partagée, ne pas la modifier. */
+    public record Entry(Key key, int[][] matrix) { }
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private long hits, misses;
+
+    public synchronized Entry get(Key key, Supplier<int[][]> render) {
+        Entry e = entries.get(key);
+        if (e != null) {
+            hits++;
+            return e;
+        }
+        misses++;
+        e = new Entry(key, render.get());
+        entries.put(key, e);
+        return e;
+    }
+
+    /** Les entrées d'anciennes versions d'overrides ne servent plus : on libère tout. */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+}
@@ -0,0 +1,111 @@
+package com.phoenixcorp.overlay.api;
+
+import com.phoenixcorp.overlay.SessionLog;
+import com.phoenixcorp.overlay.SessionRecorder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Journal de session (SessionRecorder) : état et export d'une fenêtre de temps, pour les rapports
+ * "ça a laggé pendant le raid". Export binaire (segment lisible par SessionLog) ou CSV.
+ * Session nommée : /api/sessions/{session}/recorder (journal dans son propre dossier).
+ */
+@RestController
+@RequestMapping({"/api/recorder", "/api/sessions/{session}/recorder"})
+public class SessionRecorderController {
+
+    private final LightingSessions sessions;
+
+    public SessionRecorderController(LightingSessions sessions) {
+        this.sessions = sessions;
+    }
+
+    private SessionRecorder recorder(String session) {
+        LightingSessions.Session s = sessions.get(session);
+        if (s == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Session inconnue: " + session);
+        }
+        return s.runtime().recorder();
+    }
+
+    @GetMapping
+    public Map<String, Object> status(@PathVariable(required = false) String session) {
+        SessionRecorder recorder = recorder(session);
+        List<Map<String, Object>> segments = new ArrayList<>();
+        try {
+            for (Path seg : SessionLog.segments(recorder.dir())) {
+                Map<String, Object> s = new LinkedHashMap<>();
+                s.put("file", seg.getFileName().toString());
+                s.put("bytes", Files.size(seg));
+                segments.add(s);
+            }
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Journal illisible: " + e.getMessage(), e);
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("dir", recorder.dir().toString());
+        payload.put("recordBytes", SessionLog.RECORD_SIZE);
+        payload.put("segments", segments);
+        return payload;
+    }
+
+    /**
+     * Enregistrements de [from, to] (ms epoch) ; sans bornes : les `minutes` dernières minutes.
+     * format=bin (défaut) ou csv.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<byte[]> export(@PathVariable(required = false) String session,
+                                         @RequestParam(required = false) Long from,
+                                         @RequestParam(required = false) Long to,
+                                         @RequestParam(defaultValue = "10") long minutes,
+                                         @RequestParam(defaultValue = "bin") String format) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - Math.max(1, minutes) * 60_000L;
+        if (start > end) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from > to");
+        }
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"bin".equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format inconnu: " + format);
+        }
+        SessionRecorder recorder = recorder(session);
+        try {
+            recorder.flush();
+            List<SessionLog.Record> records = SessionLog.read(recorder.dir(), start, end);
+            byte[] body;
+            if (csv) {
+                StringBuilder sb = new StringBuilder(64 + records.size() * 64);
+                SessionLog.writeCsv(records, sb);
+                body = sb.toString().getBytes(StandardCharsets.UTF_8);
+            } else {
+                body = SessionLog.toSegment(records);
+            }
+            String name = "session-" + (session == null ? "" : session + "-") + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(start)) + (csv ? ".csv" : ".bin");
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"")
+                    .header("X-Record-Count", Integer.toString(records.size()))
+                    .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_OCTET_STREAM)
+                    .body(body);
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Export impossible: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.phoenixcorp.overlay.api;
+
+import com.phoenixcorp.overlay.OcrScheduler;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sessions nommées : liste, création, suppression. Le pilotage d'une session (start, overrides, aperçu,
+ * zone OCR, journal) est sous /api/sessions/{id}/... (LightingRuntimeController, SessionRecorderController).
+ */
+@RestController
+@RequestMapping("/api/sessions")
+public class SessionsController {
+
+    /** Corps de POST /api/sessions : {"id":"alt","devices":["mouse","mousepad"]} (devices absent = tous). */
+    public record CreateRequest(String id, List<String> devices) { }
+
+    private final LightingSessions sessions;
+
+    public SessionsController(LightingSessions sessions) {
+        this.sessions = sessions;
+    }
+
+    @GetMapping
+    public Map<String, Object> list() {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("sessions", sessions.list().stream().map(LightingSessions.Session::toPayload).toList());
+        payload.put("maxSessions", LightingSessions.MAX_SESSIONS);
+        payload.put("ocrWorkers", OcrScheduler.shared().workerCount());
+        return payload;
+    }
+
+    @GetMapping("/{id}")
+    public Map<String, Object> get(@PathVariable String id) {
+        LightingSessions.Session s = sessions.get(id);
+        if (s == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Session inconnue: " + id);
+        }
+        return s.toPayload();
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> create(@RequestBody CreateRequest request) {
+        try {
+            LightingSessions.Session s = sessions.create(request.id(), request.devices());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(HttpHeaders.LOCATION, "/api/sessions/" + s.id())
+                    .body(s.toPayload());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable String id) {
+        try {
+            if (!sessions.remove(id)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Session inconnue: " + id);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return ResponseEntity.noContent().build();
+    }
+}